@@ -0,0 +1,67 @@
+package app.lovable.energyx;
+
+import android.util.Base64;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Builds the JSON the InstalledApps plugin returns for a list of apps. A page
+// is filled on the work pool, icons included, and written back by index so the
+// order never depends on scheduling. Free of PackageManager and Context, so
+// the benchmark runs the same code on a plain JVM.
+public final class AppListBuilder {
+
+    public interface IconWriter {
+        // Adds the icon fields to the app object; false when there is no icon
+        boolean putIcon(JSObject target, InstalledApp app);
+    }
+
+    private AppListBuilder() {
+    }
+
+    public static JSObject appObject(InstalledApp app) {
+        JSObject appObject = new JSObject();
+        appObject.put("packageName", app.packageName);
+        appObject.put("appName", app.label);
+        appObject.put("isSystemApp", app.isSystemApp());
+        appObject.put("isGame", app.isGame());
+        return appObject;
+    }
+
+    public static void putBase64Icon(JSObject target, byte[] data, String format) {
+        target.put("icon", Base64.encodeToString(data, Base64.NO_WRAP));
+        target.put("iconMimeType", IconRenderer.mimeType(format));
+    }
+
+    // The objects for apps[start, end), with icons unless icons is null.
+    // Returns null if cancelled was set before every app was built.
+    public static JSObject[] buildPage(List<InstalledApp> apps, int start, int end, IconWriter icons,
+            AppWorkPool workPool, int parallelism, AtomicBoolean cancelled) throws InterruptedException {
+        JSObject[] appObjects = new JSObject[end - start];
+        boolean completed = workPool.runAll(start, end, parallelism, cancelled, i -> {
+            InstalledApp app = apps.get(i);
+            JSObject appObject = appObject(app);
+            if (icons != null) {
+                icons.putIcon(appObject, app);
+            }
+            appObjects[i - start] = appObject;
+        });
+        return completed ? appObjects : null;
+    }
+
+    public static void putPage(JSObject result, JSObject[] appObjects, int total, int end, long generation) {
+        JSArray appsArray = new JSArray();
+        for (JSObject appObject : appObjects) {
+            appsArray.put(appObject);
+        }
+
+        result.put("apps", appsArray);
+        result.put("count", appsArray.length());
+        result.put("total", total);
+        result.put("nextOffset", end < total ? end : -1);
+        result.put("generation", generation);
+    }
+}
@@ -0,0 +1,259 @@
+package app.lovable.energyx;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Type-ahead search over app labels and package names. Both are folded to
+// lower case without accents, with every other character turned into a word
+// break. Query terms of three or more characters are looked up in a trigram
+// index and then verified; shorter ones match word prefixes. All terms must
+// match. Results can be limited to games, non-games or user apps, and are
+// ranked by how well the terms match, by name or by last update.
+//
+// Items are added once and never change afterwards; a built index can be
+// queried from any thread. Free of Android types, so it can be benchmarked on
+// a plain JVM.
+public final class AppSearchIndex<T> {
+
+    public static final int CATEGORY_ALL = 0;
+    public static final int CATEGORY_GAMES = 1;
+    public static final int CATEGORY_NON_GAMES = 2;
+
+    public static final int SORT_RELEVANCE = 0;
+    public static final int SORT_NAME = 1;
+    public static final int SORT_RECENT = 2;
+
+    // Match ranks of one term, best first
+    private static final int MATCH_LABEL_START = 0;
+    private static final int MATCH_LABEL_WORD = 1;
+    private static final int MATCH_LABEL = 2;
+    private static final int MATCH_PACKAGE_WORD = 3;
+    private static final int MATCH_PACKAGE = 4;
+    private static final int NO_MATCH = -1;
+
+    public static final class Page<T> {
+        public final List<T> items;
+        // Matches before paging
+        public final int total;
+        public final int nextOffset;
+
+        Page(List<T> items, int total, int nextOffset) {
+            this.items = items;
+            this.total = total;
+            this.nextOffset = nextOffset;
+        }
+    }
+
+    private static final class Item<T> {
+        final T value;
+        final String label;
+        // Folded label and package name, each with a leading space so word
+        // starts can be found with indexOf(" " + term)
+        final String labelKey;
+        final String packageKey;
+        final boolean game;
+        final boolean system;
+        final long lastUpdateTime;
+
+        Item(T value, String label, String labelKey, String packageKey, boolean game, boolean system,
+                long lastUpdateTime) {
+            this.value = value;
+            this.label = label;
+            this.labelKey = labelKey;
+            this.packageKey = packageKey;
+            this.game = game;
+            this.system = system;
+            this.lastUpdateTime = lastUpdateTime;
+        }
+    }
+
+    // Ids of the items containing one trigram, ascending
+    private static final class Posting {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            // Ids are added in ascending order, so a repeat can only be the last one
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private static final class Hit {
+        final int id;
+        final int score;
+
+        Hit(int id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private final List<Item<T>> items = new ArrayList<>();
+    private final Map<Long, Posting> postings = new HashMap<>();
+
+    public void add(T value, String packageName, String label, boolean isGame, boolean isSystem,
+            long lastUpdateTime) {
+        int id = items.size();
+        Item<T> item = new Item<>(value, label, " " + fold(label), " " + fold(packageName), isGame, isSystem,
+            lastUpdateTime);
+        items.add(item);
+        indexTrigrams(id, item.labelKey);
+        indexTrigrams(id, item.packageKey);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Page<T> search(String query, int category, boolean includeSystem, int sort, int offset, int limit) {
+        String[] terms = splitTerms(query);
+
+        // Long terms narrow the candidates through the trigram index first
+        int[] candidates = null;
+        for (String term : terms) {
+            if (term.length() < 3) continue;
+            int[] matches = trigramCandidates(term);
+            candidates = candidates == null ? matches : intersect(candidates, matches);
+            if (candidates.length == 0) break;
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        int count = candidates != null ? candidates.length : items.size();
+        for (int i = 0; i < count; i++) {
+            int id = candidates != null ? candidates[i] : i;
+            Item<T> item = items.get(id);
+            if (!includeSystem && item.system) continue;
+            if (category == CATEGORY_GAMES && !item.game) continue;
+            if (category == CATEGORY_NON_GAMES && item.game) continue;
+
+            int score = 0;
+            for (String term : terms) {
+                int rank = matchRank(item, term);
+                if (rank == NO_MATCH) {
+                    score = NO_MATCH;
+                    break;
+                }
+                score += rank;
+            }
+            if (score != NO_MATCH) hits.add(new Hit(id, score));
+        }
+
+        boolean byRelevance = sort == SORT_RELEVANCE && terms.length > 0;
+        Collections.sort(hits, (a, b) -> {
+            if (byRelevance && a.score != b.score) return Integer.compare(a.score, b.score);
+            Item<T> first = items.get(a.id);
+            Item<T> second = items.get(b.id);
+            if (sort == SORT_RECENT && first.lastUpdateTime != second.lastUpdateTime) {
+                return Long.compare(second.lastUpdateTime, first.lastUpdateTime);
+            }
+            return first.label.compareToIgnoreCase(second.label);
+        });
+
+        int start = Math.min(Math.max(0, offset), hits.size());
+        int end = limit < 0 ? hits.size() : Math.min(hits.size(), start + limit);
+        List<T> page = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            page.add(items.get(hits.get(i).id).value);
+        }
+        return new Page<>(page, hits.size(), end < hits.size() ? end : -1);
+    }
+
+    private static int matchRank(Item<?> item, String term) {
+        String labelKey = item.labelKey;
+        int at = labelKey.indexOf(term);
+        if (at == 1) return MATCH_LABEL_START;
+        if (at > 0) {
+            if (labelKey.charAt(at - 1) == ' ') return MATCH_LABEL_WORD;
+            if (labelKey.indexOf(" " + term, at) >= 0) return MATCH_LABEL_WORD;
+            if (term.length() >= 3) return MATCH_LABEL;
+        }
+
+        String packageKey = item.packageKey;
+        at = packageKey.indexOf(term);
+        if (at > 0) {
+            if (packageKey.charAt(at - 1) == ' ' || packageKey.indexOf(" " + term, at) >= 0) {
+                return MATCH_PACKAGE_WORD;
+            }
+            if (term.length() >= 3) return MATCH_PACKAGE;
+        }
+        return NO_MATCH;
+    }
+
+    private int[] trigramCandidates(String term) {
+        int[] result = null;
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            Posting posting = postings.get(trigram(term, i));
+            if (posting == null) return new int[0];
+            result = result == null
+                ? Arrays.copyOf(posting.ids, posting.size)
+                : intersect(result, posting.ids, posting.size);
+            if (result.length == 0) break;
+        }
+        return result;
+    }
+
+    private void indexTrigrams(int id, String key) {
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            // Trigrams spanning a word break are never looked up
+            if (key.charAt(i) == ' ' || key.charAt(i + 1) == ' ' || key.charAt(i + 2) == ' ') continue;
+            long trigram = trigram(key, i);
+            Posting posting = postings.get(trigram);
+            if (posting == null) {
+                posting = new Posting();
+                postings.put(trigram, posting);
+            }
+            posting.add(id);
+        }
+    }
+
+    private static long trigram(String key, int start) {
+        return (long) key.charAt(start) << 32 | (long) key.charAt(start + 1) << 16 | key.charAt(start + 2);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        return intersect(a, b, b.length);
+    }
+
+    private static int[] intersect(int[] a, int[] b, int bSize) {
+        int[] result = new int[Math.min(a.length, bSize)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < bSize; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    static String[] splitTerms(String query) {
+        if (query == null) return new String[0];
+        String folded = fold(query).trim();
+        return folded.isEmpty() ? new String[0] : folded.split(" +");
+    }
+
+    // Lower case without accents; anything but letters and digits becomes a space
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            folded.append(Character.isLetterOrDigit(c) ? c : ' ');
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,94 @@
+package app.lovable.energyx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Shared worker pool for per-app work (labels, icon rasterization). Each call
+// fans an index range out over at most `parallelism` workers; results are
+// written by index, so output order never depends on scheduling.
+public class AppWorkPool {
+
+    public interface IndexTask {
+        void run(int index);
+    }
+
+    private final ExecutorService executor;
+    private final int threadCount;
+
+    public AppWorkPool(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "EnergyXAppWorker-" + threadNumber.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        executor = Executors.newFixedThreadPool(this.threadCount, threadFactory);
+    }
+
+    public static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    // Runs task for every index in [from, to). Returns false if cancelled was
+    // set before all indices were processed.
+    public boolean runAll(int from, int to, int parallelism, AtomicBoolean cancelled, IndexTask task)
+            throws InterruptedException {
+        int count = to - from;
+        if (count <= 0) return !cancelled.get();
+
+        int workers = Math.max(1, Math.min(Math.min(parallelism, threadCount), count));
+        if (workers == 1) {
+            for (int i = from; i < to; i++) {
+                if (cancelled.get()) return false;
+                task.run(i);
+            }
+            return true;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int first = from + w;
+            futures.add(executor.submit(() -> {
+                // Strided partitions keep early indices (the first screen) finishing first
+                for (int i = first; i < to; i += workers) {
+                    if (cancelled.get()) return;
+                    task.run(i);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            cancelled.set(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
+        return !cancelled.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,300 @@
+package app.lovable.energyx;
+
+import android.app.ActivityManager;
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Debug;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Frees memory for the "Boost" action by asking the system to kill the cached
+// processes of background apps. Candidates are the user apps from the
+// InstalledAppIndex, ranked by memory footprint (PSS where the system still
+// reports it, otherwise an estimate that decays with time since last use).
+// They are killed in parallel batches; available memory is measured around
+// each batch and attributed back to the packages in it.
+public class BackgroundTrimmer {
+
+    public static final int DEFAULT_MAX_APPS = 24;
+    public static final int DEFAULT_BATCH_SIZE = 4;
+
+    // Apps left within this window are probably being switched back to
+    static final long RECENT_GRACE_MS = 30_000;
+    // Apps unused for longer are assumed to have no process left
+    static final long USAGE_WINDOW_MS = 24L * 60 * 60 * 1000;
+    // Footprint assumed for a recently used app whose PSS is not visible to us
+    static final long ESTIMATED_FOOTPRINT_KB = 48 * 1024;
+    static final long ESTIMATE_HALF_LIFE_MS = 2L * 60 * 60 * 1000;
+    // Time for the low memory killer and kernel to return freed pages
+    static final long SETTLE_MS = 250;
+
+    public static final class Candidate {
+        public final String packageName;
+        public final String label;
+        public final long lastUsed;
+        // Measured PSS, or -1 when the process is not visible to this app
+        public final long pssKb;
+        public final long score;
+        final int[] pids;
+
+        long reclaimedKb;
+        boolean estimated = true;
+
+        Candidate(String packageName, String label, long lastUsed, long pssKb, long score, int[] pids) {
+            this.packageName = packageName;
+            this.label = label;
+            this.lastUsed = lastUsed;
+            this.pssKb = pssKb;
+            this.score = score;
+            this.pids = pids;
+        }
+
+        public long getReclaimedKb() {
+            return reclaimedKb;
+        }
+
+        // True when reclaimedKb is a share of a batch's measured delta rather
+        // than the PSS of a process that went away
+        public boolean isEstimated() {
+            return estimated;
+        }
+    }
+
+    public static final class Result {
+        public final List<Candidate> apps;
+        public final long availableBeforeKb;
+        public final long availableAfterKb;
+        public final boolean dryRun;
+
+        Result(List<Candidate> apps, long availableBeforeKb, long availableAfterKb, boolean dryRun) {
+            this.apps = apps;
+            this.availableBeforeKb = availableBeforeKb;
+            this.availableAfterKb = availableAfterKb;
+            this.dryRun = dryRun;
+        }
+
+        public long getReclaimedKb() {
+            return Math.max(0, availableAfterKb - availableBeforeKb);
+        }
+    }
+
+    private final Context context;
+    private final ActivityManager activityManager;
+    private final UsageStatsManager usageStatsManager;
+    private final ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+
+    public BackgroundTrimmer(Context context) {
+        this.context = context.getApplicationContext();
+        this.activityManager = (ActivityManager) this.context.getSystemService(Context.ACTIVITY_SERVICE);
+        this.usageStatsManager = (UsageStatsManager) this.context.getSystemService(Context.USAGE_STATS_SERVICE);
+    }
+
+    // Ranks the candidates, highest score first, without killing anything
+    public List<Candidate> rank(List<InstalledApp> apps, Set<String> protectedPackages,
+            Set<String> exclude, int maxApps) {
+        long now = System.currentTimeMillis();
+        Set<String> skip = new HashSet<>(exclude);
+        skip.add(context.getPackageName());
+        String launcher = getLauncherPackage();
+        if (launcher != null) skip.add(launcher);
+
+        Map<String, Long> lastUsed = queryLastUsed(now);
+        Map<String, int[]> pidsByPackage = new HashMap<>();
+        Map<String, Long> pssByPackage = new HashMap<>();
+        queryRunning(skip, pidsByPackage, pssByPackage);
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (InstalledApp entry : apps) {
+            String packageName = entry.packageName;
+            if (skip.contains(packageName) || protectedPackages.contains(packageName)) continue;
+
+            Long used = lastUsed.get(packageName);
+            long usedAt = used != null ? used : 0;
+            if (usedAt > 0 && now - usedAt < RECENT_GRACE_MS) continue;
+
+            Long pss = pssByPackage.get(packageName);
+            long score;
+            if (pss != null) {
+                score = pss;
+            } else if (usedAt > 0) {
+                score = estimateFootprintKb(now - usedAt);
+            } else {
+                // Neither running nor used lately: nothing to reclaim
+                continue;
+            }
+            if (score <= 0) continue;
+
+            int[] pids = pidsByPackage.get(packageName);
+            candidates.add(new Candidate(packageName, entry.label, usedAt, pss != null ? pss : -1, score,
+                pids != null ? pids : new int[0]));
+        }
+
+        Collections.sort(candidates, (a, b) -> Long.compare(b.score, a.score));
+        return candidates.size() > maxApps ? new ArrayList<>(candidates.subList(0, maxApps)) : candidates;
+    }
+
+    // Kills the ranked candidates batch by batch. Each batch's kills run in
+    // parallel on workPool; memory is read after SETTLE_MS.
+    public Result trim(List<Candidate> candidates, int batchSize, AppWorkPool workPool, AtomicBoolean cancelled)
+            throws InterruptedException {
+        long availableBeforeKb = readAvailableKb();
+        if (activityManager == null) {
+            return new Result(Collections.emptyList(), availableBeforeKb, availableBeforeKb, false);
+        }
+
+        List<Candidate> killed = new ArrayList<>(candidates.size());
+        long batchStartKb = availableBeforeKb;
+        for (int start = 0; start < candidates.size() && !cancelled.get(); start += batchSize) {
+            int end = Math.min(candidates.size(), start + batchSize);
+            int first = start;
+            if (!workPool.runAll(start, end, end - start, cancelled,
+                    i -> activityManager.killBackgroundProcesses(candidates.get(i).packageName))) {
+                break;
+            }
+            SystemClock.sleep(SETTLE_MS);
+
+            long batchEndKb = readAvailableKb();
+            List<Candidate> batch = candidates.subList(first, end);
+            attribute(batch, Math.max(0, batchEndKb - batchStartKb), runningPids());
+            killed.addAll(batch);
+            batchStartKb = batchEndKb;
+        }
+        return new Result(killed, availableBeforeKb, batchStartKb, false);
+    }
+
+    public Result dryRun(List<Candidate> candidates) {
+        long availableKb = readAvailableKb();
+        return new Result(candidates, availableKb, availableKb, true);
+    }
+
+    // Packages whose measured process is gone are credited with its PSS; the
+    // rest of the batch's delta is shared by score among the others
+    private static void attribute(List<Candidate> batch, long deltaKb, Set<Integer> running) {
+        long measuredKb = 0;
+        long estimatedScore = 0;
+        for (Candidate candidate : batch) {
+            if (candidate.pssKb >= 0 && candidate.pids.length > 0 && !anyRunning(candidate.pids, running)) {
+                candidate.reclaimedKb = candidate.pssKb;
+                candidate.estimated = false;
+                measuredKb += candidate.pssKb;
+            } else {
+                estimatedScore += candidate.score;
+            }
+        }
+
+        long remainingKb = Math.max(0, deltaKb - measuredKb);
+        for (Candidate candidate : batch) {
+            if (!candidate.estimated) continue;
+            candidate.reclaimedKb = estimatedScore > 0 ? remainingKb * candidate.score / estimatedScore : 0;
+        }
+    }
+
+    private static boolean anyRunning(int[] pids, Set<Integer> running) {
+        for (int pid : pids) {
+            if (running.contains(pid)) return true;
+        }
+        return false;
+    }
+
+    static long estimateFootprintKb(long sinceUsedMs) {
+        if (sinceUsedMs > USAGE_WINDOW_MS) return 0;
+        return (long) (ESTIMATED_FOOTPRINT_KB * Math.pow(0.5, (double) sinceUsedMs / ESTIMATE_HALF_LIFE_MS));
+    }
+
+    private long readAvailableKb() {
+        if (activityManager == null) return -1;
+        activityManager.getMemoryInfo(memoryInfo);
+        return memoryInfo.availMem / 1024;
+    }
+
+    private String getLauncherPackage() {
+        Intent home = new Intent(Intent.ACTION_MAIN);
+        home.addCategory(Intent.CATEGORY_HOME);
+        ResolveInfo resolved = context.getPackageManager().resolveActivity(home, PackageManager.MATCH_DEFAULT_ONLY);
+        return resolved != null && resolved.activityInfo != null ? resolved.activityInfo.packageName : null;
+    }
+
+    // Needs usage access; without it every app reads as never used
+    private Map<String, Long> queryLastUsed(long now) {
+        Map<String, Long> lastUsed = new HashMap<>();
+        if (usageStatsManager == null) return lastUsed;
+
+        List<UsageStats> stats = usageStatsManager.queryUsageStats(UsageStatsManager.INTERVAL_BEST,
+            now - USAGE_WINDOW_MS, now);
+        if (stats == null) return lastUsed;
+        for (UsageStats usage : stats) {
+            Long previous = lastUsed.get(usage.getPackageName());
+            if (previous == null || usage.getLastTimeUsed() > previous) {
+                lastUsed.put(usage.getPackageName(), usage.getLastTimeUsed());
+            }
+        }
+        return lastUsed;
+    }
+
+    // On Android 5.1+ only this app's own processes are listed; on older
+    // releases and privileged builds the PSS of other apps is available too.
+    // Processes the user can currently see or hear are skipped.
+    private void queryRunning(Set<String> skip, Map<String, int[]> pidsByPackage, Map<String, Long> pssByPackage) {
+        if (activityManager == null) return;
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes == null || processes.isEmpty()) return;
+
+        List<ActivityManager.RunningAppProcessInfo> background = new ArrayList<>();
+        for (ActivityManager.RunningAppProcessInfo process : processes) {
+            if (process.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_PERCEPTIBLE) {
+                if (process.pkgList != null) {
+                    Collections.addAll(skip, process.pkgList);
+                }
+                continue;
+            }
+            if (process.pkgList != null) background.add(process);
+        }
+        if (background.isEmpty()) return;
+
+        int[] pids = new int[background.size()];
+        for (int i = 0; i < pids.length; i++) {
+            pids[i] = background.get(i).pid;
+        }
+        Debug.MemoryInfo[] memory = activityManager.getProcessMemoryInfo(pids);
+
+        for (int i = 0; i < pids.length; i++) {
+            // Processes of other apps report a PSS of zero when restricted
+            long pssKb = memory != null && i < memory.length ? memory[i].getTotalPss() : 0;
+            for (String packageName : background.get(i).pkgList) {
+                int[] known = pidsByPackage.get(packageName);
+                int[] merged = new int[known != null ? known.length + 1 : 1];
+                if (known != null) System.arraycopy(known, 0, merged, 0, known.length);
+                merged[merged.length - 1] = pids[i];
+                pidsByPackage.put(packageName, merged);
+
+                if (pssKb > 0) {
+                    Long total = pssByPackage.get(packageName);
+                    pssByPackage.put(packageName, (total != null ? total : 0) + pssKb);
+                }
+            }
+        }
+    }
+
+    private Set<Integer> runningPids() {
+        Set<Integer> pids = new HashSet<>();
+        if (activityManager == null) return pids;
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager.getRunningAppProcesses();
+        if (processes == null) return pids;
+        for (ActivityManager.RunningAppProcessInfo process : processes) {
+            pids.add(process.pid);
+        }
+        return pids;
+    }
+}
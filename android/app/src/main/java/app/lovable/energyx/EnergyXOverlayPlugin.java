@@ -16,6 +16,7 @@ import com.getcapacitor.annotation.CapacitorPlugin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @CapacitorPlugin(name = "EnergyXOverlay")
 public class EnergyXOverlayPlugin extends Plugin {
@@ -141,9 +142,8 @@ public class EnergyXOverlayPlugin extends Plugin {
                 packages.add(packagesArray.getString(i));
             }
             
-            // Store in shared preferences for the service to use
-            EnergyXOverlayService.setMonitoredPackages(getContext(), packages);
-            call.resolve();
+            // Resolve once the running service (if any) matches against the new list
+            OverlayConfigStore.get(getContext()).setMonitoredPackages(packages, call::resolve);
         } catch (Exception e) {
             call.reject("Error setting monitored games", e);
         }
@@ -151,12 +151,124 @@ public class EnergyXOverlayPlugin extends Plugin {
 
     @PluginMethod
     public void configureOverlay(PluginCall call) {
-        int duration = call.getInt("duration", 2000);
-        String message = call.getString("message", "Game Boosted");
-        String appName = call.getString("appName", "");
+        int duration = call.getInt("duration", OverlayConfigStore.DEFAULT_DURATION_MS);
+        // "{app}" in the message is replaced with the detected game's name
+        String message = call.getString("message", OverlayConfigStore.DEFAULT_MESSAGE);
+        // "latest" replaces the overlay on a new game at once, "fifo" shows each in turn
+        int queueMode = "fifo".equals(call.getString("queueMode", "latest"))
+            ? OverlayScheduler.MODE_FIFO
+            : OverlayScheduler.MODE_LATEST_WINS;
+        long cooldownMs = call.getLong("cooldownMs", OverlayConfigStore.DEFAULT_COOLDOWN_MS);
 
-        EnergyXOverlayService.setOverlayConfig(getContext(), duration, message, appName);
-        call.resolve();
+        OverlayConfigStore.get(getContext()).setOverlay(duration, message, queueMode, cooldownMs, call::resolve);
+    }
+
+    // Persistent FPS, jank, CPU and temperature HUD over monitored games
+    @PluginMethod
+    public void setHudEnabled(PluginCall call) {
+        boolean enabled = call.getBoolean("enabled", false);
+        OverlayConfigStore.get(getContext()).setHudEnabled(enabled, call::resolve);
+    }
+
+    // Adds the installed games found by GameClassifier to the monitored list
+    @PluginMethod
+    public void setAutoDetectGames(PluginCall call) {
+        boolean enabled = call.getBoolean("enabled", false);
+        OverlayConfigStore.get(getContext()).setAutoDetectGames(enabled, () -> {
+            if (enabled) {
+                GameClassifier.get(getContext()).refresh(null);
+            }
+            call.resolve();
+        });
+    }
+
+    // Classification of every launchable app, best score first
+    @PluginMethod
+    public void getDetectedGames(PluginCall call) {
+        GameClassifier classifier = GameClassifier.get(getContext());
+        if (call.getBoolean("refresh", false) || classifier.getLastRunMs() < 0) {
+            classifier.refresh(() -> resolveDetectedGames(call, classifier));
+        } else {
+            resolveDetectedGames(call, classifier);
+        }
+    }
+
+    private void resolveDetectedGames(PluginCall call, GameClassifier classifier) {
+        boolean gamesOnly = call.getBoolean("gamesOnly", true);
+        JSArray apps = new JSArray();
+        for (GameClassifier.Result result : classifier.getResults()) {
+            if (gamesOnly && !result.isGame()) continue;
+            JSObject app = new JSObject();
+            app.put("packageName", result.packageName);
+            app.put("appName", result.label);
+            app.put("isGame", result.isGame());
+            app.put("score", result.score);
+            JSArray reasons = new JSArray();
+            if ((result.reasons & GameClassifier.REASON_CATEGORY) != 0) reasons.put("category");
+            if ((result.reasons & GameClassifier.REASON_KNOWN_PACKAGE) != 0) reasons.put("knownPackage");
+            if ((result.reasons & GameClassifier.REASON_KNOWN_PUBLISHER) != 0) reasons.put("knownPublisher");
+            if ((result.reasons & GameClassifier.REASON_NAME) != 0) reasons.put("name");
+            if ((result.reasons & GameClassifier.REASON_USAGE) != 0) reasons.put("usage");
+            app.put("reasons", reasons);
+            apps.put(app);
+        }
+
+        JSObject result = new JSObject();
+        result.put("apps", apps);
+        result.put("autoDetectGames", OverlayConfigStore.get(getContext()).getConfig().autoDetectGames);
+        result.put("classifyMs", classifier.getLastRunMs());
+        call.resolve(result);
+    }
+
+    // Settings applied while a game is in front and undone when it leaves.
+    // packageName "*" is the default for monitored games without their own;
+    // omitted values are left as they are.
+    @PluginMethod
+    public void setGameProfile(PluginCall call) {
+        String packageName = call.getString("packageName");
+        if (packageName == null || packageName.isEmpty()) {
+            call.reject("packageName is required");
+            return;
+        }
+        int trimPolicy = "onEnter".equals(call.getString("trimPolicy", "none"))
+            ? GameProfile.TRIM_ON_ENTER
+            : GameProfile.TRIM_NONE;
+        GameProfile profile = new GameProfile(
+            call.getInt("screenTimeoutMs", GameProfile.KEEP),
+            call.getInt("brightness", GameProfile.KEEP),
+            call.getFloat("refreshRate", 0f),
+            trimPolicy);
+        GameProfileStore.get(getContext()).setProfile(packageName, profile, call::resolve);
+    }
+
+    @PluginMethod
+    public void removeGameProfile(PluginCall call) {
+        String packageName = call.getString("packageName");
+        if (packageName == null || packageName.isEmpty()) {
+            call.reject("packageName is required");
+            return;
+        }
+        GameProfileStore.get(getContext()).setProfile(packageName, null, call::resolve);
+    }
+
+    @PluginMethod
+    public void getGameProfiles(PluginCall call) {
+        JSArray profiles = new JSArray();
+        for (Map.Entry<String, GameProfile> entry : GameProfileStore.get(getContext()).getProfiles().entrySet()) {
+            GameProfile profile = entry.getValue();
+            JSObject item = new JSObject();
+            item.put("packageName", entry.getKey());
+            if (profile.screenTimeoutMs != GameProfile.KEEP) item.put("screenTimeoutMs", profile.screenTimeoutMs);
+            if (profile.brightness != GameProfile.KEEP) item.put("brightness", profile.brightness);
+            if (profile.refreshRate > 0) item.put("refreshRate", profile.refreshRate);
+            item.put("trimPolicy", profile.trimPolicy == GameProfile.TRIM_ON_ENTER ? "onEnter" : "none");
+            profiles.put(item);
+        }
+
+        JSObject result = new JSObject();
+        result.put("profiles", profiles);
+        result.put("canWriteSettings", hasWriteSettingsPermission());
+        call.resolve(result);
     }
 
     @PluginMethod
@@ -188,6 +300,62 @@ public class EnergyXOverlayPlugin extends Plugin {
         call.resolve(result);
     }
 
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        OverlayMetrics metrics = OverlayMetrics.get();
+        JSObject result = new JSObject();
+        result.put("overlayDisplayCount", metrics.getOverlayDisplayCount());
+        result.put("warmHits", metrics.getWarmHits());
+        result.put("warmMisses", metrics.getWarmMisses());
+
+        JSObject histograms = new JSObject();
+        for (LatencyHistogram histogram : metrics.getHistograms()) {
+            JSObject entry = new JSObject();
+            entry.put("unit", histogram.getUnit());
+            entry.put("count", histogram.getCount());
+            entry.put("mean", histogram.getMean());
+            entry.put("p50", histogram.getPercentile(50));
+            entry.put("p90", histogram.getPercentile(90));
+            entry.put("p99", histogram.getPercentile(99));
+            entry.put("max", histogram.getMax());
+            histograms.put(histogram.getName(), entry);
+        }
+        result.put("histograms", histograms);
+
+        if (call.getBoolean("reset", false)) {
+            metrics.reset();
+        }
+        call.resolve(result);
+    }
+
+    // Per-game session totals between from (inclusive) and to (exclusive), in epoch ms
+    @PluginMethod
+    public void getGameStats(PluginCall call) {
+        long from = call.getLong("from", 0L);
+        long to = call.getLong("to", Long.MAX_VALUE);
+        String packageName = call.getString("packageName");
+
+        JSArray games = new JSArray();
+        for (SessionLog.Stats stats : GameSessionRecorder.get(getContext()).query(from, to, packageName).values()) {
+            JSObject game = new JSObject();
+            game.put("packageName", stats.packageName);
+            game.put("sessions", stats.sessions);
+            game.put("foregroundMs", stats.foregroundMs);
+            game.put("samples", stats.samples);
+            game.put("avgCpu", stats.getAvgCpuPermille());
+            game.put("avgFps", stats.getAvgFpsX10());
+            game.put("maxBatteryTemp", stats.maxBatteryTempDeciC);
+            game.put("minMemAvailableMb", stats.minMemAvailableMb);
+            game.put("firstSeen", stats.firstSeen);
+            game.put("lastSeen", stats.lastSeen);
+            games.put(game);
+        }
+
+        JSObject result = new JSObject();
+        result.put("games", games);
+        call.resolve(result);
+    }
+
     private boolean hasOverlayPermission() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             return Settings.canDrawOverlays(getContext());
@@ -4,16 +4,24 @@ import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.Service;
-import android.app.usage.UsageEvents;
 import android.app.usage.UsageStatsManager;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
 import android.graphics.PixelFormat;
 import android.os.Build;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -25,31 +33,176 @@ import android.widget.TextView;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.TimeZone;
 
 public class EnergyXOverlayService extends Service {
 
     private static final String CHANNEL_ID = "energy_x_overlay";
-    private static final String PREFS_NAME = "energy_x_prefs";
-    private static final String KEY_PACKAGES = "monitored_packages";
-    private static final String KEY_DURATION = "overlay_duration";
-    private static final String KEY_MESSAGE = "overlay_message";
     private static final int NOTIFICATION_ID = 1001;
 
+    private static final String TAG = "EnergyXOverlay";
+    // Target time from foreground detection to the first overlay frame
+    private static final long OVERLAY_LATENCY_BUDGET_MS = 100;
+    private static final long METRICS_DUMP_INTERVAL_MS = 5 * 60 * 1000;
+    // Usage history the launch predictor is trained on at start
+    private static final long PREDICTOR_HISTORY_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final int PREFETCH_COUNT = 3;
+    private static final double PREFETCH_MIN_SCORE = 0.1;
+
+    private static final long HUD_REFRESH_MS = 1000;
+    private static final long HUD_MAX_REFRESH_MS = 4000;
+    private static final long HUD_BUDGET_WINDOW_MS = 10_000;
+    // Most the HUD may use of one core, drawing and sampling together (1 %)
+    private static final int HUD_CPU_BUDGET_PERMILLE = 10;
+
     private WindowManager windowManager;
+
+    // Overlay view, params and animations are built once and reused (main thread only)
     private View overlayView;
-    private Handler handler;
-    private Set<String> monitoredPackages;
-    private String lastForegroundApp = "";
-    private boolean isOverlayShowing = false;
+    private TextView appNameText;
+    private WindowManager.LayoutParams overlayParams;
+    private AlphaAnimation fadeIn;
+    private AlphaAnimation fadeOut;
+    private boolean isOverlayAttached = false;
+    private long overlayDetectedAt;
+    private volatile long lastOverlayLatencyMs = -1;
+
+    // Queues and times game launches; main thread only
+    private final OverlayScheduler overlayScheduler = new OverlayScheduler();
+    private final Runnable driveOverlayRunnable = this::driveOverlay;
+
+    private final Choreographer.FrameCallback firstFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            lastOverlayLatencyMs = SystemClock.uptimeMillis() - overlayDetectedAt;
+            metrics.firstFrameLatency.record(lastOverlayLatencyMs);
+            if (lastOverlayLatencyMs > OVERLAY_LATENCY_BUDGET_MS) {
+                Log.w(TAG, "Overlay took " + lastOverlayLatencyMs + " ms from detection to first frame");
+            }
+        }
+    };
+
+    // Detection (usage queries, package lookups) runs on its own thread; only
+    // WindowManager and view work is posted to the main thread.
+    private HandlerThread detectionThread;
+    private Handler detectionHandler;
+    private Handler mainHandler;
+
+    // Performance HUD, main thread only. Values arrive from the HUD's sampler
+    // thread through the volatile fields; the view is refreshed once per sample.
+    private HudView hudView;
+    private WindowManager.LayoutParams hudParams;
+    private PerformanceSampler hudSampler;
+    private boolean isHudAttached = false;
+    private long hudRefreshMs = HUD_REFRESH_MS;
+    private long hudBudgetWindowStart;
+    private long hudBudgetWindowCpuNanos;
+    private volatile int hudFpsX10 = -1;
+    private volatile int hudJankFrames = -1;
+    private volatile int hudCpuPermille = -1;
+    private volatile int hudBatteryTempDeciC = -1;
+    // Detection thread only
+    private boolean isHudWanted = false;
+
+    // Per-game settings; the refresh rate part is carried by an invisible 1x1
+    // window, since apps can only ask for a rate through one of their windows
+    private GameProfileEngine profileEngine;
+    private View refreshRateView;
+    private WindowManager.LayoutParams refreshRateParams;
+    private boolean isRefreshRateAttached = false;
+
+    private final Runnable hudUpdateRunnable = () -> {
+        if (isHudAttached) {
+            hudView.setValues(hudFpsX10, hudJankFrames, hudCpuPermille, hudBatteryTempDeciC);
+        }
+    };
+    private final Runnable hudBudgetRunnable = this::checkHudBudget;
+    private final Runnable showHudRunnable = this::showHud;
+    private final Runnable hideHudRunnable = this::hideHud;
+    private PerfSampleRing.Sample hudSample;
+    // Sampler thread
+    private final PerformanceSampler.Listener hudSampleListener = (ring, sequence) -> {
+        if (!ring.get(sequence, hudSample)) return;
+        hudFpsX10 = hudSample.fpsX10;
+        hudJankFrames = hudSample.jankFrames;
+        hudCpuPermille = hudSample.cpuPermille;
+        hudBatteryTempDeciC = hudSample.batteryTempDeciC;
+        mainHandler.post(hudUpdateRunnable);
+    };
+
+    // Config changes are pushed by the store; the snapshot is swapped atomically
+    private volatile OverlayConfigStore.Config config;
+    private final OverlayConfigStore.Listener configListener = config -> {
+        this.config = config;
+        detectionHandler.post(this::onConfigApplied);
+    };
+    // Labels and launch intents of games, so showing the overlay needs no PackageManager lookups
+    private LaunchWarmCache warmCache;
+    private final OverlayMetrics metrics = OverlayMetrics.get();
+
+    private final Runnable dumpMetricsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            metrics.dump(getFilesDir(), System.currentTimeMillis());
+            detectionHandler.postDelayed(this, METRICS_DUMP_INTERVAL_MS);
+        }
+    };
+    private volatile boolean isDestroyed = false;
+
+    private ForegroundDetector foregroundDetector;
+    private UsageEventsSource usageEventsSource;
+    // Detection thread only
+    private final LaunchPredictor launchPredictor = new LaunchPredictor(TimeZone.getDefault());
+    private boolean isPredictorTrained = false;
+    private final PollScheduler pollScheduler = new PollScheduler();
+    private GameSessionRecorder sessionRecorder;
+    private LaunchLatencyTracker launchTracker;
+    private String launcherPackage = "";
+    private boolean isPolling = false;
 
     private Runnable checkForegroundAppRunnable = new Runnable() {
         @Override
         public void run() {
             checkForegroundApp();
-            handler.postDelayed(this, 1000); // Check every second
+            long delay = pollScheduler.nextDelay(System.currentTimeMillis());
+            if (delay == PollScheduler.SUSPENDED) {
+                isPolling = false;
+            } else {
+                detectionHandler.postDelayed(this, delay);
+            }
+        }
+    };
+
+    private final BroadcastReceiver deviceStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                pollScheduler.setInteractive(false);
+                sessionRecorder.stop();
+                profileEngine.onForegroundChanged(null, false);
+                updateHudWanted(null);
+            } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                pollScheduler.setInteractive(true);
+                // The detector only reports changes, so resume a game session that was cut by screen-off
+                // Empty until the detector has seen a resume
+                String foreground = foregroundDetector.getForegroundPackage();
+                if (!foreground.isEmpty()) {
+                    boolean monitored = config.monitoredPackages.contains(foreground);
+                    sessionRecorder.onForegroundChanged(foreground, monitored);
+                    profileEngine.onForegroundChanged(foreground, monitored);
+                }
+                updateHudWanted(foreground);
+                // Unlocking usually means the launcher is about to be used
+                pollScheduler.onForegroundChanged(System.currentTimeMillis(), true);
+                prefetchLikelyLaunches();
+                startPolling();
+            } else if (PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED.equals(action)) {
+                PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+                pollScheduler.setDeviceIdle(powerManager != null && powerManager.isDeviceIdleMode());
+            }
         }
     };
 
@@ -57,23 +210,84 @@ public class EnergyXOverlayService extends Service {
     public void onCreate() {
         super.onCreate();
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
-        handler = new Handler(Looper.getMainLooper());
-        loadMonitoredPackages();
+        mainHandler = new Handler(Looper.getMainLooper());
+        detectionThread = new HandlerThread("EnergyXDetection", Process.THREAD_PRIORITY_BACKGROUND);
+        detectionThread.start();
+        detectionHandler = new Handler(detectionThread.getLooper());
+        OverlayConfigStore configStore = OverlayConfigStore.get(this);
+        configStore.addListener(configListener);
+        config = configStore.getConfig();
+        warmCache = LaunchWarmCache.get(this);
         createNotificationChannel();
+        prepareOverlay();
+
+        UsageStatsManager usageStatsManager = (UsageStatsManager) getSystemService(Context.USAGE_STATS_SERVICE);
+        usageEventsSource = new UsageEventsSource(usageStatsManager);
+        foregroundDetector = new ForegroundDetector(
+            usageEventsSource,
+            (packageName, eventTime, detectedAt) -> {
+                metrics.detectionLag.record(detectedAt - eventTime);
+                launchPredictor.onEvent(ForegroundEventSource.EVENT_FOREGROUND, packageName, null, eventTime);
+                launchTracker.onForeground(packageName, eventTime);
+                onForegroundChanged(packageName);
+            }
+        );
+        launcherPackage = resolveLauncherPackage();
+        sessionRecorder = GameSessionRecorder.get(this);
+        launchTracker = LaunchLatencyTracker.get(this);
+        profileEngine = new GameProfileEngine(this, hz -> mainHandler.post(() -> setPreferredRefreshRate(hz)));
+
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null) {
+            pollScheduler.setInteractive(powerManager.isInteractive());
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                pollScheduler.setDeviceIdle(powerManager.isDeviceIdleMode());
+            }
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+        }
+        // Deliver on the detection thread so the scheduler is only touched there
+        registerReceiver(deviceStateReceiver, filter, null, detectionHandler);
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         startForeground(NOTIFICATION_ID, createNotification());
-        handler.post(checkForegroundAppRunnable);
+        if (config.autoDetectGames) {
+            GameClassifier.get(this).refresh(null);
+        }
+        detectionHandler.post(() -> {
+            warmMonitoredGames();
+            trainPredictor();
+            startPolling();
+            detectionHandler.removeCallbacks(dumpMetricsRunnable);
+            detectionHandler.postDelayed(dumpMetricsRunnable, METRICS_DUMP_INTERVAL_MS);
+        });
         return START_STICKY;
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        handler.removeCallbacks(checkForegroundAppRunnable);
-        removeOverlay();
+        isDestroyed = true;
+        sessionRecorder.stop();
+        profileEngine.quit();
+        OverlayConfigStore configStore = OverlayConfigStore.get(this);
+        configStore.removeListener(configListener);
+        configStore.flush();
+        unregisterReceiver(deviceStateReceiver);
+        detectionHandler.removeCallbacksAndMessages(null);
+        detectionHandler.post(() -> metrics.dump(getFilesDir(), System.currentTimeMillis()));
+        detectionThread.quitSafely();
+        mainHandler.removeCallbacksAndMessages(null);
+        removeOverlayImmediately();
+        hideHud();
+        setPreferredRefreshRate(0);
     }
 
     @Nullable
@@ -82,133 +296,356 @@ public class EnergyXOverlayService extends Service {
         return null;
     }
 
+    private void startPolling() {
+        if (isPolling || !pollScheduler.isInteractive()) return;
+        isPolling = true;
+        detectionHandler.post(checkForegroundAppRunnable);
+    }
+
     private void checkForegroundApp() {
-        UsageStatsManager usageStatsManager = (UsageStatsManager) getSystemService(Context.USAGE_STATS_SERVICE);
-        if (usageStatsManager == null) return;
-
-        long currentTime = System.currentTimeMillis();
-        UsageEvents usageEvents = usageStatsManager.queryEvents(currentTime - 5000, currentTime);
-        
-        String foregroundApp = "";
-        UsageEvents.Event event = new UsageEvents.Event();
-        
-        while (usageEvents.hasNextEvent()) {
-            usageEvents.getNextEvent(event);
-            if (event.getEventType() == UsageEvents.Event.MOVE_TO_FOREGROUND) {
-                foregroundApp = event.getPackageName();
-            }
+        long start = System.nanoTime();
+        int eventsScanned = foregroundDetector.poll(System.currentTimeMillis());
+        metrics.pollDuration.record((System.nanoTime() - start) / 1000);
+        metrics.eventsPerTick.record(eventsScanned);
+    }
+
+    private void onForegroundChanged(String foregroundApp) {
+        pollScheduler.onForegroundChanged(System.currentTimeMillis(), foregroundApp.equals(launcherPackage));
+
+        boolean monitored = config.monitoredPackages.contains(foregroundApp);
+        sessionRecorder.onForegroundChanged(foregroundApp, monitored);
+        profileEngine.onForegroundChanged(foregroundApp, monitored);
+        if (monitored) {
+            submitOverlay(foregroundApp);
         }
+        updateHudWanted(foregroundApp);
+        prefetchLikelyLaunches();
+    }
 
-        if (!foregroundApp.isEmpty() && !foregroundApp.equals(lastForegroundApp)) {
-            lastForegroundApp = foregroundApp;
-            
-            if (monitoredPackages.contains(foregroundApp) && !isOverlayShowing) {
-                showOverlay(foregroundApp);
-            }
+    // Replays recent usage history once, so predictions work from the first switch
+    private void trainPredictor() {
+        if (isPredictorTrained) return;
+        isPredictorTrained = true;
+        long now = System.currentTimeMillis();
+        launchPredictor.train(usageEventsSource, now - PREDICTOR_HISTORY_MS, now);
+    }
+
+    // Warms icons (and labels and intents, if evicted) of the games most likely
+    // to be opened next. Android offers no legitimate way to start another
+    // app's process early, so this only covers what this app itself looks up.
+    private void prefetchLikelyLaunches() {
+        List<LaunchPredictor.Prediction> predictions = launchPredictor.predict(System.currentTimeMillis(),
+            config.monitoredPackages, PREFETCH_COUNT, PREFETCH_MIN_SCORE);
+        if (predictions.isEmpty()) return;
+
+        List<String> packageNames = new ArrayList<>(predictions.size());
+        for (LaunchPredictor.Prediction prediction : predictions) {
+            packageNames.add(prediction.packageName);
         }
+        warmCache.warm(packageNames, true);
+    }
+
+    private String resolveLauncherPackage() {
+        Intent homeIntent = new Intent(Intent.ACTION_MAIN);
+        homeIntent.addCategory(Intent.CATEGORY_HOME);
+        ResolveInfo resolveInfo = getPackageManager().resolveActivity(homeIntent, PackageManager.MATCH_DEFAULT_ONLY);
+        if (resolveInfo == null || resolveInfo.activityInfo == null) return "";
+        return resolveInfo.activityInfo.packageName;
     }
 
-    private void showOverlay(String packageName) {
-        if (isOverlayShowing) return;
-        isOverlayShowing = true;
+    private void submitOverlay(String packageName) {
+        long detectedAt = SystemClock.uptimeMillis();
+
+        // Package lookups stay on the detection thread
+        OverlayConfigStore.Config config = this.config;
+        OverlayScheduler.Request request = new OverlayScheduler.Request(
+            packageName, config.formatMessage(getAppLabel(packageName)), detectedAt);
+
+        mainHandler.post(() -> {
+            if (isDestroyed) return;
+            overlayScheduler.setMode(config.queueMode);
+            overlayScheduler.setDurationMs(config.durationMs);
+            overlayScheduler.setCooldownMs(config.cooldownMs);
+            overlayScheduler.submit(request, SystemClock.uptimeMillis());
+            driveOverlay();
+        });
+    }
 
-        handler.post(() -> {
-            try {
-                // Inflate overlay layout
-                LayoutInflater inflater = LayoutInflater.from(this);
-                overlayView = inflater.inflate(R.layout.energy_x_overlay, null);
-
-                // Set app name
-                TextView appNameText = overlayView.findViewById(R.id.appNameText);
-                String appName = getAppName(packageName);
-                appNameText.setText(appName + " Boosted");
-
-                // Window params
-                int layoutFlag;
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    layoutFlag = WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY;
-                } else {
-                    layoutFlag = WindowManager.LayoutParams.TYPE_PHONE;
-                }
+    // Runs every action the scheduler has due, then waits for its next deadline
+    private void driveOverlay() {
+        if (isDestroyed) return;
+        long now = SystemClock.uptimeMillis();
+
+        int action;
+        while ((action = overlayScheduler.nextAction(now)) != OverlayScheduler.ACTION_NONE) {
+            if (action == OverlayScheduler.ACTION_SHOW) {
+                displayOverlay(overlayScheduler.getCurrent());
+            } else if (isOverlayAttached) {
+                // Fade out animation; its end listener reports back to the scheduler
+                overlayView.startAnimation(fadeOut);
+            } else {
+                overlayScheduler.onHidden();
+            }
+        }
 
-                WindowManager.LayoutParams params = new WindowManager.LayoutParams(
-                    WindowManager.LayoutParams.MATCH_PARENT,
-                    WindowManager.LayoutParams.WRAP_CONTENT,
-                    layoutFlag,
-                    WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
-                    WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
-                    WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
-                    PixelFormat.TRANSLUCENT
-                );
-                params.gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
-                params.y = 100; // Margin from bottom
+        mainHandler.removeCallbacks(driveOverlayRunnable);
+        long deadline = overlayScheduler.nextDeadline();
+        if (deadline != OverlayScheduler.NO_DEADLINE) {
+            mainHandler.postAtTime(driveOverlayRunnable, deadline);
+        }
+    }
+
+    private void displayOverlay(OverlayScheduler.Request request) {
+        try {
+            overlayDetectedAt = request.detectedAt;
+            appNameText.setText(request.text);
 
-                windowManager.addView(overlayView, params);
+            if (!isOverlayAttached) {
+                long addViewStart = System.nanoTime();
+                windowManager.addView(overlayView, overlayParams);
+                metrics.addViewDuration.record((System.nanoTime() - addViewStart) / 1000);
+                isOverlayAttached = true;
 
                 // Fade in animation
-                AlphaAnimation fadeIn = new AlphaAnimation(0f, 1f);
-                fadeIn.setDuration(300);
                 overlayView.startAnimation(fadeIn);
+            } else if (overlayView.getAnimation() == fadeOut) {
+                // Cancel the pending fade-out; the scheduler already counts it as showing
+                overlayView.clearAnimation();
+                overlayView.startAnimation(fadeIn);
+            }
+            metrics.recordOverlayDisplayed();
+            // A show replacing one whose frame hasn't come yet records once, for itself
+            Choreographer choreographer = Choreographer.getInstance();
+            choreographer.removeFrameCallback(firstFrameCallback);
+            choreographer.postFrameCallback(firstFrameCallback);
 
-                // Get duration from prefs
-                SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-                int duration = prefs.getInt(KEY_DURATION, 2000);
+        } catch (Exception e) {
+            e.printStackTrace();
+            overlayScheduler.reset();
+            detachOverlay();
+        }
+    }
+
+    // Detection thread. The HUD is shown while a monitored game is in front
+    // and the screen is on; null means nothing is in front.
+    private void updateHudWanted(String foregroundApp) {
+        boolean wanted = foregroundApp != null && config.hudEnabled
+            && config.monitoredPackages.contains(foregroundApp);
+        if (wanted == isHudWanted) return;
+        isHudWanted = wanted;
+        mainHandler.post(wanted ? showHudRunnable : hideHudRunnable);
+    }
+
+    private void showHud() {
+        if (isDestroyed || isHudAttached) return;
+        if (hudView == null) {
+            prepareHud();
+        }
+        try {
+            windowManager.addView(hudView, hudParams);
+            isHudAttached = true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+
+        hudSampler.start(hudRefreshMs, true, hudSampleListener);
+        startHudBudgetWindow();
+        mainHandler.postDelayed(hudBudgetRunnable, HUD_BUDGET_WINDOW_MS);
+    }
+
+    private void hideHud() {
+        if (!isHudAttached) return;
+        hudSampler.stop();
+        mainHandler.removeCallbacks(hudBudgetRunnable);
+        mainHandler.removeCallbacks(hudUpdateRunnable);
+        try {
+            windowManager.removeViewImmediate(hudView);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        isHudAttached = false;
+    }
 
-                // Remove after duration
-                handler.postDelayed(() -> {
-                    removeOverlay();
-                }, duration);
+    private void startHudBudgetWindow() {
+        hudBudgetWindowStart = SystemClock.uptimeMillis();
+        hudBudgetWindowCpuNanos = hudView.getCpuTimeNanos() + hudSampler.getCpuTimeNanos();
+    }
+
+    // Records the HUD's share of one core over the last window; over budget,
+    // the refresh interval is doubled (up to HUD_MAX_REFRESH_MS)
+    private void checkHudBudget() {
+        if (!isHudAttached) return;
+        long elapsedMs = SystemClock.uptimeMillis() - hudBudgetWindowStart;
+        long cpuNanos = hudView.getCpuTimeNanos() + hudSampler.getCpuTimeNanos() - hudBudgetWindowCpuNanos;
+        if (elapsedMs > 0) {
+            long permille = cpuNanos / (elapsedMs * 1000);
+            metrics.hudCpu.record(permille);
+            if (permille > HUD_CPU_BUDGET_PERMILLE && hudRefreshMs < HUD_MAX_REFRESH_MS) {
+                hudRefreshMs = Math.min(HUD_MAX_REFRESH_MS, hudRefreshMs * 2);
+                Log.w(TAG, "HUD used " + permille + "\u2030 of a core; refreshing every " + hudRefreshMs + " ms");
+                hudSampler.start(hudRefreshMs, true, hudSampleListener);
+            }
+        }
+        startHudBudgetWindow();
+        mainHandler.postDelayed(hudBudgetRunnable, HUD_BUDGET_WINDOW_MS);
+    }
+
+    private void prepareHud() {
+        hudView = new HudView(this);
+        hudSampler = new PerformanceSampler(this, 4);
+        hudSample = new PerfSampleRing.Sample(hudSampler.getRing().getCores());
 
+        int layoutFlag;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            layoutFlag = WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY;
+        } else {
+            layoutFlag = WindowManager.LayoutParams.TYPE_PHONE;
+        }
+        hudParams = new WindowManager.LayoutParams(
+            WindowManager.LayoutParams.WRAP_CONTENT,
+            WindowManager.LayoutParams.WRAP_CONTENT,
+            layoutFlag,
+            WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+            WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
+            WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+            PixelFormat.TRANSLUCENT
+        );
+        hudParams.gravity = Gravity.TOP | Gravity.START;
+        hudParams.x = 24;
+        hudParams.y = 24;
+    }
+
+    // Main thread; 0 removes the request
+    private void setPreferredRefreshRate(float hz) {
+        if (hz <= 0) {
+            if (!isRefreshRateAttached) return;
+            try {
+                windowManager.removeViewImmediate(refreshRateView);
             } catch (Exception e) {
                 e.printStackTrace();
-                isOverlayShowing = false;
             }
-        });
+            isRefreshRateAttached = false;
+            return;
+        }
+        if (isDestroyed) return;
+
+        if (refreshRateView == null) {
+            refreshRateView = new View(this);
+            int layoutFlag;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                layoutFlag = WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY;
+            } else {
+                layoutFlag = WindowManager.LayoutParams.TYPE_PHONE;
+            }
+            refreshRateParams = new WindowManager.LayoutParams(1, 1, layoutFlag,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
+                WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                PixelFormat.TRANSLUCENT
+            );
+            refreshRateParams.gravity = Gravity.TOP | Gravity.START;
+        }
+        refreshRateParams.preferredRefreshRate = hz;
+        try {
+            if (isRefreshRateAttached) {
+                windowManager.updateViewLayout(refreshRateView, refreshRateParams);
+            } else {
+                windowManager.addView(refreshRateView, refreshRateParams);
+                isRefreshRateAttached = true;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 
-    private void removeOverlay() {
+    private void removeOverlayImmediately() {
+        overlayScheduler.reset();
         if (overlayView != null) {
-            // Fade out animation
-            AlphaAnimation fadeOut = new AlphaAnimation(1f, 0f);
-            fadeOut.setDuration(300);
-            fadeOut.setAnimationListener(new Animation.AnimationListener() {
-                @Override
-                public void onAnimationStart(Animation animation) {}
-
-                @Override
-                public void onAnimationEnd(Animation animation) {
-                    try {
-                        windowManager.removeView(overlayView);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    overlayView = null;
-                    isOverlayShowing = false;
-                }
+            overlayView.clearAnimation();
+        }
+        detachOverlay();
+    }
 
-                @Override
-                public void onAnimationRepeat(Animation animation) {}
-            });
-            overlayView.startAnimation(fadeOut);
+    private void detachOverlay() {
+        if (isOverlayAttached) {
+            try {
+                windowManager.removeViewImmediate(overlayView);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            isOverlayAttached = false;
         }
     }
 
-    private String getAppName(String packageName) {
-        try {
-            return getPackageManager()
-                .getApplicationLabel(getPackageManager().getApplicationInfo(packageName, 0))
-                .toString();
-        } catch (Exception e) {
-            // Extract name from package
-            String[] parts = packageName.split("\\.");
-            String name = parts[parts.length - 1];
-            return name.substring(0, 1).toUpperCase() + name.substring(1);
+    // Inflates the overlay and builds its window params and animations once, so
+    // showing it on a game launch only sets text and attaches the view
+    private void prepareOverlay() {
+        long inflateStart = System.nanoTime();
+        overlayView = LayoutInflater.from(this).inflate(R.layout.energy_x_overlay, null);
+        metrics.inflateDuration.record((System.nanoTime() - inflateStart) / 1000);
+        appNameText = overlayView.findViewById(R.id.appNameText);
+
+        // Window params
+        int layoutFlag;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            layoutFlag = WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY;
+        } else {
+            layoutFlag = WindowManager.LayoutParams.TYPE_PHONE;
         }
+
+        overlayParams = new WindowManager.LayoutParams(
+            WindowManager.LayoutParams.MATCH_PARENT,
+            WindowManager.LayoutParams.WRAP_CONTENT,
+            layoutFlag,
+            WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+            WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
+            WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+            PixelFormat.TRANSLUCENT
+        );
+        overlayParams.gravity = Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL;
+        overlayParams.y = 100; // Margin from bottom
+
+        fadeIn = new AlphaAnimation(0f, 1f);
+        fadeIn.setDuration(300);
+
+        fadeOut = new AlphaAnimation(1f, 0f);
+        fadeOut.setDuration(300);
+        fadeOut.setAnimationListener(new Animation.AnimationListener() {
+            @Override
+            public void onAnimationStart(Animation animation) {}
+
+            @Override
+            public void onAnimationEnd(Animation animation) {
+                // Also called when a new game cancels the fade; the overlay stays then
+                if (overlayScheduler.isHiding()) {
+                    detachOverlay();
+                    overlayScheduler.onHidden();
+                    driveOverlay();
+                }
+            }
+
+            @Override
+            public void onAnimationRepeat(Animation animation) {}
+        });
+    }
+
+    private void onConfigApplied() {
+        warmMonitoredGames();
+        updateHudWanted(foregroundDetector.getForegroundPackage());
     }
 
-    private void loadMonitoredPackages() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        monitoredPackages = prefs.getStringSet(KEY_PACKAGES, new HashSet<>());
+    private void warmMonitoredGames() {
+        warmCache.warm(config.monitoredPackages, false);
+    }
+
+    private String getAppLabel(String packageName) {
+        LaunchWarmCache.Entry entry = warmCache.get(packageName);
+        metrics.recordWarmLookup(entry != null);
+        if (entry == null) {
+            entry = warmCache.getOrResolve(packageName);
+        }
+        return entry.label;
     }
 
     private void createNotificationChannel() {
@@ -235,18 +672,4 @@ public class EnergyXOverlayService extends Service {
             .setPriority(NotificationCompat.PRIORITY_LOW)
             .build();
     }
-
-    // Static methods to set configuration
-    public static void setMonitoredPackages(Context context, List<String> packages) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        prefs.edit().putStringSet(KEY_PACKAGES, new HashSet<>(packages)).apply();
-    }
-
-    public static void setOverlayConfig(Context context, int duration, String message, String appName) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        prefs.edit()
-            .putInt(KEY_DURATION, duration)
-            .putString(KEY_MESSAGE, message)
-            .apply();
-    }
 }
@@ -0,0 +1,173 @@
+package app.lovable.energyx;
+
+import java.util.Arrays;
+
+// Tracks the foreground package from a ForegroundEventSource. Each poll only asks
+// the source for events since the last one already seen, instead of
+// re-scanning a sliding window. The last package resumed in a poll is reported,
+// unless that same activity was paused again later in the same poll. Pauses of
+// other activities of the package do not count: a splash screen handing over
+// to the game's main activity is paused after the main one resumed.
+//
+// Usage events can become visible after a poll has already read past their
+// timestamp: a second event in the same millisecond, or one the system
+// records late. Each poll therefore re-reads the last LATE_EVENT_MS before the
+// high-water mark and skips the events it has already handled there.
+public class ForegroundDetector implements ForegroundEventSource.EventSink {
+
+    public interface Listener {
+        void onForegroundChanged(String packageName, long eventTime, long detectedAt);
+    }
+
+    // How far back the first poll looks when there is no high-water mark yet
+    static final long INITIAL_LOOKBACK_MS = 5000;
+    // How far before the high-water mark each poll looks again for late events
+    static final long LATE_EVENT_MS = 500;
+
+    private final ForegroundEventSource source;
+    private final Listener listener;
+
+    private long highWaterMark = -1;
+    private String foregroundPackage = "";
+    private long foregroundEventTime = -1;
+    private String pendingPackage;
+    private String pendingClass;
+    private long pendingEventTime;
+    private int eventsScanned;
+
+    // Events handled at or after the start of the next poll's window, oldest
+    // first; those from before this poll are checked for repeats
+    private long[] seenTimes = new long[16];
+    private int[] seenTypes = new int[16];
+    private String[] seenPackages = new String[16];
+    private String[] seenClasses = new String[16];
+    private int seenCount;
+    private int seenBefore;
+    private int seenCursor;
+    private long pollHighWaterMark;
+
+    public ForegroundDetector(ForegroundEventSource source, Listener listener) {
+        this.source = source;
+        this.listener = listener;
+    }
+
+    // Returns the number of events scanned by this poll
+    public int poll(long now) {
+        long beginTime = highWaterMark < 0 ? now - INITIAL_LOOKBACK_MS : highWaterMark - LATE_EVENT_MS;
+        if (beginTime > now) return 0;
+
+        forgetSeenBefore(beginTime);
+        seenBefore = seenCount;
+        seenCursor = 0;
+        pollHighWaterMark = highWaterMark;
+        eventsScanned = 0;
+        pendingPackage = null;
+        source.readEvents(beginTime, now + 1, this);
+
+        if (pendingPackage != null && !pendingPackage.equals(foregroundPackage)) {
+            foregroundPackage = pendingPackage;
+            foregroundEventTime = pendingEventTime;
+            listener.onForegroundChanged(pendingPackage, pendingEventTime, now);
+        }
+        return eventsScanned;
+    }
+
+    @Override
+    public void onEvent(int type, String packageName, String className, long timestamp) {
+        eventsScanned++;
+        if (timestamp <= pollHighWaterMark && wasSeen(type, packageName, className, timestamp)) return;
+        remember(type, packageName, className, timestamp);
+        if (timestamp > highWaterMark) {
+            highWaterMark = timestamp;
+        }
+        if (packageName == null) return;
+        if (type == ForegroundEventSource.EVENT_FOREGROUND) {
+            // A late resume from before the switch already reported is stale
+            if (timestamp < foregroundEventTime) return;
+            pendingPackage = packageName;
+            pendingClass = className;
+            pendingEventTime = timestamp;
+        } else if (type == ForegroundEventSource.EVENT_BACKGROUND && packageName.equals(pendingPackage)
+                && same(className, pendingClass)) {
+            // Resumed and paused again before this poll, e.g. a trampoline in
+            // another package; the next resume will be reported instead
+            pendingPackage = null;
+        }
+    }
+
+    public String getForegroundPackage() {
+        return foregroundPackage;
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void reset() {
+        highWaterMark = -1;
+        foregroundPackage = "";
+        foregroundEventTime = -1;
+        forgetSeenBefore(Long.MAX_VALUE);
+    }
+
+    // Events arrive oldest first, so one cursor walks the remembered ones
+    private boolean wasSeen(int type, String packageName, String className, long timestamp) {
+        while (seenCursor < seenBefore && seenTimes[seenCursor] < timestamp) {
+            seenCursor++;
+        }
+        for (int i = seenCursor; i < seenBefore && seenTimes[i] == timestamp; i++) {
+            if (seenTypes[i] == type && same(seenPackages[i], packageName) && same(seenClasses[i], className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remember(int type, String packageName, String className, long timestamp) {
+        if (seenCount == seenTimes.length) {
+            int capacity = seenCount * 2;
+            seenTimes = Arrays.copyOf(seenTimes, capacity);
+            seenTypes = Arrays.copyOf(seenTypes, capacity);
+            seenPackages = Arrays.copyOf(seenPackages, capacity);
+            seenClasses = Arrays.copyOf(seenClasses, capacity);
+        }
+        // Late events go before the newer ones already remembered
+        int pos = seenCount;
+        while (pos > 0 && seenTimes[pos - 1] > timestamp) {
+            pos--;
+        }
+        if (pos < seenCount) {
+            int moved = seenCount - pos;
+            System.arraycopy(seenTimes, pos, seenTimes, pos + 1, moved);
+            System.arraycopy(seenTypes, pos, seenTypes, pos + 1, moved);
+            System.arraycopy(seenPackages, pos, seenPackages, pos + 1, moved);
+            System.arraycopy(seenClasses, pos, seenClasses, pos + 1, moved);
+            if (pos < seenBefore) seenBefore++;
+        }
+        seenTimes[pos] = timestamp;
+        seenTypes[pos] = type;
+        seenPackages[pos] = packageName;
+        seenClasses[pos] = className;
+        seenCount++;
+    }
+
+    private void forgetSeenBefore(long time) {
+        int keepFrom = 0;
+        while (keepFrom < seenCount && seenTimes[keepFrom] < time) {
+            keepFrom++;
+        }
+        if (keepFrom == 0) return;
+        int kept = seenCount - keepFrom;
+        System.arraycopy(seenTimes, keepFrom, seenTimes, 0, kept);
+        System.arraycopy(seenTypes, keepFrom, seenTypes, 0, kept);
+        System.arraycopy(seenPackages, keepFrom, seenPackages, 0, kept);
+        System.arraycopy(seenClasses, keepFrom, seenClasses, 0, kept);
+        Arrays.fill(seenPackages, kept, seenCount, null);
+        Arrays.fill(seenClasses, kept, seenCount, null);
+        seenCount = kept;
+    }
+
+    private static boolean same(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,20 @@
+package app.lovable.energyx;
+
+// Source of app transition events for ForegroundDetector. Kept free of Android
+// types so the detector can be driven from a plain JVM with TraceEventSource.
+public interface ForegroundEventSource {
+
+    int EVENT_FOREGROUND = 1;
+    int EVENT_BACKGROUND = 2;
+    // Anything else (configuration changes, standby buckets, ...). Sources drop
+    // these; traces use them to model streams that cannot be filtered at query time.
+    int EVENT_OTHER = 0;
+
+    // Delivers every event with beginTime <= timestamp < endTime, oldest first
+    void readEvents(long beginTime, long endTime, EventSink sink);
+
+    interface EventSink {
+        // className is the activity the event is for, or null when unknown
+        void onEvent(int type, String packageName, String className, long timestamp);
+    }
+}
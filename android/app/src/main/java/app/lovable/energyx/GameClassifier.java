@@ -0,0 +1,292 @@
+package app.lovable.energyx;
+
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Finds the installed games for automatic monitoring. Each launchable app is
+// scored from these signals, strongest first:
+//   - the category it declares (android:appCategory="game" or FLAG_IS_GAME)
+//   - the bundled KnownGamesTable, by package or by game-only publisher
+//   - a "game" word in its package name
+//   - long daily sessions over the last two weeks
+// Apps scoring GAME_THRESHOLD or more are games. The last two signals only
+// support the others and never decide alone, and system apps are judged on
+// the first two only. A full pass is a table lookup per app plus one usage
+// query, cheap enough for every service start; a package change only
+// reclassifies that package. Results go to OverlayConfigStore while
+// automatic detection is on.
+public final class GameClassifier {
+
+    public static final int REASON_CATEGORY = 1;
+    public static final int REASON_KNOWN_PACKAGE = 1 << 1;
+    public static final int REASON_KNOWN_PUBLISHER = 1 << 2;
+    public static final int REASON_NAME = 1 << 3;
+    public static final int REASON_USAGE = 1 << 4;
+
+    static final double GAME_THRESHOLD = 0.5;
+    static final double SCORE_CATEGORY = 1.0;
+    static final double SCORE_KNOWN_PACKAGE = 1.0;
+    static final double SCORE_KNOWN_PUBLISHER = 0.6;
+    static final double SCORE_NAME = 0.3;
+    static final double SCORE_USAGE = 0.3;
+
+    static final long USAGE_WINDOW_MS = 14L * 24 * 60 * 60 * 1000;
+    static final int USAGE_MIN_DAYS = 3;
+    static final long USAGE_MIN_DAILY_MS = 20 * 60 * 1000;
+
+    private static final String TABLE_ASSET = "known_games.bin";
+
+    public static final class Result {
+        public final String packageName;
+        public final String label;
+        public final double score;
+        // REASON_* bits of the signals that matched
+        public final int reasons;
+
+        Result(String packageName, String label, double score, int reasons) {
+            this.packageName = packageName;
+            this.label = label;
+            this.score = score;
+            this.reasons = reasons;
+        }
+
+        public boolean isGame() {
+            return score >= GAME_THRESHOLD;
+        }
+    }
+
+    private static GameClassifier instance;
+
+    private final Context context;
+    private final Handler handler;
+    private final InstalledAppIndex appIndex;
+    private final OverlayConfigStore configStore;
+    // Never fans out: with a parallelism of one, runAll works on the calling thread
+    private final AppWorkPool workPool = new AppWorkPool(1);
+
+    // Only touched on the handler thread
+    private KnownGamesTable table;
+    private Map<String, long[]> usage = Collections.emptyMap();
+
+    // Guarded by this
+    private final Map<String, Result> results = new HashMap<>();
+    private long lastRunMs = -1;
+
+    private GameClassifier(Context context) {
+        this.context = context;
+        HandlerThread thread = new HandlerThread("EnergyXGames", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        appIndex = InstalledAppIndex.get(context);
+        configStore = OverlayConfigStore.get(context);
+        appIndex.addListener(packageName -> handler.post(() -> reclassify(packageName)));
+    }
+
+    public static synchronized GameClassifier get(Context context) {
+        if (instance == null) {
+            instance = new GameClassifier(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Classifies every launchable app in the background; onDone (may be null)
+    // runs on the classifier's thread afterwards
+    public void refresh(Runnable onDone) {
+        handler.post(() -> {
+            classifyAll();
+            if (onDone != null) {
+                onDone.run();
+            }
+        });
+    }
+
+    // Best score first, so games come before the rest
+    public synchronized List<Result> getResults() {
+        List<Result> all = new ArrayList<>(results.values());
+        Collections.sort(all, (a, b) -> Double.compare(b.score, a.score));
+        return all;
+    }
+
+    // Duration of the last full pass, or -1 before the first one
+    public synchronized long getLastRunMs() {
+        return lastRunMs;
+    }
+
+    // Handler thread
+    private void classifyAll() {
+        long start = SystemClock.elapsedRealtime();
+        try {
+            appIndex.ensureLoaded(workPool, 1);
+        } catch (InterruptedException e) {
+            return;
+        }
+        if (table == null) {
+            table = loadTable();
+        }
+        usage = queryUsage();
+
+        Map<String, Result> classified = new HashMap<>();
+        for (InstalledApp entry : appIndex.snapshot(true)) {
+            classified.put(entry.packageName, classify(entry));
+        }
+        synchronized (this) {
+            results.clear();
+            results.putAll(classified);
+            lastRunMs = SystemClock.elapsedRealtime() - start;
+        }
+        publish();
+    }
+
+    // Handler thread
+    private void reclassify(String packageName) {
+        synchronized (this) {
+            // Nothing to update before the first full pass
+            if (lastRunMs < 0) return;
+        }
+
+        InstalledApp entry = appIndex.getEntry(packageName);
+        Result result = entry != null ? classify(entry) : null;
+        synchronized (this) {
+            Result old = result != null ? results.put(packageName, result) : results.remove(packageName);
+            boolean wasGame = old != null && old.isGame();
+            boolean isGame = result != null && result.isGame();
+            if (wasGame == isGame) return;
+        }
+        publish();
+    }
+
+    private Result classify(InstalledApp entry) {
+        double score = 0;
+        int reasons = 0;
+        if (entry.isGame()) {
+            score += SCORE_CATEGORY;
+            reasons |= REASON_CATEGORY;
+        }
+        int known = table.match(entry.packageName);
+        if (known == KnownGamesTable.MATCH_PACKAGE) {
+            score += SCORE_KNOWN_PACKAGE;
+            reasons |= REASON_KNOWN_PACKAGE;
+        } else if (known == KnownGamesTable.MATCH_PUBLISHER) {
+            score += SCORE_KNOWN_PUBLISHER;
+            reasons |= REASON_KNOWN_PUBLISHER;
+        }
+
+        // Preinstalled apps are long-running and oddly named too often to guess from
+        if (!entry.isSystemApp()) {
+            if (hasGameWord(entry.packageName)) {
+                score += SCORE_NAME;
+                reasons |= REASON_NAME;
+            }
+            long[] used = usage.get(entry.packageName);
+            if (used != null && used[1] >= USAGE_MIN_DAYS && used[0] / used[1] >= USAGE_MIN_DAILY_MS) {
+                score += SCORE_USAGE;
+                reasons |= REASON_USAGE;
+            }
+        }
+        return new Result(entry.packageName, entry.label, score, reasons);
+    }
+
+    private void publish() {
+        if (!configStore.getConfig().autoDetectGames) return;
+        List<String> games = new ArrayList<>();
+        synchronized (this) {
+            for (Result result : results.values()) {
+                if (result.isGame()) games.add(result.packageName);
+            }
+        }
+        configStore.setDetectedPackages(games);
+    }
+
+    // A package name segment that is or ends in "game"/"games", e.g.
+    // com.example.games.puzzle or com.acmegames.puzzle
+    static boolean hasGameWord(String packageName) {
+        int segmentEnd = packageName.length();
+        for (int i = packageName.length() - 1; i >= -1; i--) {
+            if (i < 0 || packageName.charAt(i) == '.' || packageName.charAt(i) == '_') {
+                if (endsWithIgnoreCase(packageName, segmentEnd, "game")
+                        || endsWithIgnoreCase(packageName, segmentEnd, "games")) {
+                    return true;
+                }
+                segmentEnd = i;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithIgnoreCase(String text, int end, String suffix) {
+        int start = end - suffix.length();
+        return start >= 0 && text.regionMatches(true, start, suffix, 0, suffix.length());
+    }
+
+    // Package -> {total foreground time, days used} over USAGE_WINDOW_MS;
+    // empty without usage access
+    private Map<String, long[]> queryUsage() {
+        UsageStatsManager usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        Map<String, long[]> totals = new HashMap<>();
+        if (usageStatsManager == null) return totals;
+
+        long now = System.currentTimeMillis();
+        List<UsageStats> stats = usageStatsManager.queryUsageStats(UsageStatsManager.INTERVAL_DAILY,
+            now - USAGE_WINDOW_MS, now);
+        if (stats == null) return totals;
+        for (UsageStats day : stats) {
+            if (day.getTotalTimeInForeground() <= 0) continue;
+            long[] total = totals.get(day.getPackageName());
+            if (total == null) {
+                total = new long[2];
+                totals.put(day.getPackageName(), total);
+            }
+            total[0] += day.getTotalTimeInForeground();
+            total[1]++;
+        }
+        return totals;
+    }
+
+    private KnownGamesTable loadTable() {
+        try (AssetFileDescriptor descriptor = context.getAssets().openFd(TABLE_ASSET);
+             FileInputStream in = descriptor.createInputStream()) {
+            // Maps the asset straight out of the APK; the mapping outlives the channel
+            return KnownGamesTable.wrap(in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                descriptor.getStartOffset(), descriptor.getLength()));
+        } catch (FileNotFoundException e) {
+            // Stored compressed, so it cannot be mapped; read it instead
+            return readTable();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return KnownGamesTable.EMPTY;
+        }
+    }
+
+    private KnownGamesTable readTable() {
+        try (InputStream in = context.getAssets().open(TABLE_ASSET)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, read);
+            }
+            return KnownGamesTable.wrap(ByteBuffer.wrap(out.toByteArray()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return KnownGamesTable.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package app.lovable.energyx;
+
+import android.provider.Settings;
+
+// What to change while one game is in front. Fields set to KEEP are left
+// alone. The system settings involved are compiled once, at construction,
+// into the list of writes GameProfileEngine performs, so applying a profile
+// is only those writes (fewer, when a setting already has its value).
+public final class GameProfile {
+
+    public static final int KEEP = -1;
+
+    public static final int TRIM_NONE = 0;
+    // Trim background apps each time the game comes to the front
+    public static final int TRIM_ON_ENTER = 1;
+
+    public final int screenTimeoutMs;
+    // 0..255; switches adaptive brightness off while applied
+    public final int brightness;
+    // Preferred display refresh rate in Hz, 0 to keep
+    public final float refreshRate;
+    public final int trimPolicy;
+
+    // Settings.System names and values, written in this order and restored in reverse
+    final String[] settingNames;
+    final int[] settingValues;
+
+    public GameProfile(int screenTimeoutMs, int brightness, float refreshRate, int trimPolicy) {
+        this.screenTimeoutMs = screenTimeoutMs >= 0 ? screenTimeoutMs : KEEP;
+        this.brightness = brightness >= 0 ? Math.min(brightness, 255) : KEEP;
+        this.refreshRate = Math.max(0, refreshRate);
+        this.trimPolicy = trimPolicy == TRIM_ON_ENTER ? TRIM_ON_ENTER : TRIM_NONE;
+
+        int count = (this.screenTimeoutMs != KEEP ? 1 : 0) + (this.brightness != KEEP ? 2 : 0);
+        settingNames = new String[count];
+        settingValues = new int[count];
+        int i = 0;
+        if (this.brightness != KEEP) {
+            // A manual level has no effect while adaptive brightness is on
+            settingNames[i] = Settings.System.SCREEN_BRIGHTNESS_MODE;
+            settingValues[i++] = Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL;
+            settingNames[i] = Settings.System.SCREEN_BRIGHTNESS;
+            settingValues[i++] = this.brightness;
+        }
+        if (this.screenTimeoutMs != KEEP) {
+            settingNames[i] = Settings.System.SCREEN_OFF_TIMEOUT;
+            settingValues[i] = this.screenTimeoutMs;
+        }
+    }
+
+    public boolean changesSettings() {
+        return settingNames.length > 0;
+    }
+}
@@ -0,0 +1,296 @@
+package app.lovable.energyx;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.provider.Settings;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Applies the GameProfile of the game in front and undoes it when the game
+// leaves. Each of the profile's settings is read first and only written when
+// it differs, so a profile that already matches costs reads only. The
+// previous values are saved to a small rollback file before the first write:
+// if the process dies mid-game, the next engine start puts them back. Apply is
+// all or nothing: when a write is refused, the ones before it are undone.
+// Rollback leaves a setting alone when the user changed it in the meantime.
+//
+// Refresh rate is not a setting apps may write; it is requested through a
+// window the service owns (see RefreshRateWindow). Runs on its own thread;
+// the service only posts foreground changes to it.
+public final class GameProfileEngine {
+
+    private static final String TAG = "EnergyXProfiles";
+    private static final String ROLLBACK_FILE_NAME = "profile_rollback.bin";
+    private static final int FILE_MAGIC = 0x45585052; // "EXPR"
+    private static final int FILE_VERSION = 1;
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    // Asks the display for a refresh rate while a window of this app is shown
+    public interface RefreshRateWindow {
+        // 0 removes the request
+        void setPreferredRefreshRate(float hz);
+    }
+
+    private final Context context;
+    private final ContentResolver resolver;
+    private final GameProfileStore store;
+    private final RefreshRateWindow refreshRateWindow;
+    private final OverlayMetrics metrics = OverlayMetrics.get();
+    private final AtomicFile rollbackFile;
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final GameProfileStore.Listener storeListener;
+
+    // Engine thread only
+    private String currentPackage;
+    private GameProfile currentProfile;
+    // Settings written for currentProfile: names, values before, values written
+    private String[] writtenNames = new String[0];
+    private int[] previousValues = new int[0];
+    private int[] writtenValues = new int[0];
+    private int writtenCount;
+    private boolean refreshRateRequested;
+
+    // Background trims run off the engine thread so a rollback never waits on one
+    private ExecutorService trimExecutor;
+    private AppWorkPool trimPool;
+    private volatile AtomicBoolean trimCancelled = new AtomicBoolean();
+
+    public GameProfileEngine(Context context, RefreshRateWindow refreshRateWindow) {
+        this.context = context.getApplicationContext();
+        this.resolver = this.context.getContentResolver();
+        this.store = GameProfileStore.get(context);
+        this.refreshRateWindow = refreshRateWindow;
+        rollbackFile = new AtomicFile(new File(this.context.getFilesDir(), ROLLBACK_FILE_NAME));
+
+        thread = new HandlerThread("EnergyXProfiles", Process.THREAD_PRIORITY_FOREGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(this::restoreFromFile);
+        // An edited profile takes effect at once if its game is in front
+        storeListener = () -> handler.post(() -> {
+            if (currentPackage != null) {
+                switchTo(currentPackage, store.resolve(currentPackage), System.nanoTime());
+            }
+        });
+        store.addListener(storeListener);
+    }
+
+    // Any thread. monitored is whether the package is a game this app watches;
+    // only those get a profile.
+    public void onForegroundChanged(String packageName, boolean monitored) {
+        long requestedAt = System.nanoTime();
+        String target = monitored ? packageName : null;
+        handler.post(() -> {
+            if (target == null ? currentPackage == null : target.equals(currentPackage)) return;
+            switchTo(target, target != null ? store.resolve(target) : null, requestedAt);
+        });
+    }
+
+    // Rolls back whatever is applied and stops the engine thread
+    public void quit() {
+        store.removeListener(storeListener);
+        trimCancelled.set(true);
+        handler.post(() -> {
+            switchTo(null, null, System.nanoTime());
+            if (trimExecutor != null) {
+                trimExecutor.shutdownNow();
+                trimPool.shutdown();
+            }
+        });
+        thread.quitSafely();
+    }
+
+    // Engine thread
+    private void switchTo(String packageName, GameProfile profile, long requestedAt) {
+        GameProfile previous = currentProfile;
+        boolean entered = packageName != null && !packageName.equals(currentPackage);
+        if (entered || packageName == null) {
+            trimCancelled.set(true);
+        }
+        currentPackage = packageName;
+        currentProfile = profile;
+
+        // Games sharing the default profile keep it applied across a switch
+        if (previous != profile) {
+            if (previous != null) {
+                long start = System.nanoTime();
+                rollback();
+                metrics.profileRollback.record((System.nanoTime() - start) / 1000);
+            }
+            if (profile != null) {
+                apply(profile);
+                metrics.profileApply.record((System.nanoTime() - requestedAt) / 1000);
+            }
+        }
+        if (entered && profile != null && profile.trimPolicy == GameProfile.TRIM_ON_ENTER) {
+            trimBackground(packageName);
+        }
+    }
+
+    private void apply(GameProfile profile) {
+        if (profile.refreshRate > 0) {
+            refreshRateWindow.setPreferredRefreshRate(profile.refreshRate);
+            refreshRateRequested = true;
+        }
+        if (!profile.changesSettings() || !Settings.System.canWrite(context)) return;
+
+        int count = profile.settingNames.length;
+        writtenNames = new String[count];
+        previousValues = new int[count];
+        writtenValues = new int[count];
+        writtenCount = 0;
+
+        // Reads first, so the rollback file is written once and only when something changes
+        int[] current = new int[count];
+        int changes = 0;
+        for (int i = 0; i < count; i++) {
+            current[i] = Settings.System.getInt(resolver, profile.settingNames[i], UNSET);
+            if (current[i] != UNSET && current[i] != profile.settingValues[i]) changes++;
+        }
+        if (changes == 0) return;
+
+        for (int i = 0; i < count; i++) {
+            if (current[i] == UNSET || current[i] == profile.settingValues[i]) continue;
+            writtenNames[writtenCount] = profile.settingNames[i];
+            previousValues[writtenCount] = current[i];
+            writtenValues[writtenCount] = profile.settingValues[i];
+            writtenCount++;
+        }
+        if (!writeRollbackFile()) {
+            writtenCount = 0;
+            return;
+        }
+
+        for (int i = 0; i < writtenCount; i++) {
+            boolean written;
+            try {
+                written = Settings.System.putInt(resolver, writtenNames[i], writtenValues[i]);
+            } catch (SecurityException | IllegalArgumentException e) {
+                e.printStackTrace();
+                written = false;
+            }
+            if (!written) {
+                Log.w(TAG, "Could not write " + writtenNames[i] + "; undoing the profile");
+                writtenCount = i;
+                rollback();
+                return;
+            }
+        }
+    }
+
+    private void rollback() {
+        if (refreshRateRequested) {
+            refreshRateWindow.setPreferredRefreshRate(0);
+            refreshRateRequested = false;
+        }
+        restore(writtenNames, previousValues, writtenValues, writtenCount);
+        writtenCount = 0;
+        rollbackFile.delete();
+    }
+
+    // In reverse, so brightness is set back before adaptive mode is
+    private void restore(String[] names, int[] previous, int[] written, int count) {
+        if (count == 0) return;
+        try {
+            for (int i = count - 1; i >= 0; i--) {
+                if (Settings.System.getInt(resolver, names[i], UNSET) != written[i]) continue;
+                Settings.System.putInt(resolver, names[i], previous[i]);
+            }
+        } catch (SecurityException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void trimBackground(String packageName) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        trimCancelled = cancelled;
+        if (trimExecutor == null) {
+            trimExecutor = Executors.newSingleThreadExecutor();
+            trimPool = new AppWorkPool(BackgroundTrimmer.DEFAULT_BATCH_SIZE);
+        }
+        Set<String> monitored = OverlayConfigStore.get(context).getConfig().monitoredPackages;
+        trimExecutor.execute(() -> {
+            try {
+                InstalledAppIndex appIndex = InstalledAppIndex.get(context);
+                appIndex.ensureLoaded(trimPool, trimPool.getThreadCount());
+                if (cancelled.get()) return;
+                BackgroundTrimmer trimmer = new BackgroundTrimmer(context);
+                List<BackgroundTrimmer.Candidate> candidates = trimmer.rank(appIndex.snapshot(false), monitored,
+                    Collections.singleton(packageName), BackgroundTrimmer.DEFAULT_MAX_APPS);
+                trimmer.trim(candidates, BackgroundTrimmer.DEFAULT_BATCH_SIZE, trimPool, cancelled);
+            } catch (InterruptedException e) {
+                // Engine quit
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Restores settings left changed by a process that died mid-game
+    private void restoreFromFile() {
+        if (!rollbackFile.getBaseFile().isFile()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(rollbackFile.openRead()))) {
+            if (in.readInt() == FILE_MAGIC && in.readInt() == FILE_VERSION) {
+                int count = in.readInt();
+                String[] names = new String[count];
+                int[] previous = new int[count];
+                int[] written = new int[count];
+                for (int i = 0; i < count; i++) {
+                    names[i] = in.readUTF();
+                    previous[i] = in.readInt();
+                    written[i] = in.readInt();
+                }
+                if (Settings.System.canWrite(context)) {
+                    restore(names, previous, written, count);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        rollbackFile.delete();
+    }
+
+    private boolean writeRollbackFile() {
+        FileOutputStream stream = null;
+        try {
+            stream = rollbackFile.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(writtenCount);
+            for (int i = 0; i < writtenCount; i++) {
+                out.writeUTF(writtenNames[i]);
+                out.writeInt(previousValues[i]);
+                out.writeInt(writtenValues[i]);
+            }
+            out.flush();
+            rollbackFile.finishWrite(stream);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (stream != null) {
+                rollbackFile.failWrite(stream);
+            }
+            return false;
+        }
+    }
+}
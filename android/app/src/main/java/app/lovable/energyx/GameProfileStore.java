@@ -0,0 +1,146 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Per-game profiles, keyed by package name, plus an optional default profile
+// (DEFAULT_KEY) for monitored games that have none of their own. Readers get
+// an immutable map without locking; edits are made on the store's own thread
+// and written straight to one small binary file, since they only come from
+// the settings UI.
+public final class GameProfileStore {
+
+    public static final String DEFAULT_KEY = "*";
+
+    private static final String FILE_NAME = "game_profiles.bin";
+    private static final int FILE_MAGIC = 0x45584750; // "EXGP"
+    private static final int FILE_VERSION = 1;
+
+    public interface Listener {
+        void onProfilesChanged();
+    }
+
+    private static GameProfileStore instance;
+
+    private final AtomicFile file;
+    private final Handler handler;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<String, GameProfile> profiles;
+
+    private GameProfileStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        HandlerThread thread = new HandlerThread("EnergyXProfileStore", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        profiles = readFile();
+    }
+
+    public static synchronized GameProfileStore get(Context context) {
+        if (instance == null) {
+            instance = new GameProfileStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public Map<String, GameProfile> getProfiles() {
+        return profiles;
+    }
+
+    // The game's own profile, else the default one; null when neither exists
+    public GameProfile resolve(String packageName) {
+        Map<String, GameProfile> profiles = this.profiles;
+        GameProfile profile = profiles.get(packageName);
+        return profile != null ? profile : profiles.get(DEFAULT_KEY);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // A null profile removes the entry; onApplied (may be null) runs on the
+    // store thread once the change is live
+    public void setProfile(String packageName, GameProfile profile, Runnable onApplied) {
+        handler.post(() -> {
+            Map<String, GameProfile> updated = new HashMap<>(profiles);
+            if (profile != null) {
+                updated.put(packageName, profile);
+            } else {
+                updated.remove(packageName);
+            }
+            profiles = Collections.unmodifiableMap(updated);
+            for (Listener listener : listeners) {
+                listener.onProfilesChanged();
+            }
+            writeFile();
+            if (onApplied != null) {
+                onApplied.run();
+            }
+        });
+    }
+
+    private Map<String, GameProfile> readFile() {
+        if (!file.getBaseFile().isFile()) return Collections.emptyMap();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return Collections.emptyMap();
+            int count = in.readInt();
+            Map<String, GameProfile> profiles = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String packageName = in.readUTF();
+                profiles.put(packageName, new GameProfile(in.readInt(), in.readInt(), in.readFloat(), in.readInt()));
+            }
+            return Collections.unmodifiableMap(profiles);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+
+    private void writeFile() {
+        Map<String, GameProfile> profiles = this.profiles;
+
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(profiles.size());
+            for (Map.Entry<String, GameProfile> entry : profiles.entrySet()) {
+                GameProfile profile = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(profile.screenTimeoutMs);
+                out.writeInt(profile.brightness);
+                out.writeFloat(profile.refreshRate);
+                out.writeInt(profile.trimPolicy);
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
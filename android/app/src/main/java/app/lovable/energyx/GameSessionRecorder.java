@@ -0,0 +1,129 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+// Turns foreground changes into game sessions in a SessionLog under
+// files/sessions. While a monitored game is in front, a PerformanceSampler
+// adds a resource sample every 10 seconds. Old sessions are compacted at most
+// once a day, when a session ends.
+public final class GameSessionRecorder {
+
+    static final long SAMPLE_INTERVAL_MS = 10_000;
+    static final long RAW_RETENTION_MS = 7L * 24 * 60 * 60 * 1000;
+    static final long RETENTION_MS = 180L * 24 * 60 * 60 * 1000;
+    static final long COMPACT_INTERVAL_MS = 24L * 60 * 60 * 1000;
+
+    private static final String DIR_NAME = "sessions";
+
+    private static GameSessionRecorder instance;
+
+    private final Handler handler;
+    private final PerformanceSampler sampler;
+    private final PerfSampleRing.Sample scratch;
+    // Null when the log could not be opened; recording is then skipped
+    private final SessionLog log;
+
+    // Owned by the recorder thread; read by the sampler thread
+    private volatile String activePackage;
+    private long activeStartElapsed;
+
+    private GameSessionRecorder(Context context) {
+        HandlerThread thread = new HandlerThread("EnergyXSessions", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        sampler = new PerformanceSampler(context, 8);
+        scratch = new PerfSampleRing.Sample(sampler.getRing().getCores());
+
+        SessionLog opened = null;
+        try {
+            opened = new SessionLog(new File(context.getFilesDir(), DIR_NAME));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        log = opened;
+    }
+
+    public static synchronized GameSessionRecorder get(Context context) {
+        if (instance == null) {
+            instance = new GameSessionRecorder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Ends the running session when another app comes to the front and starts
+    // one when that app is a monitored game
+    public void onForegroundChanged(String packageName, boolean monitored) {
+        handler.post(() -> {
+            if (packageName.equals(activePackage)) return;
+            // Stamped when appended, so records land in the log in time order
+            long now = System.currentTimeMillis();
+            endSession(now);
+            if (monitored) {
+                startSession(packageName, now);
+            }
+        });
+    }
+
+    // E.g. when the screen turns off or the service stops
+    public void stop() {
+        handler.post(() -> endSession(System.currentTimeMillis()));
+    }
+
+    public Map<String, SessionLog.Stats> query(long from, long to, String packageName) {
+        if (log == null) return Collections.emptyMap();
+        return log.aggregate(from, to, packageName);
+    }
+
+    private void startSession(String packageName, long now) {
+        if (log == null) return;
+        try {
+            log.appendStart(packageName, now);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        activePackage = packageName;
+        activeStartElapsed = SystemClock.elapsedRealtime();
+        sampler.start(SAMPLE_INTERVAL_MS, false, this::onSample);
+    }
+
+    private void endSession(long now) {
+        String packageName = activePackage;
+        if (packageName == null) return;
+        activePackage = null;
+        sampler.stop();
+
+        try {
+            log.appendEnd(packageName, now, SystemClock.elapsedRealtime() - activeStartElapsed);
+            if (now - log.getLastCompaction() > COMPACT_INTERVAL_MS) {
+                log.compact(now - RAW_RETENTION_MS, now - RETENTION_MS, now);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Sampler thread
+    private void onSample(PerfSampleRing ring, long sequence) {
+        String packageName = activePackage;
+        if (packageName == null || !ring.get(sequence, scratch)) return;
+
+        int memAvailableMb = scratch.memAvailableKb >= 0 ? (int) (scratch.memAvailableKb / 1024) : -1;
+        try {
+            log.appendSample(packageName, scratch.time, scratch.cpuPermille, scratch.fpsX10,
+                scratch.batteryTempDeciC, scratch.thermalStatus, memAvailableMb);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.os.Debug;
+import android.view.View;
+
+// Two-line performance HUD drawn by a single view: frame rate and janky
+// frames, then device CPU load and battery temperature. Values are formatted
+// into fixed char buffers and the view's size is fixed at construction, so an
+// update only invalidates; it never requests a layout or allocates. The CPU
+// time spent in setValues() and onDraw() is accumulated for budget checks.
+public class HudView extends View {
+
+    private static final int UNKNOWN = -1;
+    // Widest possible lines, used once to size the view
+    private static final String WIDEST_LINE_1 = "FPS 000.0  JANK 000";
+    private static final String WIDEST_LINE_2 = "CPU 100%  000.0\u00b0C";
+
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF backgroundRect = new RectF();
+    private final float padding;
+    private final float cornerRadius;
+    private final float lineHeight;
+    private final float baseline;
+    private final int width;
+    private final int height;
+
+    private final char[] line1 = new char[WIDEST_LINE_1.length()];
+    private final char[] line2 = new char[WIDEST_LINE_2.length()];
+    private int line1Length;
+    private int line2Length;
+
+    private int fpsX10 = Integer.MIN_VALUE;
+    private int jankFrames = Integer.MIN_VALUE;
+    private int cpuPermille = Integer.MIN_VALUE;
+    private int batteryTempDeciC = Integer.MIN_VALUE;
+
+    // Main thread only
+    private long cpuTimeNanos;
+
+    public HudView(Context context) {
+        super(context);
+        float density = context.getResources().getDisplayMetrics().density;
+        padding = 6 * density;
+        cornerRadius = 8 * density;
+
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(11 * density);
+        textPaint.setTypeface(Typeface.MONOSPACE);
+        backgroundPaint.setColor(0x99000000);
+
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        lineHeight = metrics.descent - metrics.ascent;
+        baseline = padding - metrics.ascent;
+        float textWidth = Math.max(textPaint.measureText(WIDEST_LINE_1), textPaint.measureText(WIDEST_LINE_2));
+        width = (int) Math.ceil(textWidth + 2 * padding);
+        height = (int) Math.ceil(2 * lineHeight + 2 * padding);
+        backgroundRect.set(0, 0, width, height);
+
+        setValues(UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN);
+    }
+
+    // -1 for values that are not available
+    public void setValues(int fpsX10, int jankFrames, int cpuPermille, int batteryTempDeciC) {
+        long start = Debug.threadCpuTimeNanos();
+        if (fpsX10 != this.fpsX10 || jankFrames != this.jankFrames) {
+            this.fpsX10 = fpsX10;
+            this.jankFrames = jankFrames;
+            int length = put(line1, 0, "FPS ");
+            length = putTenths(line1, length, fpsX10);
+            length = put(line1, length, "  JANK ");
+            line1Length = putInt(line1, length, Math.min(jankFrames, 999));
+            invalidate();
+        }
+        if (cpuPermille != this.cpuPermille || batteryTempDeciC != this.batteryTempDeciC) {
+            this.cpuPermille = cpuPermille;
+            this.batteryTempDeciC = batteryTempDeciC;
+            int length = put(line2, 0, "CPU ");
+            length = putInt(line2, length, cpuPermille >= 0 ? (cpuPermille + 5) / 10 : UNKNOWN);
+            length = put(line2, length, "%  ");
+            length = putTenths(line2, length, batteryTempDeciC);
+            line2Length = put(line2, length, "\u00b0C");
+            invalidate();
+        }
+        cpuTimeNanos += Debug.threadCpuTimeNanos() - start;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long start = Debug.threadCpuTimeNanos();
+        canvas.drawRoundRect(backgroundRect, cornerRadius, cornerRadius, backgroundPaint);
+        canvas.drawText(line1, 0, line1Length, padding, baseline, textPaint);
+        canvas.drawText(line2, 0, line2Length, padding, baseline + lineHeight, textPaint);
+        cpuTimeNanos += Debug.threadCpuTimeNanos() - start;
+    }
+
+    private static int put(char[] buffer, int position, String text) {
+        int length = Math.min(text.length(), buffer.length - position);
+        text.getChars(0, length, buffer, position);
+        return position + length;
+    }
+
+    private static int putInt(char[] buffer, int position, int value) {
+        if (value < 0) return put(buffer, position, "--");
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        if (position + digits > buffer.length) return position;
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    // Writes a value stored in tenths, e.g. 599 as "59.9"
+    private static int putTenths(char[] buffer, int position, int valueX10) {
+        if (valueX10 < 0) return put(buffer, position, "--");
+        position = putInt(buffer, position, valueX10 / 10);
+        if (position + 2 > buffer.length) return position;
+        buffer[position] = '.';
+        buffer[position + 1] = (char) ('0' + valueX10 % 10);
+        return position + 2;
+    }
+}
@@ -0,0 +1,58 @@
+package app.lovable.energyx;
+
+// Grid layout for packing same-size icons into one or more atlas pages. Pages
+// are capped at MAX_DIMENSION on each side to stay within texture limits.
+public class IconAtlas {
+
+    static final int MAX_DIMENSION = 2048;
+
+    private final int iconSize;
+    private final int count;
+    private final int columns;
+    private final int perPage;
+
+    public IconAtlas(int iconSize, int count) {
+        this.iconSize = iconSize;
+        this.count = count;
+        int maxCells = Math.max(1, MAX_DIMENSION / iconSize);
+        this.columns = Math.max(1, Math.min(maxCells, (int) Math.ceil(Math.sqrt(count))));
+        this.perPage = columns * maxCells;
+    }
+
+    public int getPageCount() {
+        return count == 0 ? 0 : (count + perPage - 1) / perPage;
+    }
+
+    public int getPage(int index) {
+        return index / perPage;
+    }
+
+    public int getX(int index) {
+        return (index % perPage) % columns * iconSize;
+    }
+
+    public int getY(int index) {
+        return (index % perPage) / columns * iconSize;
+    }
+
+    public int getPageWidth(int page) {
+        return Math.min(columns, cellsOnPage(page)) * iconSize;
+    }
+
+    public int getPageHeight(int page) {
+        int cells = cellsOnPage(page);
+        return ((cells + columns - 1) / columns) * iconSize;
+    }
+
+    public int getPageStart(int page) {
+        return page * perPage;
+    }
+
+    public int getPageEnd(int page) {
+        return Math.min(count, (page + 1) * perPage);
+    }
+
+    private int cellsOnPage(int page) {
+        return getPageEnd(page) - getPageStart(page);
+    }
+}
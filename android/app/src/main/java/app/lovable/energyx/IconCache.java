@@ -0,0 +1,231 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Two-tier cache for encoded launcher icons: a byte-sized LRU in memory backed by
+// one directory per package under the app cache dir. Entries are keyed by
+// package name, version code, last update time, icon size and image format, so
+// a stale entry can never be served for an updated package.
+public class IconCache {
+
+    private static final String DIR_NAME = "app_icons";
+    private static final String ATLAS_DIR_NAME = "atlas";
+    private static final int MAX_MEMORY_BYTES = 8 * 1024 * 1024;
+
+    public static final class Key {
+        final String packageName;
+        final long versionCode;
+        final long lastUpdateTime;
+        final int size;
+        final String extension;
+
+        public Key(String packageName, long versionCode, long lastUpdateTime, int size, String extension) {
+            this.packageName = packageName;
+            this.versionCode = versionCode;
+            this.lastUpdateTime = lastUpdateTime;
+            this.size = size;
+            this.extension = extension;
+        }
+
+        String versionPrefix() {
+            return versionCode + "_" + lastUpdateTime + "_";
+        }
+
+        String fileName() {
+            return versionPrefix() + size + "." + extension;
+        }
+
+        // '/' never appears in a package name, so it safely separates the prefix
+        String memoryKey() {
+            return packageName + "/" + fileName();
+        }
+    }
+
+    private static IconCache instance;
+
+    private final File rootDir;
+    private final LruCache<String, byte[]> memoryCache;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private IconCache(Context context) {
+        rootDir = new File(context.getCacheDir(), DIR_NAME);
+
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 32, MAX_MEMORY_BYTES);
+        memoryCache = new LruCache<String, byte[]>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, byte[] value) {
+                return value.length;
+            }
+        };
+    }
+
+    // One instance per process, so the web UI and launch warm-up share the
+    // memory tier and its hit counters
+    public static synchronized IconCache get(Context context) {
+        if (instance == null) {
+            instance = new IconCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public byte[] get(Key key) {
+        byte[] data = memoryCache.get(key.memoryKey());
+        if (data != null) {
+            memoryHits.incrementAndGet();
+            return data;
+        }
+
+        data = readFile(entryFile(key));
+        if (data != null) {
+            memoryCache.put(key.memoryKey(), data);
+            diskHits.incrementAndGet();
+            return data;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(Key key, byte[] data) {
+        memoryCache.put(key.memoryKey(), data);
+        putFile(key, data);
+    }
+
+    // Returns the on-disk entry, or null when it has to be rendered. Used when
+    // icons are handed to the WebView as file URLs and never need to be in memory.
+    public File getFile(Key key) {
+        File file = entryFile(key);
+        if (file.isFile()) {
+            diskHits.incrementAndGet();
+            return file;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public File putFile(Key key, byte[] data) {
+        File packageDir = new File(rootDir, key.packageName);
+        String versionPrefix = key.versionPrefix();
+
+        // Drop files left behind by older versions of the package
+        File[] existing = packageDir.listFiles();
+        if (existing != null) {
+            for (File file : existing) {
+                if (!file.getName().startsWith(versionPrefix)) {
+                    file.delete();
+                }
+            }
+        }
+
+        File file = new File(packageDir, key.fileName());
+        return writeFile(file, data) ? file : null;
+    }
+
+    public File getAtlasDir() {
+        return new File(rootDir, ATLAS_DIR_NAME);
+    }
+
+    public void invalidate(String packageName) {
+        String prefix = packageName + "/";
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                memoryCache.remove(key);
+            }
+        }
+        deleteRecursively(new File(rootDir, packageName));
+        // Any atlas may contain the package, and atlases are cheap to rebuild
+        deleteRecursively(getAtlasDir());
+    }
+
+    public void clear() {
+        memoryCache.evictAll();
+        deleteRecursively(rootDir);
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getMemorySize() {
+        return memoryCache.size();
+    }
+
+    public int getMemoryMaxSize() {
+        return memoryCache.maxSize();
+    }
+
+    private File entryFile(Key key) {
+        return new File(new File(rootDir, key.packageName), key.fileName());
+    }
+
+    private static byte[] readFile(File file) {
+        long length = file.length();
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        byte[] data = new byte[(int) length];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    return null;
+                }
+                offset += read;
+            }
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static boolean writeFile(File file, byte[] data) {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            return false;
+        }
+
+        // Write to a temp file first so readers never see a partial icon
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,179 @@
+package app.lovable.energyx;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import java.io.ByteArrayOutputStream;
+
+// Rasterizes launcher icons and encodes them as PNG or lossless WebP. Icons
+// are drawn straight at the requested size into bitmaps from a pool shared by
+// all renderers, so rendering every installed app holds at most
+// MAX_POOL_BYTES of scratch bitmaps however many workers run; workers wait
+// for a free bitmap beyond that. Opaque icons use RGB_565. Each thread keeps
+// its own Canvas and output buffer.
+public class IconRenderer {
+
+    public static final String FORMAT_PNG = "png";
+    public static final String FORMAT_WEBP = "webp";
+
+    static final long MAX_POOL_BYTES = 4L * 1024 * 1024;
+    // Larger output buffers (atlas pages) are not kept between calls
+    private static final int MAX_RETAINED_OUTPUT = 256 * 1024;
+
+    private static final ScratchPool<Bitmap> bitmapPool = new ScratchPool<>(new ScratchPool.Allocator<Bitmap>() {
+        @Override
+        public Bitmap allocate(long key) {
+            int size = sizeFromKey(key);
+            return Bitmap.createBitmap(size, size, configFromKey(key));
+        }
+
+        @Override
+        public long sizeOf(long key) {
+            int size = sizeFromKey(key);
+            return (long) size * size * (configFromKey(key) == Bitmap.Config.RGB_565 ? 2 : 4);
+        }
+
+        @Override
+        public void free(Bitmap bitmap) {
+            bitmap.recycle();
+        }
+    }, MAX_POOL_BYTES);
+
+    private static final ThreadLocal<Canvas> canvases = new ThreadLocal<Canvas>() {
+        @Override
+        protected Canvas initialValue() {
+            return new Canvas();
+        }
+    };
+    private static final ThreadLocal<OutputBuffer> outputs = new ThreadLocal<>();
+
+    // Exposes the capacity so oversized buffers can be dropped
+    private static final class OutputBuffer extends ByteArrayOutputStream {
+        OutputBuffer() {
+            super(16 * 1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    public static String normalizeFormat(String format) {
+        return FORMAT_WEBP.equalsIgnoreCase(format) ? FORMAT_WEBP : FORMAT_PNG;
+    }
+
+    public static String mimeType(String format) {
+        return FORMAT_WEBP.equals(format) ? "image/webp" : "image/png";
+    }
+
+    // Frees the idle pooled bitmaps, e.g. when the system is low on memory
+    public static void trimPool() {
+        bitmapPool.trim();
+    }
+
+    // Package-private so tests can check the bound on the shared pool
+    static ScratchPool<Bitmap> getPool() {
+        return bitmapPool;
+    }
+
+    @SuppressWarnings("deprecation")
+    public byte[] encode(Drawable drawable, int size, String format) {
+        try {
+            if (drawable instanceof BitmapDrawable) {
+                Bitmap source = ((BitmapDrawable) drawable).getBitmap();
+                // Already the right size: encode it as is, without a copy
+                if (source != null && source.getWidth() == size && source.getHeight() == size) {
+                    return compress(source, format);
+                }
+                if (source != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                        && source.getConfig() == Bitmap.Config.HARDWARE) {
+                    // A software canvas cannot draw hardware bitmaps
+                    Bitmap copy = source.copy(Bitmap.Config.ARGB_8888, false);
+                    try {
+                        return render(new BitmapDrawable(null, copy), size, format);
+                    } finally {
+                        copy.recycle();
+                    }
+                }
+            }
+            return render(drawable, size, format);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Draws the icon into a size x size cell of a larger canvas, used for atlases
+    public void drawInto(Drawable drawable, Canvas canvas, int left, int top, int size) {
+        drawable.setBounds(left, top, left + size, top + size);
+        drawable.draw(canvas);
+    }
+
+    @SuppressWarnings("deprecation")
+    public byte[] compress(Bitmap bitmap, String format) {
+        OutputBuffer output = outputs.get();
+        if (output == null) {
+            output = new OutputBuffer();
+        } else {
+            output.reset();
+        }
+
+        if (FORMAT_WEBP.equals(format)) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                bitmap.compress(Bitmap.CompressFormat.WEBP_LOSSLESS, 100, output);
+            } else {
+                // Quality 100 selects lossless WebP on Q; older releases get near-lossless
+                bitmap.compress(Bitmap.CompressFormat.WEBP, 100, output);
+            }
+        } else {
+            // PNG is lossless and ignores the quality argument
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, output);
+        }
+
+        byte[] data = output.toByteArray();
+        outputs.set(output.capacity() <= MAX_RETAINED_OUTPUT ? output : null);
+        return data;
+    }
+
+    @SuppressWarnings("deprecation")
+    private byte[] render(Drawable drawable, int size, String format) throws InterruptedException {
+        // getOpacity() is only a hint, but OPAQUE is never reported for icons with transparency
+        Bitmap.Config config = drawable.getOpacity() == PixelFormat.OPAQUE
+            ? Bitmap.Config.RGB_565
+            : Bitmap.Config.ARGB_8888;
+        long key = keyOf(size, config);
+        Bitmap bitmap = bitmapPool.acquire(key);
+        Canvas canvas = canvases.get();
+        try {
+            bitmap.eraseColor(Color.TRANSPARENT);
+            canvas.setBitmap(bitmap);
+            drawable.setBounds(0, 0, size, size);
+            drawable.draw(canvas);
+            return compress(bitmap, format);
+        } finally {
+            // The canvas must not keep a pooled bitmap alive
+            canvas.setBitmap(null);
+            bitmapPool.release(key, bitmap);
+        }
+    }
+
+    private static long keyOf(int size, Bitmap.Config config) {
+        return (long) size << 1 | (config == Bitmap.Config.RGB_565 ? 1 : 0);
+    }
+
+    private static int sizeFromKey(long key) {
+        return (int) (key >>> 1);
+    }
+
+    private static Bitmap.Config configFromKey(long key) {
+        return (key & 1) != 0 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+}
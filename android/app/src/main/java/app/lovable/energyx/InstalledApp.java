@@ -0,0 +1,34 @@
+package app.lovable.energyx;
+
+import android.content.pm.ApplicationInfo;
+
+// One launchable app as kept by InstalledAppIndex. Only compile-time constants
+// of ApplicationInfo are used, so the class also loads on a plain JVM.
+public final class InstalledApp {
+    public final String packageName;
+    public final String label;
+    public final int flags;
+    public final int category;
+    public final long versionCode;
+    public final long lastUpdateTime;
+
+    public InstalledApp(String packageName, String label, int flags, int category, long versionCode,
+            long lastUpdateTime) {
+        this.packageName = packageName;
+        this.label = label;
+        this.flags = flags;
+        this.category = category;
+        this.versionCode = versionCode;
+        this.lastUpdateTime = lastUpdateTime;
+    }
+
+    public boolean isSystemApp() {
+        return (flags & ApplicationInfo.FLAG_SYSTEM) != 0;
+    }
+
+    // As declared by the app: android:appCategory="game" or the older isGame flag
+    @SuppressWarnings("deprecation")
+    public boolean isGame() {
+        return category == ApplicationInfo.CATEGORY_GAME || (flags & ApplicationInfo.FLAG_IS_GAME) != 0;
+    }
+}
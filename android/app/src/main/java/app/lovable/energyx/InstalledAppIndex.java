@@ -0,0 +1,463 @@
+package app.lovable.energyx;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.provider.Settings;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Process-wide index of launchable apps. It is built once, kept up to date from
+// package broadcasts and persisted between launches; on API 26+ a restart only
+// re-resolves the packages PackageManager reports as changed. Every change bumps
+// a generation number so callers can ask for deltas instead of the full list.
+public final class InstalledAppIndex {
+
+    public static final int CHANGE_ADDED = 1;
+    public static final int CHANGE_UPDATED = 2;
+    public static final int CHANGE_REMOVED = 3;
+
+    private static final String FILE_NAME = "app_index.bin";
+    private static final int FILE_MAGIC = 0x45584149; // "EXAI"
+    private static final int FILE_VERSION = 2;
+    private static final int MAX_CHANGES = 512;
+
+    public static final class Change {
+        public final int type;
+        public final String packageName;
+        public final long generation;
+
+        Change(int type, String packageName, long generation) {
+            this.type = type;
+            this.packageName = packageName;
+            this.generation = generation;
+        }
+    }
+
+    public static final class Changes {
+        public final long generation;
+        // True when the requested generation is no longer covered by the change log
+        public final boolean reset;
+        public final List<Change> changes;
+
+        Changes(long generation, boolean reset, List<Change> changes) {
+            this.generation = generation;
+            this.reset = reset;
+            this.changes = changes;
+        }
+    }
+
+    public interface Listener {
+        void onPackageChanged(String packageName);
+    }
+
+    private static InstalledAppIndex instance;
+
+    private final Context context;
+    private final PackageManager pm;
+    private final AtomicFile file;
+    private final Handler handler;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Sorted by package name so snapshots have a stable order
+    private final TreeMap<String, InstalledApp> entries = new TreeMap<>();
+    private final List<Change> changeLog = new ArrayList<>();
+    private long generation;
+    private long logStartGeneration;
+    // Rebuilt on first search after each change
+    private AppSearchIndex<InstalledApp> searchIndex;
+    private long searchIndexGeneration = -1;
+    private int sequenceNumber;
+    private boolean loaded;
+    // Packages changed while the first build ran, refreshed once it is done
+    private final Set<String> pendingRefresh = new LinkedHashSet<>();
+
+    private final BroadcastReceiver packageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Uri data = intent.getData();
+            if (data == null) return;
+            String packageName = data.getSchemeSpecificPart();
+
+            // The matching ACTION_PACKAGE_ADDED/REPLACED follows an update removal
+            if (Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction())
+                    && intent.getBooleanExtra(Intent.EXTRA_REPLACING, false)) {
+                return;
+            }
+
+            onPackageChanged(packageName);
+        }
+    };
+
+    private InstalledAppIndex(Context context) {
+        this.context = context;
+        this.pm = context.getPackageManager();
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+
+        HandlerThread thread = new HandlerThread("EnergyXAppIndex", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addDataScheme("package");
+        context.registerReceiver(packageReceiver, filter, null, handler);
+    }
+
+    public static synchronized InstalledAppIndex get(Context context) {
+        if (instance == null) {
+            instance = new InstalledAppIndex(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Loads or builds the index on first use; label resolution for new packages
+    // is spread over the work pool
+    public void ensureLoaded(AppWorkPool workPool, int parallelism) throws InterruptedException {
+        synchronized (this) {
+            if (loaded) return;
+        }
+
+        // Taken before the query, so changes made during the build are seen again next time
+        int buildSequenceNumber = currentSequenceNumber();
+        Map<String, ApplicationInfo> launchable = queryLaunchable();
+        Map<String, InstalledApp> previous = new HashMap<>();
+        boolean incremental = readFile(previous);
+        List<String> changedList = incremental ? changedPackagesSince(sequenceNumber) : null;
+        Set<String> changed = changedList != null ? new HashSet<>(changedList) : null;
+
+        List<ApplicationInfo> toResolve = new ArrayList<>();
+        Map<String, InstalledApp> result = new HashMap<>();
+        for (ApplicationInfo appInfo : launchable.values()) {
+            InstalledApp old = previous.get(appInfo.packageName);
+            if (old != null && changed != null && !changed.contains(appInfo.packageName)) {
+                result.put(appInfo.packageName, old);
+            } else {
+                toResolve.add(appInfo);
+            }
+        }
+
+        InstalledApp[] resolved = new InstalledApp[toResolve.size()];
+        workPool.runAll(0, resolved.length, parallelism, new AtomicBoolean(false),
+            i -> resolved[i] = resolve(toResolve.get(i)));
+
+        List<String> missed;
+        synchronized (this) {
+            if (loaded) return;
+            entries.clear();
+            entries.putAll(result);
+            for (InstalledApp entry : resolved) {
+                if (entry != null) {
+                    entries.put(entry.packageName, entry);
+                }
+            }
+            // A fresh build invalidates any generation a caller may still hold
+            generation++;
+            logStartGeneration = generation;
+            changeLog.clear();
+            sequenceNumber = buildSequenceNumber;
+            loaded = true;
+            missed = new ArrayList<>(pendingRefresh);
+            pendingRefresh.clear();
+        }
+        handler.post(this::writeFile);
+        for (String packageName : missed) {
+            handler.post(() -> onPackageChanged(packageName));
+        }
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized List<InstalledApp> snapshot(boolean includeSystemApps) {
+        List<InstalledApp> result = new ArrayList<>(entries.size());
+        for (InstalledApp entry : entries.values()) {
+            if (includeSystemApps || !entry.isSystemApp()) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public synchronized AppSearchIndex<InstalledApp> getSearchIndex() {
+        if (searchIndex == null || searchIndexGeneration != generation) {
+            searchIndex = new AppSearchIndex<>();
+            for (InstalledApp entry : entries.values()) {
+                searchIndex.add(entry, entry.packageName, entry.label, entry.isGame(), entry.isSystemApp(),
+                    entry.lastUpdateTime);
+            }
+            searchIndexGeneration = generation;
+        }
+        return searchIndex;
+    }
+
+    public synchronized InstalledApp getEntry(String packageName) {
+        return entries.get(packageName);
+    }
+
+    public synchronized Changes getChangesSince(long sinceGeneration) {
+        if (sinceGeneration < logStartGeneration || sinceGeneration > generation) {
+            return new Changes(generation, true, Collections.emptyList());
+        }
+
+        // Collapse to the latest change per package
+        LinkedHashMap<String, Change> latest = new LinkedHashMap<>();
+        for (Change change : changeLog) {
+            if (change.generation > sinceGeneration) {
+                latest.remove(change.packageName);
+                latest.put(change.packageName, change);
+            }
+        }
+        return new Changes(generation, false, new ArrayList<>(latest.values()));
+    }
+
+    // Handler thread
+    private void onPackageChanged(String packageName) {
+        if (!refreshPackage(packageName)) return;
+        for (Listener listener : listeners) {
+            listener.onPackageChanged(packageName);
+        }
+    }
+
+    // Returns false when the change was queued because the index is still being built
+    private boolean refreshPackage(String packageName) {
+        synchronized (this) {
+            if (!loaded) {
+                pendingRefresh.add(packageName);
+                return false;
+            }
+        }
+
+        InstalledApp entry = null;
+        ApplicationInfo appInfo = queryLaunchable(packageName);
+        if (appInfo != null) {
+            entry = resolve(appInfo);
+        }
+
+        synchronized (this) {
+            InstalledApp old = entry != null ? entries.put(packageName, entry) : entries.remove(packageName);
+            if (entry == null && old == null) return true;
+
+            int type = entry == null ? CHANGE_REMOVED : old == null ? CHANGE_ADDED : CHANGE_UPDATED;
+            generation++;
+            changeLog.add(new Change(type, packageName, generation));
+            if (changeLog.size() > MAX_CHANGES) {
+                Change dropped = changeLog.remove(0);
+                logStartGeneration = dropped.generation;
+            }
+            sequenceNumber = currentSequenceNumber();
+        }
+        writeFile();
+        return true;
+    }
+
+    private Map<String, ApplicationInfo> queryLaunchable() {
+        Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+        mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+
+        Map<String, ApplicationInfo> apps = new HashMap<>();
+        for (ResolveInfo app : pm.queryIntentActivities(mainIntent, 0)) {
+            // The resolved activity already carries its ApplicationInfo
+            ApplicationInfo appInfo = app.activityInfo.applicationInfo;
+            if (appInfo == null) {
+                try {
+                    appInfo = pm.getApplicationInfo(app.activityInfo.packageName, 0);
+                } catch (PackageManager.NameNotFoundException e) {
+                    // Skip apps that can't be found
+                    continue;
+                }
+            }
+            apps.put(appInfo.packageName, appInfo);
+        }
+        return apps;
+    }
+
+    private ApplicationInfo queryLaunchable(String packageName) {
+        Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+        mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+        mainIntent.setPackage(packageName);
+
+        List<ResolveInfo> resolveInfos = pm.queryIntentActivities(mainIntent, 0);
+        if (resolveInfos == null || resolveInfos.isEmpty()) return null;
+
+        try {
+            return pm.getApplicationInfo(packageName, 0);
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private InstalledApp resolve(ApplicationInfo appInfo) {
+        try {
+            PackageInfo packageInfo = pm.getPackageInfo(appInfo.packageName, 0);
+            int category = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? appInfo.category
+                : ApplicationInfo.CATEGORY_UNDEFINED;
+            return new InstalledApp(
+                appInfo.packageName,
+                pm.getApplicationLabel(appInfo).toString(),
+                appInfo.flags,
+                category,
+                getVersionCode(packageInfo),
+                packageInfo.lastUpdateTime
+            );
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    static long getVersionCode(PackageInfo packageInfo) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return packageInfo.getLongVersionCode();
+        }
+        return packageInfo.versionCode;
+    }
+
+    private List<String> changedPackagesSince(int sequence) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return null;
+        ChangedPackages changedPackages = pm.getChangedPackages(sequence);
+        // Null means nothing changed, unless the sequence no longer applies (after a reboot)
+        if (changedPackages == null) {
+            return currentSequenceNumber() == sequence ? Collections.emptyList() : null;
+        }
+        return changedPackages.getPackageNames();
+    }
+
+    private int currentSequenceNumber() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return 0;
+        ChangedPackages changedPackages = pm.getChangedPackages(0);
+        return changedPackages != null ? changedPackages.getSequenceNumber() : 0;
+    }
+
+    private int bootCount() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) return -1;
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    @SuppressWarnings("deprecation")
+    private String localeTag() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return context.getResources().getConfiguration().getLocales().toLanguageTags();
+        }
+        Locale locale = context.getResources().getConfiguration().locale;
+        return locale != null ? locale.toString() : "";
+    }
+
+    // Returns true when the persisted index was written in this boot and locale,
+    // i.e. its sequence number can be used for an incremental refresh
+    private boolean readFile(Map<String, InstalledApp> into) {
+        if (!file.getBaseFile().isFile()) return false;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return false;
+            // Labels are localized, so a locale change means a full rebuild
+            if (!localeTag().equals(in.readUTF())) return false;
+
+            // Sequence numbers restart on reboot, so they only apply within one boot
+            boolean sameBoot = in.readInt() == bootCount();
+            int sequence = in.readInt();
+            long storedGeneration = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                InstalledApp entry = new InstalledApp(in.readUTF(), in.readUTF(), in.readInt(), in.readInt(),
+                    in.readLong(), in.readLong());
+                into.put(entry.packageName, entry);
+            }
+
+            synchronized (this) {
+                sequenceNumber = sequence;
+                generation = Math.max(generation, storedGeneration);
+            }
+            return sameBoot;
+        } catch (IOException e) {
+            into.clear();
+            return false;
+        }
+    }
+
+    private void writeFile() {
+        List<InstalledApp> snapshot;
+        int sequence;
+        long currentGeneration;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.values());
+            sequence = sequenceNumber;
+            currentGeneration = generation;
+        }
+
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(localeTag());
+            out.writeInt(bootCount());
+            out.writeInt(sequence);
+            out.writeLong(currentGeneration);
+            out.writeInt(snapshot.size());
+            for (InstalledApp entry : snapshot) {
+                out.writeUTF(entry.packageName);
+                out.writeUTF(entry.label);
+                out.writeInt(entry.flags);
+                out.writeInt(entry.category);
+                out.writeLong(entry.versionCode);
+                out.writeLong(entry.lastUpdateTime);
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
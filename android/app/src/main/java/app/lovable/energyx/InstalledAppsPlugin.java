@@ -2,14 +2,11 @@ package app.lovable.energyx;
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
-import android.util.Base64;
 
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
@@ -18,66 +15,218 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @CapacitorPlugin(name = "InstalledApps")
 public class InstalledAppsPlugin extends Plugin {
 
+    private static final String DELIVERY_BASE64 = "base64";
+    private static final String DELIVERY_URL = "url";
+    private static final String DELIVERY_ATLAS = "atlas";
+
+    private static final class IconOptions {
+        final int size;
+        final String format;
+        final String delivery;
+
+        IconOptions(int size, String format, String delivery) {
+            this.size = size;
+            this.format = format;
+            this.delivery = delivery;
+        }
+
+        static IconOptions from(PluginCall call) {
+            String delivery = call.getString("iconDelivery", DELIVERY_BASE64);
+            if (!DELIVERY_URL.equals(delivery) && !DELIVERY_ATLAS.equals(delivery)) {
+                delivery = DELIVERY_BASE64;
+            }
+            return new IconOptions(
+                Math.max(1, call.getInt("iconSize", 96)),
+                IconRenderer.normalizeFormat(call.getString("iconFormat", IconRenderer.FORMAT_PNG)),
+                delivery
+            );
+        }
+    }
+
+    private final ExecutorService appLoader = Executors.newSingleThreadExecutor();
+    private final AppWorkPool workPool = new AppWorkPool(Runtime.getRuntime().availableProcessors());
+    private final Set<AtomicBoolean> activeLoads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final IconRenderer iconRenderer = new IconRenderer();
+    private IconCache iconCache;
+    private InstalledAppIndex appIndex;
+    private InstalledAppIndex.Listener packageListener;
+    private BackgroundTrimmer trimmer;
+    private LaunchWarmCache warmCache;
+    private LaunchLatencyTracker launchTracker;
+    private LaunchLatencyTracker.Listener launchListener;
+
+    @Override
+    public void load() {
+        iconCache = IconCache.get(getContext());
+        appIndex = InstalledAppIndex.get(getContext());
+        trimmer = new BackgroundTrimmer(getContext());
+        warmCache = LaunchWarmCache.get(getContext());
+
+        // Measured by the overlay service's detector, so only while it runs
+        launchTracker = LaunchLatencyTracker.get(getContext());
+        launchListener = (packageName, latencyMs, stats) -> {
+            JSObject event = toJson(stats);
+            event.put("latencyMs", latencyMs);
+            notifyListeners("launchMeasured", event);
+        };
+        launchTracker.addListener(launchListener);
+
+        // The index owns the package broadcasts; drop cached icons when it sees a change
+        packageListener = packageName -> iconCache.invalidate(packageName);
+        appIndex.addListener(packageListener);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        cancelLoads();
+        appLoader.shutdownNow();
+        workPool.shutdown();
+        appIndex.removeListener(packageListener);
+        launchTracker.removeListener(launchListener);
+    }
+
     @PluginMethod
     public void getInstalledApps(PluginCall call) {
         boolean includeSystemApps = call.getBoolean("includeSystemApps", false);
         boolean includeIcons = call.getBoolean("includeIcons", true);
-        int iconSize = call.getInt("iconSize", 96);
-        
-        Context context = getContext();
-        PackageManager pm = context.getPackageManager();
-        
-        // Get all launchable apps
-        Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
-        mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+        IconOptions iconOptions = IconOptions.from(call);
+        if (includeIcons) {
+            warmCache.setIconSpec(iconOptions.size, iconOptions.format);
+        }
+        int offset = Math.max(0, call.getInt("offset", 0));
+        int limit = call.getInt("limit", -1);
+        int parallelism = call.getInt("parallelism", AppWorkPool.defaultParallelism());
         
-        List<ResolveInfo> apps = pm.queryIntentActivities(mainIntent, 0);
+        AtomicBoolean cancelled = beginLoad();
+        appLoader.execute(() -> {
+            try {
+                PackageManager pm = getContext().getPackageManager();
+                appIndex.ensureLoaded(workPool, parallelism);
+                long generation = appIndex.getGeneration();
+                List<InstalledApp> apps = appIndex.snapshot(includeSystemApps);
+                
+                int start = Math.min(offset, apps.size());
+                int end = limit < 0 ? apps.size() : Math.min(apps.size(), start + limit);
+                
+                boolean atlas = includeIcons && DELIVERY_ATLAS.equals(iconOptions.delivery);
+                
+                // Get app icons as base64 or file URLs; atlases are packed after the page
+                AppListBuilder.IconWriter icons = includeIcons && !atlas
+                    ? (target, app) -> putIcon(target, pm, app, iconOptions)
+                    : null;
+                JSObject[] appObjects = AppListBuilder.buildPage(apps, start, end, icons, workPool, parallelism,
+                    cancelled);
+                boolean completed = appObjects != null;
+                
+                JSObject result = new JSObject();
+                if (completed && atlas) {
+                    completed = putAtlas(result, appObjects, apps.subList(start, end), pm, iconOptions,
+                        parallelism, cancelled);
+                }
+                
+                if (!completed) {
+                    call.reject("Cancelled");
+                    return;
+                }
+                
+                AppListBuilder.putPage(result, appObjects, apps.size(), end, generation);
+                call.resolve(result);
+            } catch (InterruptedException e) {
+                call.reject("Cancelled");
+            } catch (Exception e) {
+                call.reject("Error loading installed apps", e);
+            } finally {
+                endLoad(cancelled);
+            }
+        });
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_CALLBACK)
+    public void streamInstalledApps(PluginCall call) {
+        boolean includeSystemApps = call.getBoolean("includeSystemApps", false);
+        boolean includeIcons = call.getBoolean("includeIcons", true);
+        IconOptions iconOptions = IconOptions.from(call);
+        if (includeIcons) {
+            warmCache.setIconSpec(iconOptions.size, iconOptions.format);
+        }
+        int batchSize = Math.max(1, call.getInt("batchSize", 24));
+        int parallelism = call.getInt("parallelism", AppWorkPool.defaultParallelism());
         
-        JSArray appsArray = new JSArray();
+        call.setKeepAlive(true);
         
-        for (ResolveInfo app : apps) {
+        AtomicBoolean cancelled = beginLoad();
+        appLoader.execute(() -> {
             try {
-                ApplicationInfo appInfo = pm.getApplicationInfo(app.activityInfo.packageName, 0);
+                PackageManager pm = getContext().getPackageManager();
+                appIndex.ensureLoaded(workPool, parallelism);
+                long generation = appIndex.getGeneration();
+                List<InstalledApp> apps = appIndex.snapshot(includeSystemApps);
+                int total = apps.size();
                 
-                // Skip system apps if not requested
-                if (!includeSystemApps && (appInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0) {
-                    continue;
+                // Metadata first so the list can render before any icon is encoded
+                for (int batchStart = 0; batchStart < total && !cancelled.get(); batchStart += batchSize) {
+                    int batchEnd = Math.min(total, batchStart + batchSize);
+                    JSObject[] batch = new JSObject[batchEnd - batchStart];
+                    for (int i = batchStart; i < batchEnd; i++) {
+                        batch[i - batchStart] = AppListBuilder.appObject(apps.get(i));
+                    }
+                    resolveBatch(call, "apps", batch, batchStart, total);
                 }
                 
-                JSObject appObject = new JSObject();
-                appObject.put("packageName", app.activityInfo.packageName);
-                appObject.put("appName", pm.getApplicationLabel(appInfo).toString());
-                appObject.put("isSystemApp", (appInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0);
-                
-                // Get app icon as base64
+                // Icons follow in their own batches
                 if (includeIcons) {
-                    try {
-                        Drawable icon = pm.getApplicationIcon(appInfo);
-                        String iconBase64 = drawableToBase64(icon, iconSize);
-                        if (iconBase64 != null) {
-                            appObject.put("icon", iconBase64);
+                    for (int batchStart = 0; batchStart < total && !cancelled.get(); batchStart += batchSize) {
+                        int batchEnd = Math.min(total, batchStart + batchSize);
+                        JSObject[] batch = new JSObject[batchEnd - batchStart];
+                        int first = batchStart;
+                        if (!workPool.runAll(batchStart, batchEnd, parallelism, cancelled, i -> {
+                            InstalledApp entry = apps.get(i);
+                            JSObject iconObject = new JSObject();
+                            iconObject.put("packageName", entry.packageName);
+                            putIcon(iconObject, pm, entry, iconOptions);
+                            batch[i - first] = iconObject;
+                        })) {
+                            break;
                         }
-                    } catch (Exception e) {
-                        // Icon not available
+                        resolveBatch(call, "icons", batch, batchStart, total);
                     }
                 }
                 
-                appsArray.put(appObject);
-            } catch (PackageManager.NameNotFoundException e) {
-                // Skip apps that can't be found
+                JSObject done = new JSObject();
+                done.put("type", cancelled.get() ? "cancelled" : "done");
+                done.put("total", total);
+                done.put("generation", generation);
+                call.resolve(done);
+            } catch (InterruptedException e) {
+                JSObject done = new JSObject();
+                done.put("type", "cancelled");
+                call.resolve(done);
+            } catch (Exception e) {
+                call.reject("Error streaming installed apps", e);
+            } finally {
+                endLoad(cancelled);
+                getBridge().releaseCall(call);
             }
-        }
-        
-        JSObject result = new JSObject();
-        result.put("apps", appsArray);
-        result.put("count", appsArray.length());
-        call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void cancelInstalledApps(PluginCall call) {
+        cancelLoads();
+        call.resolve();
     }
 
     @PluginMethod
@@ -90,12 +239,13 @@ public class InstalledAppsPlugin extends Plugin {
         }
         
         Context context = getContext();
-        PackageManager pm = context.getPackageManager();
         
         try {
-            Intent launchIntent = pm.getLaunchIntentForPackage(packageName);
+            // Usually warmed ahead of time by the overlay service's launch predictor
+            Intent launchIntent = warmCache.getOrResolve(packageName).newLaunchIntent();
             if (launchIntent != null) {
                 launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                launchTracker.onLaunchRequested(packageName, System.currentTimeMillis());
                 context.startActivity(launchIntent);
                 
                 JSObject result = new JSObject();
@@ -110,10 +260,38 @@ public class InstalledAppsPlugin extends Plugin {
         }
     }
 
+    // Launch latency percentiles per package, slowest median first
+    @PluginMethod
+    public void getLaunchStats(PluginCall call) {
+        String packageName = call.getString("packageName");
+        JSArray appsArray = new JSArray();
+        if (packageName != null) {
+            LaunchLatencyTracker.Stats stats = launchTracker.getStats(packageName);
+            if (stats != null) {
+                appsArray.put(toJson(stats));
+            }
+        } else {
+            for (LaunchLatencyTracker.Stats stats : launchTracker.getAllStats()) {
+                appsArray.put(toJson(stats));
+            }
+        }
+        
+        JSObject result = new JSObject();
+        result.put("apps", appsArray);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clearLaunchStats(PluginCall call) {
+        launchTracker.clear();
+        call.resolve();
+    }
+
     @PluginMethod
     public void getAppIcon(PluginCall call) {
         String packageName = call.getString("packageName");
-        int iconSize = call.getInt("iconSize", 96);
+        IconOptions iconOptions = IconOptions.from(call);
+        warmCache.setIconSpec(iconOptions.size, iconOptions.format);
         
         if (packageName == null || packageName.isEmpty()) {
             call.reject("Package name is required");
@@ -124,14 +302,17 @@ public class InstalledAppsPlugin extends Plugin {
         PackageManager pm = context.getPackageManager();
         
         try {
-            ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-            Drawable icon = pm.getApplicationIcon(appInfo);
-            String iconBase64 = drawableToBase64(icon, iconSize);
+            InstalledApp entry = appIndex.getEntry(packageName);
+            if (entry == null) {
+                // Not indexed yet (or not launchable); key the icon from PackageInfo
+                PackageInfo packageInfo = pm.getPackageInfo(packageName, 0);
+                entry = new InstalledApp(packageName, packageName, 0, -1,
+                    InstalledAppIndex.getVersionCode(packageInfo), packageInfo.lastUpdateTime);
+            }
+            JSObject result = new JSObject();
+            result.put("packageName", packageName);
             
-            if (iconBase64 != null) {
-                JSObject result = new JSObject();
-                result.put("icon", iconBase64);
-                result.put("packageName", packageName);
+            if (putIcon(result, pm, entry, iconOptions)) {
                 call.resolve(result);
             } else {
                 call.reject("Could not get app icon");
@@ -141,36 +322,375 @@ public class InstalledAppsPlugin extends Plugin {
         }
     }
 
-    private String drawableToBase64(Drawable drawable, int size) {
+    @PluginMethod
+    public void getIconCacheStats(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("memoryHits", iconCache.getMemoryHits());
+        result.put("diskHits", iconCache.getDiskHits());
+        result.put("misses", iconCache.getMisses());
+        result.put("memoryBytes", iconCache.getMemorySize());
+        result.put("memoryMaxBytes", iconCache.getMemoryMaxSize());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clearIconCache(PluginCall call) {
+        iconCache.clear();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getAppChanges(PluginCall call) {
+        Long sinceGeneration = call.getLong("sinceGeneration");
+        if (sinceGeneration == null) {
+            call.reject("sinceGeneration is required");
+            return;
+        }
+        boolean includeSystemApps = call.getBoolean("includeSystemApps", false);
+        boolean includeIcons = call.getBoolean("includeIcons", false);
+        IconOptions iconOptions = IconOptions.from(call);
+        
+        appLoader.execute(() -> {
+            try {
+                appIndex.ensureLoaded(workPool, AppWorkPool.defaultParallelism());
+                InstalledAppIndex.Changes changes = appIndex.getChangesSince(sinceGeneration);
+                PackageManager pm = getContext().getPackageManager();
+                
+                JSArray changesArray = new JSArray();
+                for (InstalledAppIndex.Change change : changes.changes) {
+                    InstalledApp entry = appIndex.getEntry(change.packageName);
+                    JSObject changeObject = new JSObject();
+                    changeObject.put("packageName", change.packageName);
+                    
+                    // Apps filtered out for this caller read as removed
+                    if (entry == null || (!includeSystemApps && entry.isSystemApp())) {
+                        changeObject.put("type", "removed");
+                    } else {
+                        changeObject.put("type", change.type == InstalledAppIndex.CHANGE_ADDED ? "added" : "updated");
+                        JSObject appObject = AppListBuilder.appObject(entry);
+                        if (includeIcons) {
+                            putIcon(appObject, pm, entry, iconOptions);
+                        }
+                        changeObject.put("app", appObject);
+                    }
+                    changesArray.put(changeObject);
+                }
+                
+                JSObject result = new JSObject();
+                result.put("generation", changes.generation);
+                result.put("reset", changes.reset);
+                result.put("changes", changesArray);
+                call.resolve(result);
+            } catch (InterruptedException e) {
+                call.reject("Cancelled");
+            } catch (Exception e) {
+                call.reject("Error loading app changes", e);
+            }
+        });
+    }
+
+    // Paged type-ahead search over the app index, so the web UI never needs the
+    // full list to filter. Answered on the calling thread once the index is
+    // loaded and no icons are wanted; otherwise queued behind other loads.
+    @PluginMethod
+    public void searchApps(PluginCall call) {
+        String query = call.getString("query", "");
+        String category = call.getString("category", "all");
+        int categoryFilter = "games".equals(category) ? AppSearchIndex.CATEGORY_GAMES
+            : "nonGames".equals(category) ? AppSearchIndex.CATEGORY_NON_GAMES
+            : AppSearchIndex.CATEGORY_ALL;
+        String sort = call.getString("sort", "relevance");
+        int sortOrder = "name".equals(sort) ? AppSearchIndex.SORT_NAME
+            : "recent".equals(sort) ? AppSearchIndex.SORT_RECENT
+            : AppSearchIndex.SORT_RELEVANCE;
+        boolean includeSystemApps = call.getBoolean("includeSystemApps", false);
+        boolean includeIcons = call.getBoolean("includeIcons", false);
+        IconOptions iconOptions = IconOptions.from(call);
+        int offset = Math.max(0, call.getInt("offset", 0));
+        int limit = call.getInt("limit", 50);
+        
+        Runnable search = () -> {
+            try {
+                appIndex.ensureLoaded(workPool, AppWorkPool.defaultParallelism());
+                long generation = appIndex.getGeneration();
+                AppSearchIndex.Page<InstalledApp> page = appIndex.getSearchIndex()
+                    .search(query, categoryFilter, includeSystemApps, sortOrder, offset, limit);
+                PackageManager pm = getContext().getPackageManager();
+                
+                JSArray appsArray = new JSArray();
+                for (InstalledApp entry : page.items) {
+                    JSObject appObject = AppListBuilder.appObject(entry);
+                    if (includeIcons) {
+                        putIcon(appObject, pm, entry, iconOptions);
+                    }
+                    appsArray.put(appObject);
+                }
+                
+                JSObject result = new JSObject();
+                result.put("apps", appsArray);
+                result.put("count", appsArray.length());
+                result.put("total", page.total);
+                result.put("nextOffset", page.nextOffset);
+                result.put("generation", generation);
+                call.resolve(result);
+            } catch (InterruptedException e) {
+                call.reject("Cancelled");
+            } catch (Exception e) {
+                call.reject("Error searching apps", e);
+            }
+        };
+        
+        if (appIndex.isLoaded() && !includeIcons) {
+            search.run();
+        } else {
+            appLoader.execute(search);
+        }
+    }
+
+    // Kills the cached processes of background user apps, largest first.
+    // Monitored games, this app and the launcher are never touched.
+    @PluginMethod
+    public void trimBackgroundApps(PluginCall call) {
+        int maxApps = Math.max(0, call.getInt("maxApps", BackgroundTrimmer.DEFAULT_MAX_APPS));
+        int batchSize = Math.max(1, call.getInt("batchSize", BackgroundTrimmer.DEFAULT_BATCH_SIZE));
+        boolean dryRun = call.getBoolean("dryRun", false);
+        Set<String> exclude = new HashSet<>();
+        JSArray excludeArray = call.getArray("exclude");
+        if (excludeArray != null) {
+            for (int i = 0; i < excludeArray.length(); i++) {
+                String packageName = excludeArray.optString(i);
+                if (!packageName.isEmpty()) exclude.add(packageName);
+            }
+        }
+        
+        AtomicBoolean cancelled = beginLoad();
+        appLoader.execute(() -> {
+            try {
+                appIndex.ensureLoaded(workPool, AppWorkPool.defaultParallelism());
+                Set<String> monitored = OverlayConfigStore.get(getContext()).getConfig().monitoredPackages;
+                List<BackgroundTrimmer.Candidate> candidates =
+                    trimmer.rank(appIndex.snapshot(false), monitored, exclude, maxApps);
+                BackgroundTrimmer.Result trimmed = dryRun
+                    ? trimmer.dryRun(candidates)
+                    : trimmer.trim(candidates, batchSize, workPool, cancelled);
+                
+                JSArray appsArray = new JSArray();
+                long attributedKb = 0;
+                for (BackgroundTrimmer.Candidate candidate : trimmed.apps) {
+                    JSObject appObject = new JSObject();
+                    appObject.put("packageName", candidate.packageName);
+                    appObject.put("appName", candidate.label);
+                    appObject.put("lastUsed", candidate.lastUsed);
+                    appObject.put("score", candidate.score);
+                    appObject.put("reclaimedKb", candidate.getReclaimedKb());
+                    appObject.put("estimated", candidate.isEstimated());
+                    appsArray.put(appObject);
+                    attributedKb += candidate.getReclaimedKb();
+                }
+                
+                JSObject result = new JSObject();
+                result.put("apps", appsArray);
+                result.put("reclaimedKb", trimmed.getReclaimedKb());
+                result.put("attributedKb", attributedKb);
+                result.put("availableBeforeKb", trimmed.availableBeforeKb);
+                result.put("availableAfterKb", trimmed.availableAfterKb);
+                result.put("dryRun", trimmed.dryRun);
+                result.put("cancelled", cancelled.get());
+                call.resolve(result);
+            } catch (InterruptedException e) {
+                call.reject("Cancelled");
+            } catch (Exception e) {
+                call.reject("Error trimming background apps", e);
+            } finally {
+                endLoad(cancelled);
+            }
+        });
+    }
+
+    private boolean putIcon(JSObject target, PackageManager pm, InstalledApp entry, IconOptions options) {
         try {
-            Bitmap bitmap;
-            
-            if (drawable instanceof BitmapDrawable) {
-                bitmap = ((BitmapDrawable) drawable).getBitmap();
+            IconCache.Key key = iconKey(entry, options);
+            if (DELIVERY_BASE64.equals(options.delivery)) {
+                byte[] data = loadIconBytes(pm, key);
+                if (data == null) return false;
+                AppListBuilder.putBase64Icon(target, data, options.format);
             } else {
-                bitmap = Bitmap.createBitmap(
-                    drawable.getIntrinsicWidth() > 0 ? drawable.getIntrinsicWidth() : size,
-                    drawable.getIntrinsicHeight() > 0 ? drawable.getIntrinsicHeight() : size,
-                    Bitmap.Config.ARGB_8888
-                );
-                Canvas canvas = new Canvas(bitmap);
-                drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-                drawable.draw(canvas);
+                // Atlas delivery is only available on getInstalledApps; elsewhere use plain files
+                File file = loadIconFile(pm, key);
+                if (file == null) return false;
+                target.put("iconUrl", toWebUrl(file));
+                target.put("iconMimeType", IconRenderer.mimeType(options.format));
             }
-            
-            // Scale bitmap to desired size
-            if (bitmap.getWidth() != size || bitmap.getHeight() != size) {
-                bitmap = Bitmap.createScaledBitmap(bitmap, size, size, true);
+            return true;
+        } catch (Exception e) {
+            // Icon not available
+            return false;
+        }
+    }
+
+    // Packs every icon of the page into atlas images and gives each app its cell
+    private boolean putAtlas(JSObject result, JSObject[] appObjects, List<InstalledApp> apps,
+            PackageManager pm, IconOptions options, int parallelism, AtomicBoolean cancelled)
+            throws InterruptedException {
+        int size = options.size;
+        IconAtlas layout = new IconAtlas(size, apps.size());
+        
+        // The atlas name is derived from every icon key, so any app change yields a new atlas
+        IconCache.Key[] keys = new IconCache.Key[apps.size()];
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = iconKey(apps.get(i), options);
+            signature.append(keys[i].memoryKey()).append(';');
+        }
+        String atlasId = Integer.toHexString(signature.toString().hashCode()) + "_" + apps.size() + "_" + size;
+        File atlasDir = iconCache.getAtlasDir();
+        
+        JSArray atlases = new JSArray();
+        for (int page = 0; page < layout.getPageCount(); page++) {
+            File file = new File(atlasDir, atlasId + "_" + page + "." + options.format);
+            if (!file.isFile()) {
+                if (!renderAtlasPage(file, layout, page, keys, pm, options, parallelism, cancelled)) {
+                    return false;
+                }
             }
             
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.PNG, 90, byteArrayOutputStream);
-            byte[] byteArray = byteArrayOutputStream.toByteArray();
-            
-            return Base64.encodeToString(byteArray, Base64.NO_WRAP);
-        } catch (Exception e) {
-            e.printStackTrace();
+            JSObject atlas = new JSObject();
+            atlas.put("url", toWebUrl(file));
+            atlas.put("width", layout.getPageWidth(page));
+            atlas.put("height", layout.getPageHeight(page));
+            atlases.put(atlas);
+        }
+        
+        for (int i = 0; i < apps.size(); i++) {
+            JSObject cell = new JSObject();
+            cell.put("page", layout.getPage(i));
+            cell.put("x", layout.getX(i));
+            cell.put("y", layout.getY(i));
+            cell.put("size", size);
+            appObjects[i].put("iconAtlas", cell);
+        }
+        
+        result.put("atlases", atlases);
+        result.put("iconMimeType", IconRenderer.mimeType(options.format));
+        return true;
+    }
+
+    private boolean renderAtlasPage(File file, IconAtlas layout, int page, IconCache.Key[] keys,
+            PackageManager pm, IconOptions options, int parallelism, AtomicBoolean cancelled)
+            throws InterruptedException {
+        int pageStart = layout.getPageStart(page);
+        int pageEnd = layout.getPageEnd(page);
+        
+        // Loading drawables is the slow part and can run in parallel; drawing into
+        // the shared canvas cannot
+        Drawable[] drawables = new Drawable[pageEnd - pageStart];
+        if (!workPool.runAll(pageStart, pageEnd, parallelism, cancelled, i -> {
+            drawables[i - pageStart] = loadDrawable(pm, keys[i].packageName);
+        })) {
+            return false;
+        }
+        
+        Bitmap bitmap = Bitmap.createBitmap(layout.getPageWidth(page), layout.getPageHeight(page),
+            Bitmap.Config.ARGB_8888);
+        try {
+            Canvas canvas = new Canvas(bitmap);
+            for (int i = pageStart; i < pageEnd; i++) {
+                Drawable drawable = drawables[i - pageStart];
+                if (drawable != null) {
+                    iconRenderer.drawInto(drawable, canvas, layout.getX(i), layout.getY(i), options.size);
+                }
+            }
+            return IconCache.writeFile(file, iconRenderer.compress(bitmap, options.format));
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private String toWebUrl(File file) {
+        // Same mapping as Capacitor.convertFileSrc on the JS side
+        return getBridge().getLocalUrl() + "/_capacitor_file_" + file.getAbsolutePath();
+    }
+
+    private AtomicBoolean beginLoad() {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        activeLoads.add(cancelled);
+        return cancelled;
+    }
+
+    private void endLoad(AtomicBoolean cancelled) {
+        activeLoads.remove(cancelled);
+        // Pooled icon bitmaps are only worth keeping while a load is running
+        if (activeLoads.isEmpty()) {
+            IconRenderer.trimPool();
+        }
+    }
+
+    private void cancelLoads() {
+        for (AtomicBoolean cancelled : activeLoads) {
+            cancelled.set(true);
+        }
+    }
+
+    private static JSObject toJson(LaunchLatencyTracker.Stats stats) {
+        JSObject json = new JSObject();
+        json.put("packageName", stats.packageName);
+        json.put("count", stats.count);
+        json.put("p50", stats.p50);
+        json.put("p90", stats.p90);
+        json.put("max", stats.max);
+        json.put("lastMs", stats.lastMs);
+        json.put("lastAt", stats.lastAt);
+        return json;
+    }
+
+    private static void resolveBatch(PluginCall call, String type, JSObject[] batch, int offset, int total) {
+        JSArray items = new JSArray();
+        for (JSObject item : batch) {
+            items.put(item);
+        }
+        
+        JSObject result = new JSObject();
+        result.put("type", type);
+        result.put(type, items);
+        result.put("offset", offset);
+        result.put("total", total);
+        call.resolve(result);
+    }
+
+    private static IconCache.Key iconKey(InstalledApp entry, IconOptions options) {
+        return new IconCache.Key(entry.packageName, entry.versionCode, entry.lastUpdateTime,
+            options.size, options.format);
+    }
+
+    private static Drawable loadDrawable(PackageManager pm, String packageName) {
+        try {
+            return pm.getApplicationIcon(packageName);
+        } catch (PackageManager.NameNotFoundException e) {
             return null;
         }
     }
+
+    private byte[] loadIconBytes(PackageManager pm, IconCache.Key key) {
+        byte[] data = iconCache.get(key);
+        if (data == null) {
+            Drawable drawable = loadDrawable(pm, key.packageName);
+            data = drawable != null ? iconRenderer.encode(drawable, key.size, key.extension) : null;
+            if (data != null) {
+                iconCache.put(key, data);
+            }
+        }
+        return data;
+    }
+
+    private File loadIconFile(PackageManager pm, IconCache.Key key) {
+        File file = iconCache.getFile(key);
+        if (file == null) {
+            Drawable drawable = loadDrawable(pm, key.packageName);
+            byte[] data = drawable != null ? iconRenderer.encode(drawable, key.size, key.extension) : null;
+            if (data != null) {
+                file = iconCache.putFile(key, data);
+            }
+        }
+        return file;
+    }
 }
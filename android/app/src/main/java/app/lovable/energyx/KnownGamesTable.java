@@ -0,0 +1,134 @@
+package app.lovable.energyx;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Lookup table of known game packages and game-only publisher prefixes,
+// bundled as assets/known_games.bin. Only 64-bit hashes of the names are
+// stored, sorted, so the file is 8 bytes per name and is searched in place
+// from a memory-mapped buffer without being parsed:
+//
+//   int magic "EXKG", int version, int packageCount, int publisherCount,
+//   long[packageCount] package hashes, long[publisherCount] publisher hashes
+//
+// A publisher "com.supercell" matches every package below it. The file is
+// produced from a plain-text list by build(); see tools/KnownGamesCompiler.
+public final class KnownGamesTable {
+
+    public static final int MATCH_NONE = 0;
+    public static final int MATCH_PUBLISHER = 1;
+    public static final int MATCH_PACKAGE = 2;
+
+    static final int FILE_MAGIC = 0x45584b47; // "EXKG"
+    static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    public static final KnownGamesTable EMPTY = new KnownGamesTable(ByteBuffer.allocate(0), 0, 0);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ByteBuffer buffer;
+    private final int packageCount;
+    private final int publisherCount;
+
+    private KnownGamesTable(ByteBuffer buffer, int packageCount, int publisherCount) {
+        this.buffer = buffer;
+        this.packageCount = packageCount;
+        this.publisherCount = publisherCount;
+    }
+
+    // The buffer is used in place and must not change afterwards. Returns
+    // EMPTY when it does not hold a table of this version.
+    public static KnownGamesTable wrap(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES) return EMPTY;
+        if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FILE_VERSION) return EMPTY;
+        int packageCount = buffer.getInt(8);
+        int publisherCount = buffer.getInt(12);
+        if (packageCount < 0 || publisherCount < 0
+                || HEADER_BYTES + 8L * (packageCount + (long) publisherCount) > buffer.capacity()) {
+            return EMPTY;
+        }
+        return new KnownGamesTable(buffer, packageCount, publisherCount);
+    }
+
+    public int getPackageCount() {
+        return packageCount;
+    }
+
+    public int getPublisherCount() {
+        return publisherCount;
+    }
+
+    // Allocation-free: FNV-1a is computed left to right, so the hash of
+    // every dot-separated prefix is available on the way to the full name
+    public int match(String packageName) {
+        long hash = FNV_OFFSET;
+        boolean publisher = false;
+        for (int i = 0; i < packageName.length(); i++) {
+            char c = packageName.charAt(i);
+            if (c == '.' && !publisher && publisherCount > 0) {
+                publisher = contains(HEADER_BYTES + 8 * packageCount, publisherCount, hash);
+            }
+            hash = (hash ^ c) * FNV_PRIME;
+        }
+        if (packageCount > 0 && contains(HEADER_BYTES, packageCount, hash)) return MATCH_PACKAGE;
+        return publisher ? MATCH_PUBLISHER : MATCH_NONE;
+    }
+
+    // Absolute reads only, so one table can be searched from several threads
+    private boolean contains(int offset, int count, long hash) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = buffer.getLong(offset + 8 * middle);
+            if (value < hash) {
+                low = middle + 1;
+            } else if (value > hash) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long hash(String name) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static byte[] build(Collection<String> packages, Collection<String> publishers) {
+        List<Long> packageHashes = sortedHashes(packages);
+        List<Long> publisherHashes = sortedHashes(publishers);
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 8 * (packageHashes.size() + publisherHashes.size()));
+        out.putInt(FILE_MAGIC);
+        out.putInt(FILE_VERSION);
+        out.putInt(packageHashes.size());
+        out.putInt(publisherHashes.size());
+        for (long hash : packageHashes) {
+            out.putLong(hash);
+        }
+        for (long hash : publisherHashes) {
+            out.putLong(hash);
+        }
+        return out.array();
+    }
+
+    private static List<Long> sortedHashes(Collection<String> names) {
+        List<Long> hashes = new ArrayList<>(names.size());
+        for (String name : names) {
+            long hash = hash(name);
+            if (!hashes.contains(hash)) hashes.add(hash);
+        }
+        Collections.sort(hashes);
+        return hashes;
+    }
+}
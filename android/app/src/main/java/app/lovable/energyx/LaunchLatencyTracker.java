@@ -0,0 +1,263 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Measures how long apps take to come to the front after launchApp: from the
+// launch request to the MOVE_TO_FOREGROUND event the overlay service's
+// detector sees for that package, both in wall-clock time. The last
+// SAMPLES_PER_PACKAGE latencies of each package are kept for exact
+// percentiles and saved to launch_latency.bin on their own thread.
+public final class LaunchLatencyTracker {
+
+    // A launch not seen in front within this time is dropped
+    static final long MATCH_TIMEOUT_MS = 30_000;
+    static final int SAMPLES_PER_PACKAGE = 64;
+    static final int MAX_PACKAGES = 256;
+
+    private static final String FILE_NAME = "launch_latency.bin";
+    private static final int FILE_MAGIC = 0x45584c4c; // "EXLL"
+    private static final int FILE_VERSION = 1;
+
+    public static final class Stats {
+        public final String packageName;
+        public final long count;
+        public final int p50;
+        public final int p90;
+        public final int max;
+        public final int lastMs;
+        public final long lastAt;
+
+        Stats(String packageName, long count, int p50, int p90, int max, int lastMs, long lastAt) {
+            this.packageName = packageName;
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.max = max;
+            this.lastMs = lastMs;
+            this.lastAt = lastAt;
+        }
+    }
+
+    public interface Listener {
+        // Called on the thread that reported the foreground change
+        void onLaunchMeasured(String packageName, long latencyMs, Stats stats);
+    }
+
+    // Ring of the most recent latencies, in ms
+    private static final class Samples {
+        final int[] values = new int[SAMPLES_PER_PACKAGE];
+        int size;
+        int next;
+        long count;
+        int lastMs;
+        long lastAt;
+
+        void add(int value, long at) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            size = Math.min(size + 1, values.length);
+            count++;
+            lastMs = value;
+            lastAt = at;
+        }
+    }
+
+    private static LaunchLatencyTracker instance;
+
+    private final Handler handler;
+    private final AtomicFile file;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Both guarded by this
+    private final Map<String, Long> pending = new HashMap<>();
+    private final Map<String, Samples> samples = new HashMap<>();
+
+    private final Runnable writeRunnable = this::writeFile;
+
+    private LaunchLatencyTracker(Context context) {
+        HandlerThread thread = new HandlerThread("EnergyXLaunches", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        readFile();
+    }
+
+    public static synchronized LaunchLatencyTracker get(Context context) {
+        if (instance == null) {
+            instance = new LaunchLatencyTracker(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void onLaunchRequested(String packageName, long now) {
+        Iterator<Map.Entry<String, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getValue() > MATCH_TIMEOUT_MS) iterator.remove();
+        }
+        pending.put(packageName, now);
+    }
+
+    // Fed by the foreground detector with the event's own timestamp
+    public void onForeground(String packageName, long eventTime) {
+        long latencyMs;
+        Stats stats;
+        synchronized (this) {
+            Long requestedAt = pending.get(packageName);
+            // Events from before the request belong to an earlier switch
+            if (requestedAt == null || eventTime < requestedAt) return;
+            pending.remove(packageName);
+            latencyMs = eventTime - requestedAt;
+            if (latencyMs > MATCH_TIMEOUT_MS) return;
+
+            Samples entry = samples.get(packageName);
+            if (entry == null) {
+                if (samples.size() >= MAX_PACKAGES) evictOldest();
+                entry = new Samples();
+                samples.put(packageName, entry);
+            }
+            entry.add((int) latencyMs, eventTime);
+            stats = toStats(packageName, entry);
+        }
+
+        handler.removeCallbacks(writeRunnable);
+        handler.post(writeRunnable);
+        for (Listener listener : listeners) {
+            listener.onLaunchMeasured(packageName, latencyMs, stats);
+        }
+    }
+
+    public synchronized Stats getStats(String packageName) {
+        Samples entry = samples.get(packageName);
+        return entry != null ? toStats(packageName, entry) : null;
+    }
+
+    // Slowest median first
+    public synchronized List<Stats> getAllStats() {
+        List<Stats> all = new ArrayList<>(samples.size());
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            all.add(toStats(entry.getKey(), entry.getValue()));
+        }
+        Collections.sort(all, (a, b) -> Integer.compare(b.p50, a.p50));
+        return all;
+    }
+
+    public synchronized void clear() {
+        samples.clear();
+        handler.post(writeRunnable);
+    }
+
+    private static Stats toStats(String packageName, Samples entry) {
+        int[] sorted = Arrays.copyOf(entry.values, entry.size);
+        Arrays.sort(sorted);
+        return new Stats(packageName, entry.count, percentile(sorted, 50), percentile(sorted, 90),
+            sorted.length > 0 ? sorted[sorted.length - 1] : 0, entry.lastMs, entry.lastAt);
+    }
+
+    // Nearest-rank percentile of a sorted array
+    private static int percentile(int[] sorted, int percentile) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(sorted.length * percentile / 100.0);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private void evictOldest() {
+        String oldest = null;
+        long oldestAt = Long.MAX_VALUE;
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            if (entry.getValue().lastAt < oldestAt) {
+                oldestAt = entry.getValue().lastAt;
+                oldest = entry.getKey();
+            }
+        }
+        samples.remove(oldest);
+    }
+
+    private synchronized void readFile() {
+        if (!file.getBaseFile().isFile()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return;
+
+            int packages = in.readInt();
+            for (int p = 0; p < packages; p++) {
+                String packageName = in.readUTF();
+                Samples entry = new Samples();
+                entry.count = in.readLong();
+                entry.lastMs = in.readInt();
+                entry.lastAt = in.readLong();
+                int size = Math.min(in.readInt(), SAMPLES_PER_PACKAGE);
+                // Stored oldest first, so the ring starts over in order
+                for (int i = 0; i < size; i++) {
+                    entry.values[i] = in.readInt();
+                }
+                entry.size = size;
+                entry.next = size % SAMPLES_PER_PACKAGE;
+                samples.put(packageName, entry);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            samples.clear();
+        }
+    }
+
+    // Handler thread
+    private void writeFile() {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            synchronized (this) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeInt(samples.size());
+                for (Map.Entry<String, Samples> packageEntry : samples.entrySet()) {
+                    Samples entry = packageEntry.getValue();
+                    out.writeUTF(packageEntry.getKey());
+                    out.writeLong(entry.count);
+                    out.writeInt(entry.lastMs);
+                    out.writeLong(entry.lastAt);
+                    out.writeInt(entry.size);
+                    int start = entry.size < SAMPLES_PER_PACKAGE ? 0 : entry.next;
+                    for (int i = 0; i < entry.size; i++) {
+                        out.writeInt(entry.values[(start + i) % SAMPLES_PER_PACKAGE]);
+                    }
+                }
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package app.lovable.energyx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+// Learns when apps are opened from foreground events and predicts which of a
+// set of candidates (the monitored games) is likely to be opened next. Two
+// signals are blended: the hour of the week (local time, +-1 hour) and the
+// app that was in front just before. Counts decay with a one-week half-life
+// using forward decay, so old events never have to be revisited.
+//
+// Free of Android types, so it can be trained and evaluated on a plain JVM
+// from a TraceEventSource; see replay().
+public final class LaunchPredictor implements ForegroundEventSource.EventSink {
+
+    static final int HOURS_PER_WEEK = 7 * 24;
+    static final long HALF_LIFE_MS = 7L * 24 * 60 * 60 * 1000;
+    // Weight given to the previous-app signal when it has data
+    static final double TRANSITION_WEIGHT = 0.5;
+
+    private static final long HOUR_MS = 60 * 60 * 1000;
+    // Thursday 1970-01-01 was weekday 3 counting from Monday
+    private static final int EPOCH_WEEKDAY = 3;
+    // Forward-decay weights are rescaled before they can overflow
+    private static final double RESCALE_LIMIT = 1e150;
+
+    public static final class Prediction {
+        public final String packageName;
+        public final double score;
+
+        Prediction(String packageName, double score) {
+            this.packageName = packageName;
+            this.score = score;
+        }
+    }
+
+    public static final class Evaluation {
+        // Launches of candidates seen after training
+        public final int launches;
+        // Launches that were among the top predictions made just before them
+        public final int hits;
+
+        Evaluation(int launches, int hits) {
+            this.launches = launches;
+            this.hits = hits;
+        }
+
+        public double getHitRate() {
+            return launches > 0 ? (double) hits / launches : 0;
+        }
+    }
+
+    private static final class Stats {
+        final double[] hours = new double[HOURS_PER_WEEK];
+        // Next app -> weight, for launches that followed this app
+        final Map<String, double[]> next = new HashMap<>();
+        double nextTotal;
+    }
+
+    private final TimeZone timeZone;
+    private final Map<String, Stats> stats = new HashMap<>();
+    private final double[] hourTotals = new double[HOURS_PER_WEEK];
+    private long decayOrigin = Long.MIN_VALUE;
+    private double scale = 1;
+    private String lastForeground;
+    private long lastEventTime = Long.MIN_VALUE;
+
+    public LaunchPredictor(TimeZone timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    @Override
+    public void onEvent(int type, String packageName, String className, long timestamp) {
+        if (type != ForegroundEventSource.EVENT_FOREGROUND) return;
+        // Replayed windows may overlap the live stream
+        if (timestamp < lastEventTime) return;
+        lastEventTime = timestamp;
+        if (packageName.equals(lastForeground)) return;
+
+        double weight = weightAt(timestamp);
+        int hour = hourOfWeek(timestamp);
+
+        Stats target = statsFor(packageName);
+        target.hours[hour] += weight;
+        hourTotals[hour] += weight;
+
+        if (lastForeground != null) {
+            Stats previous = statsFor(lastForeground);
+            double[] count = previous.next.get(packageName);
+            if (count == null) {
+                count = new double[1];
+                previous.next.put(packageName, count);
+            }
+            count[0] += weight;
+            previous.nextTotal += weight;
+        }
+        lastForeground = packageName;
+    }
+
+    public String getLastForeground() {
+        return lastForeground;
+    }
+
+    // Feeds every event of [beginTime, endTime) from the source
+    public void train(ForegroundEventSource source, long beginTime, long endTime) {
+        source.readEvents(beginTime, endTime, this);
+    }
+
+    // Up to limit candidates other than the current foreground app, best
+    // first, each scoring at least minScore (0..1)
+    public List<Prediction> predict(long now, Set<String> candidates, int limit, double minScore) {
+        int hour = hourOfWeek(now);
+        int before = (hour + HOURS_PER_WEEK - 1) % HOURS_PER_WEEK;
+        int after = (hour + 1) % HOURS_PER_WEEK;
+        double hourTotal = hourTotals[before] + hourTotals[hour] + hourTotals[after];
+
+        Stats current = lastForeground != null ? stats.get(lastForeground) : null;
+        boolean haveTransitions = current != null && current.nextTotal > 0;
+
+        List<Prediction> predictions = new ArrayList<>();
+        for (String packageName : candidates) {
+            if (packageName.equals(lastForeground)) continue;
+            Stats candidate = stats.get(packageName);
+            if (candidate == null) continue;
+
+            double byHour = hourTotal > 0
+                ? (candidate.hours[before] + candidate.hours[hour] + candidate.hours[after]) / hourTotal
+                : 0;
+            double score = byHour;
+            if (haveTransitions) {
+                double[] count = current.next.get(packageName);
+                double byTransition = count != null ? count[0] / current.nextTotal : 0;
+                score = TRANSITION_WEIGHT * byTransition + (1 - TRANSITION_WEIGHT) * byHour;
+            }
+            if (score >= minScore && score > 0) {
+                predictions.add(new Prediction(packageName, score));
+            }
+        }
+
+        Collections.sort(predictions, (a, b) -> Double.compare(b.score, a.score));
+        return predictions.size() > limit ? new ArrayList<>(predictions.subList(0, limit)) : predictions;
+    }
+
+    // Trains on [beginTime, splitTime), then walks [splitTime, endTime): before
+    // each candidate launch it predicts the top `limit` and counts a hit when
+    // the launched app is among them, then learns from the launch
+    public static Evaluation replay(ForegroundEventSource source, TimeZone timeZone, long beginTime,
+            long splitTime, long endTime, Set<String> candidates, int limit) {
+        LaunchPredictor predictor = new LaunchPredictor(timeZone);
+        predictor.train(source, beginTime, splitTime);
+
+        int[] counts = new int[2];
+        source.readEvents(splitTime, endTime, (type, packageName, className, timestamp) -> {
+            if (type == ForegroundEventSource.EVENT_FOREGROUND && candidates.contains(packageName)
+                    && !packageName.equals(predictor.lastForeground)) {
+                counts[0]++;
+                for (Prediction prediction : predictor.predict(timestamp, candidates, limit, 0)) {
+                    if (prediction.packageName.equals(packageName)) {
+                        counts[1]++;
+                        break;
+                    }
+                }
+            }
+            predictor.onEvent(type, packageName, className, timestamp);
+        });
+        return new Evaluation(counts[0], counts[1]);
+    }
+
+    int hourOfWeek(long timestamp) {
+        // Event times are well after 1970, so plain division rounds correctly
+        long hours = (timestamp + timeZone.getOffset(timestamp)) / HOUR_MS;
+        int weekday = (int) ((hours / 24 + EPOCH_WEEKDAY) % 7);
+        return weekday * 24 + (int) (hours % 24);
+    }
+
+    private Stats statsFor(String packageName) {
+        Stats entry = stats.get(packageName);
+        if (entry == null) {
+            entry = new Stats();
+            stats.put(packageName, entry);
+        }
+        return entry;
+    }
+
+    // 2^((t - origin) / halfLife); only ratios of weights are ever used, so
+    // newer events simply count for more than older ones
+    private double weightAt(long timestamp) {
+        if (decayOrigin == Long.MIN_VALUE) decayOrigin = timestamp;
+        double weight = scale * Math.pow(2, (double) (timestamp - decayOrigin) / HALF_LIFE_MS);
+        if (weight > RESCALE_LIMIT) {
+            rescale(1 / weight);
+            weight = 1;
+        }
+        return weight;
+    }
+
+    private void rescale(double factor) {
+        scale *= factor;
+        for (int i = 0; i < HOURS_PER_WEEK; i++) {
+            hourTotals[i] *= factor;
+        }
+        for (Stats entry : stats.values()) {
+            for (int i = 0; i < HOURS_PER_WEEK; i++) {
+                entry.hours[i] *= factor;
+            }
+            for (double[] count : entry.next.values()) {
+                count[0] *= factor;
+            }
+            entry.nextTotal *= factor;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pre-resolved launch data for apps that are about to be opened: the launch
+// intent used by InstalledAppsPlugin.launchApp, the label shown by the overlay
+// and the app's icon, rendered into the shared on-disk IconCache at the size
+// and format the web UI last asked for. warm() does the PackageManager work on
+// its own thread; get() never touches PackageManager. Entries are dropped
+// when the InstalledAppIndex reports a change to their package. The cap grows
+// with the monitored list, so warming every monitored game never evicts one.
+public final class LaunchWarmCache {
+
+    static final int MIN_ENTRIES = 32;
+    // Room beyond the monitored games for other apps launched from the web UI
+    private static final int EXTRA_ENTRIES = 16;
+    private static final int DEFAULT_ICON_SIZE = 96;
+
+    public static final class Entry {
+        public final String packageName;
+        public final String label;
+        // Null when the package has no launcher activity
+        private final Intent launchIntent;
+
+        Entry(String packageName, String label, Intent launchIntent) {
+            this.packageName = packageName;
+            this.label = label;
+            this.launchIntent = launchIntent;
+        }
+
+        // A fresh copy each time, so callers can add flags
+        public Intent newLaunchIntent() {
+            return launchIntent != null ? new Intent(launchIntent) : null;
+        }
+    }
+
+    private static LaunchWarmCache instance;
+
+    private final Context context;
+    private final Handler handler;
+    private final InstalledAppIndex appIndex;
+    private final IconCache iconCache;
+    private final IconRenderer iconRenderer = new IconRenderer();
+
+    // Access-ordered, so the least recently used entry is evicted first; guarded by this,
+    // as is maxEntries
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private int maxEntries = MIN_ENTRIES;
+    private volatile int iconSize = DEFAULT_ICON_SIZE;
+    private volatile String iconFormat = IconRenderer.FORMAT_PNG;
+
+    private LaunchWarmCache(Context context) {
+        this.context = context;
+        HandlerThread thread = new HandlerThread("EnergyXWarmup", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        iconCache = IconCache.get(context);
+        appIndex = InstalledAppIndex.get(context);
+        appIndex.addListener(this::invalidate);
+        OverlayConfigStore configStore = OverlayConfigStore.get(context);
+        setCapacity(configStore.getConfig().monitoredPackages.size());
+        configStore.addListener(config -> setCapacity(config.monitoredPackages.size()));
+    }
+
+    public static synchronized LaunchWarmCache get(Context context) {
+        if (instance == null) {
+            instance = new LaunchWarmCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // The icon variant worth pre-rendering; set whenever the web UI loads icons
+    public void setIconSpec(int size, String format) {
+        iconSize = size;
+        iconFormat = IconRenderer.normalizeFormat(format);
+    }
+
+    public synchronized Entry get(String packageName) {
+        return entries.get(packageName);
+    }
+
+    // Same as get(), but resolves on the calling thread after a miss
+    public Entry getOrResolve(String packageName) {
+        Entry entry = get(packageName);
+        return entry != null ? entry : resolve(packageName);
+    }
+
+    // Resolves the given packages in the background; already warm ones are
+    // only marked as recently used. Icons are rendered for likely launches
+    // only, since each one costs a rasterization and a file.
+    public void warm(Collection<String> packageNames, boolean withIcons) {
+        for (String packageName : packageNames) {
+            handler.post(() -> {
+                Entry entry;
+                synchronized (this) {
+                    entry = entries.get(packageName);
+                }
+                if (entry == null) {
+                    entry = resolve(packageName);
+                }
+                if (withIcons) {
+                    warmIcon(entry);
+                }
+            });
+        }
+    }
+
+    public synchronized void invalidate(String packageName) {
+        entries.remove(packageName);
+    }
+
+    private synchronized void setCapacity(int monitoredCount) {
+        maxEntries = Math.max(MIN_ENTRIES, monitoredCount + EXTRA_ENTRIES);
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private Entry resolve(String packageName) {
+        PackageManager pm = context.getPackageManager();
+        Intent launchIntent = pm.getLaunchIntentForPackage(packageName);
+
+        // The index already holds labels for launchable apps
+        InstalledApp indexed = appIndex.getEntry(packageName);
+        String label = indexed != null ? indexed.label : loadLabel(pm, packageName);
+
+        Entry entry = new Entry(packageName, label, launchIntent);
+        synchronized (this) {
+            entries.put(packageName, entry);
+        }
+        return entry;
+    }
+
+    private void warmIcon(Entry entry) {
+        PackageManager pm = context.getPackageManager();
+        try {
+            InstalledApp indexed = appIndex.getEntry(entry.packageName);
+            long versionCode;
+            long lastUpdateTime;
+            if (indexed != null) {
+                versionCode = indexed.versionCode;
+                lastUpdateTime = indexed.lastUpdateTime;
+            } else {
+                PackageInfo packageInfo = pm.getPackageInfo(entry.packageName, 0);
+                versionCode = InstalledAppIndex.getVersionCode(packageInfo);
+                lastUpdateTime = packageInfo.lastUpdateTime;
+            }
+
+            IconCache.Key key = new IconCache.Key(entry.packageName, versionCode, lastUpdateTime,
+                iconSize, iconFormat);
+            if (iconCache.getFile(key) != null) return;
+
+            Drawable drawable = pm.getApplicationIcon(entry.packageName);
+            byte[] data = iconRenderer.encode(drawable, key.size, key.extension);
+            if (data != null) {
+                iconCache.putFile(key, data);
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            // Uninstalled since it was predicted
+        }
+    }
+
+    static String loadLabel(PackageManager pm, String packageName) {
+        try {
+            return pm.getApplicationLabel(pm.getApplicationInfo(packageName, 0)).toString();
+        } catch (Exception e) {
+            // Extract name from package
+            String[] parts = packageName.split("\\.");
+            String last = parts[parts.length - 1];
+            return last.substring(0, 1).toUpperCase() + last.substring(1);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package app.lovable.energyx;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Single source of truth for the overlay configuration (monitored games,
+// overlay duration, message, queueing rules and the performance HUD). The
+// monitored games are the list set from the UI plus, when automatic detection
+// is on, the games found by GameClassifier. Readers take an immutable Config snapshot
+// without locking. Updates are applied in memory on the store's own thread,
+// pushed to listeners such as the running overlay service, and written to one
+// small binary file after a short debounce, so a burst of toggles from the UI
+// costs a single write.
+public final class OverlayConfigStore {
+
+    public static final int DEFAULT_DURATION_MS = 2000;
+    // "{app}" is replaced with the detected game's label
+    public static final String DEFAULT_MESSAGE = "{app} Boosted";
+    public static final String APP_PLACEHOLDER = "{app}";
+    public static final long DEFAULT_COOLDOWN_MS = OverlayScheduler.DEFAULT_COOLDOWN_MS;
+
+    private static final String FILE_NAME = "overlay_config.bin";
+    private static final int FILE_MAGIC = 0x45584f43; // "EXOC"
+    private static final int FILE_VERSION = 4;
+    private static final long WRITE_DELAY_MS = 500;
+
+    // Pre-store configuration, migrated once and then removed
+    private static final String LEGACY_PREFS_NAME = "energy_x_prefs";
+    private static final String LEGACY_KEY_PACKAGES = "monitored_packages";
+    private static final String LEGACY_KEY_DURATION = "overlay_duration";
+    private static final String LEGACY_KEY_MESSAGE = "overlay_message";
+
+    public static final class Config {
+        // The union of the two lists below, or only the UI's list when detection is off
+        public final Set<String> monitoredPackages;
+        // Set from the UI
+        public final Set<String> selectedPackages;
+        // Found by GameClassifier; kept while detection is off so it can be turned back on at once
+        public final Set<String> detectedPackages;
+        public final boolean autoDetectGames;
+        public final int durationMs;
+        public final String message;
+        // One of OverlayScheduler.MODE_*
+        public final int queueMode;
+        public final long cooldownMs;
+        // Keep a performance HUD over monitored games while they are in front
+        public final boolean hudEnabled;
+
+        Config(Set<String> selectedPackages, Set<String> detectedPackages, boolean autoDetectGames,
+                int durationMs, String message, int queueMode, long cooldownMs, boolean hudEnabled) {
+            this.selectedPackages = selectedPackages;
+            this.detectedPackages = detectedPackages;
+            this.autoDetectGames = autoDetectGames;
+            this.monitoredPackages = autoDetectGames ? union(selectedPackages, detectedPackages) : selectedPackages;
+            this.durationMs = durationMs;
+            this.message = message;
+            this.queueMode = queueMode;
+            this.cooldownMs = cooldownMs;
+            this.hudEnabled = hudEnabled;
+        }
+
+        public String formatMessage(String appName) {
+            return message.replace(APP_PLACEHOLDER, appName);
+        }
+
+        private static Set<String> union(Set<String> first, Set<String> second) {
+            if (second.isEmpty()) return first;
+            if (first.isEmpty()) return second;
+            List<String> packages = new ArrayList<>(first.size() + second.size());
+            packages.addAll(first);
+            packages.addAll(second);
+            return packageSet(packages);
+        }
+    }
+
+    public interface Listener {
+        void onConfigChanged(Config config);
+    }
+
+    private static OverlayConfigStore instance;
+
+    private final Context context;
+    private final AtomicFile file;
+    private final Handler handler;
+    private final AtomicReference<Config> current = new AtomicReference<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Only touched on the store thread
+    private boolean writePending;
+
+    private final Runnable writeRunnable = () -> {
+        writePending = false;
+        writeFile();
+    };
+
+    private OverlayConfigStore(Context context) {
+        this.context = context;
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+
+        HandlerThread thread = new HandlerThread("EnergyXConfig", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        Config config = readFile();
+        if (config == null) {
+            config = migrateLegacyPrefs();
+        }
+        current.set(config);
+    }
+
+    public static synchronized OverlayConfigStore get(Context context) {
+        if (instance == null) {
+            instance = new OverlayConfigStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public Config getConfig() {
+        return current.get();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // The set is built on the store thread; onApplied (may be null) runs
+    // there once the new list is live
+    public void setMonitoredPackages(List<String> packages, Runnable onApplied) {
+        List<String> copy = new ArrayList<>(packages);
+        handler.post(() -> {
+            Config config = current.get();
+            apply(new Config(packageSet(copy), config.detectedPackages, config.autoDetectGames,
+                config.durationMs, config.message, config.queueMode, config.cooldownMs, config.hudEnabled),
+                onApplied);
+        });
+    }
+
+    public void setOverlay(int durationMs, String message, int queueMode, long cooldownMs, Runnable onApplied) {
+        String resolvedMessage = message == null || message.isEmpty() ? DEFAULT_MESSAGE : message;
+        int resolvedDuration = durationMs > 0 ? durationMs : DEFAULT_DURATION_MS;
+        long resolvedCooldown = Math.max(0, cooldownMs);
+        handler.post(() -> {
+            Config config = current.get();
+            apply(new Config(config.selectedPackages, config.detectedPackages, config.autoDetectGames,
+                resolvedDuration, resolvedMessage, queueMode, resolvedCooldown, config.hudEnabled), onApplied);
+        });
+    }
+
+    public void setHudEnabled(boolean hudEnabled, Runnable onApplied) {
+        handler.post(() -> {
+            Config config = current.get();
+            apply(new Config(config.selectedPackages, config.detectedPackages, config.autoDetectGames,
+                config.durationMs, config.message, config.queueMode, config.cooldownMs, hudEnabled), onApplied);
+        });
+    }
+
+    public void setAutoDetectGames(boolean autoDetectGames, Runnable onApplied) {
+        handler.post(() -> {
+            Config config = current.get();
+            apply(new Config(config.selectedPackages, config.detectedPackages, autoDetectGames,
+                config.durationMs, config.message, config.queueMode, config.cooldownMs, config.hudEnabled),
+                onApplied);
+        });
+    }
+
+    // Called by GameClassifier; listeners are only told when the list changed
+    public void setDetectedPackages(List<String> packages) {
+        List<String> copy = new ArrayList<>(packages);
+        handler.post(() -> {
+            Config config = current.get();
+            if (sameNames(config.detectedPackages, copy)) return;
+            apply(new Config(config.selectedPackages, packageSet(copy), config.autoDetectGames,
+                config.durationMs, config.message, config.queueMode, config.cooldownMs, config.hudEnabled),
+                null);
+        });
+    }
+
+    // Writes any pending change now instead of waiting for the debounce
+    public void flush() {
+        handler.post(() -> {
+            if (writePending) {
+                handler.removeCallbacks(writeRunnable);
+                writeRunnable.run();
+            }
+        });
+    }
+
+    private void apply(Config config, Runnable onApplied) {
+        current.set(config);
+        for (Listener listener : listeners) {
+            listener.onConfigChanged(config);
+        }
+
+        handler.removeCallbacks(writeRunnable);
+        handler.postDelayed(writeRunnable, WRITE_DELAY_MS);
+        writePending = true;
+
+        if (onApplied != null) {
+            onApplied.run();
+        }
+    }
+
+    private static boolean sameNames(Set<String> set, List<String> packages) {
+        if (set.size() != packages.size()) return false;
+        for (String packageName : packages) {
+            if (!set.contains(packageName)) return false;
+        }
+        return true;
+    }
+
+    // An immutable snapshot; configs are swapped whole, never edited, so
+    // readers on other threads need no locking. Insertion order is kept so
+    // the file is written back as read.
+    static Set<String> packageSet(Collection<String> packageNames) {
+        if (packageNames == null || packageNames.isEmpty()) return Collections.emptySet();
+
+        Set<String> set = new LinkedHashSet<>();
+        for (String packageName : packageNames) {
+            if (packageName != null && !packageName.isEmpty()) {
+                set.add(packageName);
+            }
+        }
+        return set.isEmpty() ? Collections.<String>emptySet() : Collections.unmodifiableSet(set);
+    }
+
+    private Config readFile() {
+        if (!file.getBaseFile().isFile()) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != FILE_MAGIC) return null;
+            int version = in.readInt();
+            if (version < 1 || version > FILE_VERSION) return null;
+
+            int durationMs = in.readInt();
+            String message = in.readUTF();
+            // Queueing rules were added in version 2
+            int queueMode = version >= 2 ? in.readInt() : OverlayScheduler.MODE_LATEST_WINS;
+            long cooldownMs = version >= 2 ? in.readLong() : DEFAULT_COOLDOWN_MS;
+            // The HUD was added in version 3
+            boolean hudEnabled = version >= 3 && in.readBoolean();
+            List<String> packages = readPackages(in);
+            // Game detection was added in version 4
+            boolean autoDetectGames = version >= 4 && in.readBoolean();
+            List<String> detected = version >= 4 ? readPackages(in) : new ArrayList<>();
+            return new Config(packageSet(packages), packageSet(detected), autoDetectGames,
+                durationMs, message, queueMode, cooldownMs, hudEnabled);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void writeFile() {
+        Config config = current.get();
+
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(config.durationMs);
+            out.writeUTF(config.message);
+            out.writeInt(config.queueMode);
+            out.writeLong(config.cooldownMs);
+            out.writeBoolean(config.hudEnabled);
+            writePackages(out, config.selectedPackages);
+            out.writeBoolean(config.autoDetectGames);
+            writePackages(out, config.detectedPackages);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    private static List<String> readPackages(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> packages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            packages.add(in.readUTF());
+        }
+        return packages;
+    }
+
+    private static void writePackages(DataOutputStream out, Set<String> packages) throws IOException {
+        out.writeInt(packages.size());
+        for (String packageName : packages) {
+            out.writeUTF(packageName);
+        }
+    }
+
+    private Config migrateLegacyPrefs() {
+        SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        Set<String> packages = prefs.getStringSet(LEGACY_KEY_PACKAGES, null);
+        int durationMs = prefs.getInt(LEGACY_KEY_DURATION, DEFAULT_DURATION_MS);
+        // The old message was stored but never shown, so it is not carried over
+        Config config = new Config(packageSet(packages), Collections.<String>emptySet(), false, durationMs,
+            DEFAULT_MESSAGE, OverlayScheduler.MODE_LATEST_WINS, DEFAULT_COOLDOWN_MS, false);
+
+        handler.post(() -> {
+            writeFile();
+            prefs.edit()
+                .remove(LEGACY_KEY_PACKAGES)
+                .remove(LEGACY_KEY_DURATION)
+                .remove(LEGACY_KEY_MESSAGE)
+                .apply();
+        });
+        return config;
+    }
+}
@@ -0,0 +1,111 @@
+package app.lovable.energyx;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Process-wide metrics for the detection and overlay pipeline. The service
+// records into it and EnergyXOverlayPlugin reads it, both in the app process.
+public final class OverlayMetrics {
+
+    private static final OverlayMetrics INSTANCE = new OverlayMetrics();
+
+    static final String DUMP_DIR = "metrics";
+    static final String DUMP_FILE = "overlay_metrics.log";
+    private static final long MAX_DUMP_BYTES = 256 * 1024;
+
+    public final LatencyHistogram pollDuration = new LatencyHistogram("pollDuration", "us");
+    public final LatencyHistogram eventsPerTick = new LatencyHistogram("eventsPerTick", "events");
+    public final LatencyHistogram detectionLag = new LatencyHistogram("detectionLag", "ms");
+    public final LatencyHistogram inflateDuration = new LatencyHistogram("inflateDuration", "us");
+    public final LatencyHistogram addViewDuration = new LatencyHistogram("addViewDuration", "us");
+    public final LatencyHistogram firstFrameLatency = new LatencyHistogram("firstFrameLatency", "ms");
+    // Share of one core used by the HUD (drawing plus its sampler thread), per budget window
+    public final LatencyHistogram hudCpu = new LatencyHistogram("hudCpu", "permille");
+    // From a game coming to the front until its GameProfile is in effect
+    public final LatencyHistogram profileApply = new LatencyHistogram("profileApply", "us");
+    public final LatencyHistogram profileRollback = new LatencyHistogram("profileRollback", "us");
+
+    private final AtomicLong overlayDisplayCount = new AtomicLong();
+    // Overlay label lookups served by LaunchWarmCache without PackageManager
+    private final AtomicLong warmHits = new AtomicLong();
+    private final AtomicLong warmMisses = new AtomicLong();
+    private final LatencyHistogram[] histograms = {
+        pollDuration, eventsPerTick, detectionLag, inflateDuration, addViewDuration, firstFrameLatency, hudCpu,
+        profileApply, profileRollback
+    };
+
+    private OverlayMetrics() {}
+
+    public static OverlayMetrics get() {
+        return INSTANCE;
+    }
+
+    public void recordOverlayDisplayed() {
+        overlayDisplayCount.incrementAndGet();
+    }
+
+    public long getOverlayDisplayCount() {
+        return overlayDisplayCount.get();
+    }
+
+    public void recordWarmLookup(boolean hit) {
+        (hit ? warmHits : warmMisses).incrementAndGet();
+    }
+
+    public long getWarmHits() {
+        return warmHits.get();
+    }
+
+    public long getWarmMisses() {
+        return warmMisses.get();
+    }
+
+    public LatencyHistogram[] getHistograms() {
+        return histograms;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        overlayDisplayCount.set(0);
+        warmHits.set(0);
+        warmMisses.set(0);
+    }
+
+    // Appends one summary line to <dir>/metrics/overlay_metrics.log, rotating the
+    // file to overlay_metrics.log.1 once it grows past MAX_DUMP_BYTES
+    public void dump(File dir, long now) {
+        File metricsDir = new File(dir, DUMP_DIR);
+        if (!metricsDir.isDirectory() && !metricsDir.mkdirs()) return;
+
+        File file = new File(metricsDir, DUMP_FILE);
+        if (file.length() > MAX_DUMP_BYTES) {
+            File rotated = new File(metricsDir, DUMP_FILE + ".1");
+            rotated.delete();
+            file.renameTo(rotated);
+        }
+
+        StringBuilder line = new StringBuilder(256);
+        line.append(now).append(" overlays=").append(overlayDisplayCount.get())
+            .append(" warmHits=").append(warmHits.get())
+            .append(" warmMisses=").append(warmMisses.get());
+        for (LatencyHistogram histogram : histograms) {
+            line.append(' ').append(histogram.getName())
+                .append("[n=").append(histogram.getCount())
+                .append(",p50=").append(histogram.getPercentile(50))
+                .append(",p99=").append(histogram.getPercentile(99))
+                .append(",max=").append(histogram.getMax())
+                .append(histogram.getUnit()).append(']');
+        }
+        line.append('\n');
+
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write(line.toString());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
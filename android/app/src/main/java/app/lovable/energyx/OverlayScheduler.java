@@ -0,0 +1,217 @@
+package app.lovable.energyx;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Decides when the overlay is shown, refreshed and hidden as games come to the
+// foreground. Game launches are queued (bounded), coalesced and rate limited
+// per package; the caller feeds in time explicitly and asks for the next
+// action, so behaviour is fully deterministic and can be replayed against a
+// virtual clock. Not thread-safe: the service drives it from the main thread.
+public class OverlayScheduler {
+
+    public static final int MODE_LATEST_WINS = 0;
+    public static final int MODE_FIFO = 1;
+
+    public static final int ACTION_NONE = 0;
+    // Show (or replace the text of) the overlay for getCurrent()
+    public static final int ACTION_SHOW = 1;
+    // Start fading out; call onHidden() when the overlay is gone
+    public static final int ACTION_HIDE = 2;
+
+    public static final long NO_DEADLINE = -1;
+
+    static final int DEFAULT_QUEUE_CAPACITY = 3;
+    static final long DEFAULT_DURATION_MS = 2000;
+    static final long DEFAULT_COOLDOWN_MS = 5000;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_SHOWING = 1;
+    private static final int STATE_HIDING = 2;
+
+    public static final class Request {
+        public final String packageName;
+        public final String text;
+        // When the launch was detected, for latency accounting
+        public final long detectedAt;
+
+        public Request(String packageName, String text, long detectedAt) {
+            this.packageName = packageName;
+            this.text = text;
+            this.detectedAt = detectedAt;
+        }
+    }
+
+    private final int queueCapacity;
+    private final ArrayDeque<Request> queue = new ArrayDeque<>();
+    private final Map<String, Long> lastShown = new HashMap<>();
+
+    private int mode = MODE_LATEST_WINS;
+    private long durationMs = DEFAULT_DURATION_MS;
+    private long cooldownMs = DEFAULT_COOLDOWN_MS;
+
+    private int state = STATE_IDLE;
+    private Request current;
+    private long hideAt;
+    private boolean currentChanged;
+
+    private long dropped;
+    private long coalesced;
+
+    public OverlayScheduler() {
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public OverlayScheduler(int queueCapacity) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public void setMode(int mode) {
+        this.mode = mode;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public void setCooldownMs(long cooldownMs) {
+        this.cooldownMs = cooldownMs;
+    }
+
+    // Returns false when the request was dropped by the per-package cooldown
+    public boolean submit(Request request, long now) {
+        // A relaunch of the game on screen just keeps the overlay up
+        if (current != null && state != STATE_IDLE && current.packageName.equals(request.packageName)) {
+            hideAt = now + durationMs;
+            if (state == STATE_HIDING) {
+                // Cancel the fade-out and show it again
+                state = STATE_SHOWING;
+                currentChanged = true;
+            }
+            coalesced++;
+            return true;
+        }
+
+        // The cooldown only stops repeats of what was last shown; a game returned
+        // to while another's overlay is up must replace it, not leave the
+        // other's name over it
+        boolean otherShowing = current != null && state != STATE_IDLE;
+        Long shownAt = lastShown.get(request.packageName);
+        if (!otherShowing && shownAt != null && now - shownAt < cooldownMs) {
+            dropped++;
+            return false;
+        }
+
+        // Only the latest request per package is kept
+        for (Iterator<Request> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().packageName.equals(request.packageName)) {
+                it.remove();
+                coalesced++;
+            }
+        }
+
+        if (mode == MODE_LATEST_WINS) {
+            coalesced += queue.size();
+            queue.clear();
+        } else if (queue.size() >= queueCapacity) {
+            queue.pollFirst();
+            dropped++;
+        }
+        queue.addLast(request);
+        return true;
+    }
+
+    // Returns the next thing the caller should do at `now`; call repeatedly
+    // until it returns ACTION_NONE, then again at nextDeadline()
+    public int nextAction(long now) {
+        if (currentChanged) {
+            currentChanged = false;
+            return ACTION_SHOW;
+        }
+
+        switch (state) {
+            case STATE_IDLE:
+                return queue.isEmpty() ? ACTION_NONE : showNext(now);
+
+            case STATE_SHOWING:
+                // A newer game replaces the one on screen without a fade
+                if (mode == MODE_LATEST_WINS && !queue.isEmpty()) {
+                    return showNext(now);
+                }
+                if (now >= hideAt) {
+                    state = STATE_HIDING;
+                    return ACTION_HIDE;
+                }
+                return ACTION_NONE;
+
+            case STATE_HIDING:
+                // Cancel the pending fade-out for a newer game
+                if (mode == MODE_LATEST_WINS && !queue.isEmpty()) {
+                    return showNext(now);
+                }
+                return ACTION_NONE;
+
+            default:
+                return ACTION_NONE;
+        }
+    }
+
+    // Time at which nextAction should be called again, or NO_DEADLINE when
+    // only a submit or onHidden can change anything
+    public long nextDeadline() {
+        if (currentChanged) return 0;
+        if (state == STATE_SHOWING) return hideAt;
+        if (state == STATE_IDLE && !queue.isEmpty()) return 0;
+        return NO_DEADLINE;
+    }
+
+    // The fade-out finished and the overlay was removed
+    public void onHidden() {
+        if (state == STATE_HIDING) {
+            state = STATE_IDLE;
+            current = null;
+        }
+    }
+
+    // Drops everything, e.g. when the overlay had to be removed abruptly
+    public void reset() {
+        queue.clear();
+        state = STATE_IDLE;
+        current = null;
+        currentChanged = false;
+    }
+
+    public Request getCurrent() {
+        return current;
+    }
+
+    public boolean isVisible() {
+        return state != STATE_IDLE;
+    }
+
+    public boolean isHiding() {
+        return state == STATE_HIDING;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    private int showNext(long now) {
+        current = queue.pollFirst();
+        state = STATE_SHOWING;
+        hideAt = now + durationMs;
+        lastShown.put(current.packageName, now);
+        return ACTION_SHOW;
+    }
+}
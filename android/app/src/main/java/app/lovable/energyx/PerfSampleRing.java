@@ -0,0 +1,134 @@
+package app.lovable.energyx;
+
+// Fixed-size ring of performance samples stored column-wise in primitive
+// arrays, so recording a sample never allocates. Samples are addressed by a
+// sequence number that keeps increasing; once the ring wraps, only the newest
+// `capacity` sequences can be read. Unknown values are stored as -1.
+public final class PerfSampleRing {
+
+    // Scratch record filled by the sampler and copied into the ring by add()
+    public static final class Sample {
+        public long time;
+        // Whole-device CPU busy time since the previous sample, in 1/10 %
+        public int cpuPermille;
+        public final int[] corePermille;
+        public final int[] coreFreqMhz;
+        public long memTotalKb;
+        public long memAvailableKb;
+        // CPU time used by this app's process since the previous sample
+        public long appCpuMs;
+        // PowerManager.THERMAL_STATUS_*
+        public int thermalStatus;
+        public int batteryTempDeciC;
+        // Display frames per second, in 1/10 fps
+        public int fpsX10;
+        // Frames since the previous sample that took over 1.5 refresh periods
+        public int jankFrames;
+
+        public Sample(int cores) {
+            corePermille = new int[cores];
+            coreFreqMhz = new int[cores];
+            clear();
+        }
+
+        public void clear() {
+            cpuPermille = -1;
+            memTotalKb = -1;
+            memAvailableKb = -1;
+            appCpuMs = -1;
+            thermalStatus = -1;
+            batteryTempDeciC = -1;
+            fpsX10 = -1;
+            jankFrames = -1;
+            for (int i = 0; i < corePermille.length; i++) {
+                corePermille[i] = -1;
+                coreFreqMhz[i] = -1;
+            }
+        }
+    }
+
+    private final int capacity;
+    private final int cores;
+
+    private final long[] time;
+    private final int[] cpuPermille;
+    private final int[] corePermille;
+    private final int[] coreFreqMhz;
+    private final long[] memTotalKb;
+    private final long[] memAvailableKb;
+    private final long[] appCpuMs;
+    private final int[] thermalStatus;
+    private final int[] batteryTempDeciC;
+    private final int[] fpsX10;
+    private final int[] jankFrames;
+
+    // Sequence number the next sample will get
+    private long nextSequence;
+
+    public PerfSampleRing(int capacity, int cores) {
+        this.capacity = capacity;
+        this.cores = cores;
+        time = new long[capacity];
+        cpuPermille = new int[capacity];
+        corePermille = new int[capacity * cores];
+        coreFreqMhz = new int[capacity * cores];
+        memTotalKb = new long[capacity];
+        memAvailableKb = new long[capacity];
+        appCpuMs = new long[capacity];
+        thermalStatus = new int[capacity];
+        batteryTempDeciC = new int[capacity];
+        fpsX10 = new int[capacity];
+        jankFrames = new int[capacity];
+    }
+
+    public synchronized long add(Sample sample) {
+        int slot = (int) (nextSequence % capacity);
+        time[slot] = sample.time;
+        cpuPermille[slot] = sample.cpuPermille;
+        System.arraycopy(sample.corePermille, 0, corePermille, slot * cores, cores);
+        System.arraycopy(sample.coreFreqMhz, 0, coreFreqMhz, slot * cores, cores);
+        memTotalKb[slot] = sample.memTotalKb;
+        memAvailableKb[slot] = sample.memAvailableKb;
+        appCpuMs[slot] = sample.appCpuMs;
+        thermalStatus[slot] = sample.thermalStatus;
+        batteryTempDeciC[slot] = sample.batteryTempDeciC;
+        fpsX10[slot] = sample.fpsX10;
+        jankFrames[slot] = sample.jankFrames;
+        return nextSequence++;
+    }
+
+    // Copies a stored sample into out; false if it was overwritten or not yet written
+    public synchronized boolean get(long sequence, Sample out) {
+        if (sequence < getOldestSequence() || sequence >= nextSequence) return false;
+
+        int slot = (int) (sequence % capacity);
+        out.time = time[slot];
+        out.cpuPermille = cpuPermille[slot];
+        System.arraycopy(corePermille, slot * cores, out.corePermille, 0, cores);
+        System.arraycopy(coreFreqMhz, slot * cores, out.coreFreqMhz, 0, cores);
+        out.memTotalKb = memTotalKb[slot];
+        out.memAvailableKb = memAvailableKb[slot];
+        out.appCpuMs = appCpuMs[slot];
+        out.thermalStatus = thermalStatus[slot];
+        out.batteryTempDeciC = batteryTempDeciC[slot];
+        out.fpsX10 = fpsX10[slot];
+        out.jankFrames = jankFrames[slot];
+        return true;
+    }
+
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    public synchronized long getOldestSequence() {
+        return Math.max(0, nextSequence - capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+}
@@ -0,0 +1,318 @@
+package app.lovable.energyx;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Samples device performance on its own thread into a PerfSampleRing: CPU
+// busy time overall and per core (/proc/stat), per-core clock (sysfs), memory
+// (/proc/meminfo, falling back to ActivityManager), this process's CPU time,
+// thermal status, battery temperature and, optionally, the display frame rate
+// and janky frames seen by a Choreographer on the sampler thread. Readers and
+// scratch buffers are allocated once per start(); a sample tick allocates
+// nothing. The sampler thread's own CPU time is tracked so callers can check
+// what sampling costs.
+public class PerformanceSampler {
+
+    public static final long MIN_INTERVAL_MS = 100;
+
+    // /proc/stat fields per cpu line: user nice system idle iowait irq softirq steal
+    private static final int STAT_FIELDS = 8;
+    // A frame counts as janky when it takes longer than this many refresh periods
+    private static final float JANK_FACTOR = 1.5f;
+    // A core's cpufreq node vanishes while it is offline; look again this often
+    private static final int FREQ_RETRY_SAMPLES = 10;
+
+    public interface Listener {
+        // Called on the sampler thread after each sample is stored
+        void onSample(PerfSampleRing ring, long sequence);
+    }
+
+    private final Context context;
+    private final int cores;
+    private final PerfSampleRing ring;
+    private final PowerManager powerManager;
+    private final ActivityManager activityManager;
+
+    private Session session;
+    // CPU time used by sampler threads, summed over all sessions; an old
+    // session may still be stopping on its thread while a new one runs
+    private final AtomicLong cpuTimeNanos = new AtomicLong();
+
+    public PerformanceSampler(Context context, int capacity) {
+        this.context = context.getApplicationContext();
+        this.cores = Runtime.getRuntime().availableProcessors();
+        this.ring = new PerfSampleRing(capacity, cores);
+        this.powerManager = (PowerManager) this.context.getSystemService(Context.POWER_SERVICE);
+        this.activityManager = (ActivityManager) this.context.getSystemService(Context.ACTIVITY_SERVICE);
+    }
+
+    public PerfSampleRing getRing() {
+        return ring;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos.get();
+    }
+
+    public synchronized boolean isRunning() {
+        return session != null;
+    }
+
+    public synchronized void start(long intervalMs, boolean trackFrames, Listener listener) {
+        stop();
+        session = new Session(Math.max(MIN_INTERVAL_MS, intervalMs), trackFrames, listener);
+        session.start();
+    }
+
+    public synchronized void stop() {
+        if (session != null) {
+            session.stop();
+            session = null;
+        }
+    }
+
+    // One start()..stop() run; all of its state is confined to its own thread
+    private final class Session {
+        private final long intervalMs;
+        private final boolean trackFrames;
+        private final Listener listener;
+        private final HandlerThread thread;
+        private final Handler handler;
+
+        private final ProcReader statReader = new ProcReader("/proc/stat", 8192);
+        private final ProcReader memInfoReader = new ProcReader("/proc/meminfo", 4096);
+        private final ProcReader[] freqReaders = new ProcReader[cores];
+        // Index 0 is the aggregate "cpu" line, 1..cores the per-core lines
+        private final long[] lastBusy = new long[cores + 1];
+        private final long[] lastTotal = new long[cores + 1];
+        private final PerfSampleRing.Sample scratch = new PerfSampleRing.Sample(cores);
+        private final ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+
+        private boolean haveCpuBaseline;
+        private long lastAppCpuMs = -1;
+        private long lastFrameWindowStart;
+        private int framesInWindow;
+        private long lastFrameTimeNanos;
+        private long jankThresholdNanos;
+        private int jankInWindow;
+        // Thread CPU time already added to cpuTimeNanos
+        private long countedCpuNanos;
+        private boolean stopped;
+        private int batteryTempDeciC = -1;
+
+        private final Runnable sampleRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (stopped) return;
+                long sequence = sample();
+                if (listener != null) {
+                    listener.onSample(ring, sequence);
+                }
+                handler.postDelayed(this, intervalMs);
+            }
+        };
+
+        private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                if (stopped) return;
+                framesInWindow++;
+                if (lastFrameTimeNanos > 0 && frameTimeNanos - lastFrameTimeNanos > jankThresholdNanos) {
+                    jankInWindow++;
+                }
+                lastFrameTimeNanos = frameTimeNanos;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        };
+
+        private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                batteryTempDeciC = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, -1);
+            }
+        };
+
+        Session(long intervalMs, boolean trackFrames, Listener listener) {
+            this.intervalMs = intervalMs;
+            this.trackFrames = trackFrames;
+            this.listener = listener;
+            for (int i = 0; i < cores; i++) {
+                freqReaders[i] = new ProcReader("/sys/devices/system/cpu/cpu" + i + "/cpufreq/scaling_cur_freq", 32,
+                    FREQ_RETRY_SAMPLES);
+            }
+            thread = new HandlerThread("EnergyXSampler", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+
+        void start() {
+            handler.post(() -> {
+                Intent sticky = context.registerReceiver(batteryReceiver,
+                    new IntentFilter(Intent.ACTION_BATTERY_CHANGED), null, handler);
+                if (sticky != null) {
+                    batteryReceiver.onReceive(context, sticky);
+                }
+                if (trackFrames) {
+                    jankThresholdNanos = (long) (JANK_FACTOR * 1_000_000_000L / getRefreshRate());
+                    lastFrameWindowStart = SystemClock.uptimeMillis();
+                    Choreographer.getInstance().postFrameCallback(frameCallback);
+                }
+                sampleRunnable.run();
+            });
+        }
+
+        void stop() {
+            handler.post(() -> {
+                stopped = true;
+                handler.removeCallbacks(sampleRunnable);
+                if (trackFrames) {
+                    Choreographer.getInstance().removeFrameCallback(frameCallback);
+                }
+                try {
+                    context.unregisterReceiver(batteryReceiver);
+                } catch (IllegalArgumentException e) {
+                    // Receiver was never registered
+                }
+                statReader.close();
+                memInfoReader.close();
+                for (ProcReader reader : freqReaders) {
+                    reader.close();
+                }
+                countCpuTime();
+            });
+            thread.quitSafely();
+        }
+
+        private long sample() {
+            PerfSampleRing.Sample sample = scratch;
+            sample.clear();
+            sample.time = System.currentTimeMillis();
+
+            sampleCpu(sample);
+            sampleFrequencies(sample);
+            sampleMemory(sample);
+
+            long appCpuMs = Process.getElapsedCpuTime();
+            if (lastAppCpuMs >= 0) {
+                sample.appCpuMs = appCpuMs - lastAppCpuMs;
+            }
+            lastAppCpuMs = appCpuMs;
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && powerManager != null) {
+                sample.thermalStatus = powerManager.getCurrentThermalStatus();
+            }
+            sample.batteryTempDeciC = batteryTempDeciC;
+
+            if (trackFrames) {
+                long now = SystemClock.uptimeMillis();
+                long elapsed = now - lastFrameWindowStart;
+                if (elapsed > 0) {
+                    sample.fpsX10 = (int) (framesInWindow * 10000L / elapsed);
+                }
+                sample.jankFrames = jankInWindow;
+                framesInWindow = 0;
+                jankInWindow = 0;
+                lastFrameWindowStart = now;
+            }
+
+            long sequence = ring.add(sample);
+            // Covers this tick and every frame callback since the last one
+            countCpuTime();
+            return sequence;
+        }
+
+        private void countCpuTime() {
+            long threadCpuNanos = Debug.threadCpuTimeNanos();
+            if (threadCpuNanos < 0) return;
+            cpuTimeNanos.addAndGet(threadCpuNanos - countedCpuNanos);
+            countedCpuNanos = threadCpuNanos;
+        }
+
+        private float getRefreshRate() {
+            WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+            float refreshRate = windowManager != null ? windowManager.getDefaultDisplay().getRefreshRate() : 0;
+            return refreshRate >= 1 ? refreshRate : 60;
+        }
+
+        private void sampleCpu(PerfSampleRing.Sample sample) {
+            if (!statReader.read()) return;
+
+            while (statReader.hasMore() && statReader.consume("cpu")) {
+                int index;
+                if (statReader.peek() == ' ') {
+                    index = 0;
+                } else {
+                    index = (int) statReader.nextLong() + 1;
+                }
+
+                long total = 0;
+                long idle = 0;
+                for (int field = 0; field < STAT_FIELDS; field++) {
+                    long value = statReader.nextLong();
+                    if (value < 0) break;
+                    total += value;
+                    // idle and iowait
+                    if (field == 3 || field == 4) idle += value;
+                }
+                statReader.nextLine();
+
+                if (index < 0 || index > cores) continue;
+                long busy = total - idle;
+                if (haveCpuBaseline) {
+                    long deltaTotal = total - lastTotal[index];
+                    int permille = deltaTotal > 0 ? (int) ((busy - lastBusy[index]) * 1000 / deltaTotal) : -1;
+                    if (index == 0) {
+                        sample.cpuPermille = permille;
+                    } else {
+                        sample.corePermille[index - 1] = permille;
+                    }
+                }
+                lastBusy[index] = busy;
+                lastTotal[index] = total;
+            }
+            haveCpuBaseline = true;
+        }
+
+        private void sampleFrequencies(PerfSampleRing.Sample sample) {
+            for (int i = 0; i < cores; i++) {
+                // Offline cores have no readable frequency until they come back
+                if (freqReaders[i].read()) {
+                    long khz = freqReaders[i].nextLong();
+                    sample.coreFreqMhz[i] = khz >= 0 ? (int) (khz / 1000) : -1;
+                }
+            }
+        }
+
+        private void sampleMemory(PerfSampleRing.Sample sample) {
+            if (memInfoReader.read() && memInfoReader.find("MemTotal:")) {
+                sample.memTotalKb = memInfoReader.nextLong();
+                memInfoReader.rewind();
+                if (memInfoReader.find("MemAvailable:")) {
+                    sample.memAvailableKb = memInfoReader.nextLong();
+                    return;
+                }
+            }
+
+            if (activityManager != null) {
+                activityManager.getMemoryInfo(memoryInfo);
+                sample.memTotalKb = memoryInfo.totalMem / 1024;
+                sample.memAvailableKb = memoryInfo.availMem / 1024;
+            }
+        }
+    }
+}
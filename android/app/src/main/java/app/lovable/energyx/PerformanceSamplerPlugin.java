@@ -0,0 +1,193 @@
+package app.lovable.energyx;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+// Exposes PerformanceSampler to JS. startSampling streams batches of samples
+// to its callback; after the first sample of a stream, each sample only
+// carries the fields that changed since the one before it.
+@CapacitorPlugin(name = "PerformanceSampler")
+public class PerformanceSamplerPlugin extends Plugin {
+
+    private static final int RING_CAPACITY = 600;
+    private static final long DEFAULT_INTERVAL_MS = 1000;
+
+    private PerformanceSampler sampler;
+
+    // Stream state, guarded by this
+    private PluginCall streamCall;
+    private long emitIntervalMs;
+    private long lastEmitTime;
+    private long nextToEmit;
+    private boolean needKeyframe;
+    private PerfSampleRing.Sample current;
+    private PerfSampleRing.Sample previous;
+
+    @Override
+    public void load() {
+        sampler = new PerformanceSampler(getContext(), RING_CAPACITY);
+        int cores = sampler.getRing().getCores();
+        current = new PerfSampleRing.Sample(cores);
+        previous = new PerfSampleRing.Sample(cores);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        sampler.stop();
+        synchronized (this) {
+            finishStream();
+        }
+    }
+
+    @PluginMethod(returnType = PluginMethod.RETURN_CALLBACK)
+    public void startSampling(PluginCall call) {
+        long intervalMs = Math.max(PerformanceSampler.MIN_INTERVAL_MS,
+            call.getLong("intervalMs", DEFAULT_INTERVAL_MS));
+        boolean trackFrames = call.getBoolean("trackFrames", false);
+
+        call.setKeepAlive(true);
+        synchronized (this) {
+            finishStream();
+            streamCall = call;
+            emitIntervalMs = Math.max(intervalMs, call.getLong("emitIntervalMs", DEFAULT_INTERVAL_MS));
+            lastEmitTime = 0;
+            nextToEmit = sampler.getRing().getNextSequence();
+            needKeyframe = true;
+        }
+
+        JSObject started = new JSObject();
+        started.put("type", "started");
+        started.put("cores", sampler.getRing().getCores());
+        started.put("intervalMs", intervalMs);
+        call.resolve(started);
+
+        sampler.start(intervalMs, trackFrames, this::onSample);
+    }
+
+    @PluginMethod
+    public void stopSampling(PluginCall call) {
+        sampler.stop();
+        synchronized (this) {
+            finishStream();
+        }
+        call.resolve();
+    }
+
+    // Returns the full samples still held in the ring, oldest first
+    @PluginMethod
+    public void getSamples(PluginCall call) {
+        PerfSampleRing ring = sampler.getRing();
+        long since = Math.max(call.getLong("sinceSequence", 0L), ring.getOldestSequence());
+        long end = ring.getNextSequence();
+
+        PerfSampleRing.Sample sample = new PerfSampleRing.Sample(ring.getCores());
+        JSArray samples = new JSArray();
+        for (long sequence = since; sequence < end; sequence++) {
+            if (ring.get(sequence, sample)) {
+                samples.put(toJson(sequence, sample, null));
+            }
+        }
+
+        JSObject result = new JSObject();
+        result.put("cores", ring.getCores());
+        result.put("nextSequence", end);
+        result.put("samples", samples);
+        call.resolve(result);
+    }
+
+    // Sampler thread
+    private synchronized void onSample(PerfSampleRing ring, long sequence) {
+        if (streamCall == null) return;
+        long now = System.currentTimeMillis();
+        if (now - lastEmitTime < emitIntervalMs) return;
+        lastEmitTime = now;
+
+        if (nextToEmit < ring.getOldestSequence()) {
+            // The JS side fell behind the ring; restart from a full sample
+            nextToEmit = ring.getOldestSequence();
+            needKeyframe = true;
+        }
+
+        JSArray samples = new JSArray();
+        for (; nextToEmit <= sequence; nextToEmit++) {
+            if (!ring.get(nextToEmit, current)) continue;
+            samples.put(toJson(nextToEmit, current, needKeyframe ? null : previous));
+            needKeyframe = false;
+
+            PerfSampleRing.Sample swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        JSObject batch = new JSObject();
+        batch.put("type", "samples");
+        batch.put("samples", samples);
+        streamCall.resolve(batch);
+    }
+
+    private void finishStream() {
+        if (streamCall == null) return;
+        JSObject stopped = new JSObject();
+        stopped.put("type", "stopped");
+        streamCall.resolve(stopped);
+        getBridge().releaseCall(streamCall);
+        streamCall = null;
+    }
+
+    // With a previous sample, only fields that differ from it are written
+    private static JSObject toJson(long sequence, PerfSampleRing.Sample sample, PerfSampleRing.Sample previous) {
+        JSObject json = new JSObject();
+        json.put("seq", sequence);
+        json.put("t", sample.time);
+        if (previous == null || sample.cpuPermille != previous.cpuPermille) {
+            json.put("cpu", sample.cpuPermille);
+        }
+        if (previous == null || !sameValues(sample.corePermille, previous.corePermille)) {
+            json.put("cores", toArray(sample.corePermille));
+        }
+        if (previous == null || !sameValues(sample.coreFreqMhz, previous.coreFreqMhz)) {
+            json.put("freqs", toArray(sample.coreFreqMhz));
+        }
+        if (previous == null || sample.memTotalKb != previous.memTotalKb) {
+            json.put("memTotalKb", sample.memTotalKb);
+        }
+        if (previous == null || sample.memAvailableKb != previous.memAvailableKb) {
+            json.put("memAvailableKb", sample.memAvailableKb);
+        }
+        if (previous == null || sample.appCpuMs != previous.appCpuMs) {
+            json.put("appCpuMs", sample.appCpuMs);
+        }
+        if (previous == null || sample.thermalStatus != previous.thermalStatus) {
+            json.put("thermal", sample.thermalStatus);
+        }
+        if (previous == null || sample.batteryTempDeciC != previous.batteryTempDeciC) {
+            json.put("batteryTemp", sample.batteryTempDeciC);
+        }
+        if (previous == null || sample.fpsX10 != previous.fpsX10) {
+            json.put("fps", sample.fpsX10);
+        }
+        if (previous == null || sample.jankFrames != previous.jankFrames) {
+            json.put("jank", sample.jankFrames);
+        }
+        return json;
+    }
+
+    private static boolean sameValues(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    private static JSArray toArray(int[] values) {
+        JSArray array = new JSArray();
+        for (int value : values) {
+            array.put(value);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,56 @@
+package app.lovable.energyx;
+
+// Picks the delay before the next foreground poll. Polls fast right after app
+// switches and while the launcher is in front (a launch is likely), relax when
+// nothing has changed for a while, back off when the device is idle and stop
+// entirely while the screen is off.
+public class PollScheduler {
+
+    public static final long SUSPENDED = -1;
+
+    static final long FAST_INTERVAL_MS = 250;
+    static final long NORMAL_INTERVAL_MS = 1000;
+    static final long RELAXED_INTERVAL_MS = 1500;
+    static final long IDLE_INTERVAL_MS = 5000;
+
+    // How long the fast interval lasts after activity
+    static final long BURST_WINDOW_MS = 3000;
+    // Longest stretch of fast polling while sitting on the launcher
+    static final long LAUNCHER_WINDOW_MS = 15000;
+    // Quiet period after which polling relaxes
+    static final long QUIET_AFTER_MS = 60000;
+
+    private boolean interactive = true;
+    private boolean deviceIdle;
+    private boolean launcherForeground;
+    private long lastActivityTime;
+
+    public void setInteractive(boolean interactive) {
+        this.interactive = interactive;
+    }
+
+    public void setDeviceIdle(boolean deviceIdle) {
+        this.deviceIdle = deviceIdle;
+    }
+
+    // Called whenever the foreground app changes
+    public void onForegroundChanged(long now, boolean isLauncher) {
+        lastActivityTime = now;
+        launcherForeground = isLauncher;
+    }
+
+    public long nextDelay(long now) {
+        if (!interactive) return SUSPENDED;
+        if (deviceIdle) return IDLE_INTERVAL_MS;
+
+        long sinceActivity = now - lastActivityTime;
+        if (sinceActivity < BURST_WINDOW_MS) return FAST_INTERVAL_MS;
+        if (launcherForeground && sinceActivity < LAUNCHER_WINDOW_MS) return FAST_INTERVAL_MS;
+        if (sinceActivity > QUIET_AFTER_MS) return RELAXED_INTERVAL_MS;
+        return NORMAL_INTERVAL_MS;
+    }
+
+    public boolean isInteractive() {
+        return interactive;
+    }
+}
@@ -0,0 +1,130 @@
+package app.lovable.energyx;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+// Reads a small /proc or /sys text file into a reused buffer and parses it in
+// place. The file stays open and is re-read from offset 0, which the kernel
+// regenerates, so repeated samples allocate nothing. A file that can't be
+// opened (e.g. /proc/stat on Android 8+) is reported once and never retried,
+// unless a retry interval is given: files that come and go, like the cpufreq
+// nodes of a core that is hotplugged off, are reopened every that many reads.
+public final class ProcReader {
+
+    private final String path;
+    private final byte[] buffer;
+    private final int retryInterval;
+    private RandomAccessFile file;
+    private boolean unavailable;
+    private int skippedReads;
+    private int length;
+    private int pos;
+
+    public ProcReader(String path, int bufferSize) {
+        this(path, bufferSize, 0);
+    }
+
+    // retryInterval 0 never retries a file that failed
+    public ProcReader(String path, int bufferSize, int retryInterval) {
+        this.path = path;
+        this.buffer = new byte[bufferSize];
+        this.retryInterval = retryInterval;
+    }
+
+    // Re-reads the file and rewinds the cursor; false if it can't be read
+    public boolean read() {
+        if (unavailable) {
+            if (retryInterval <= 0 || ++skippedReads < retryInterval) return false;
+            unavailable = false;
+            skippedReads = 0;
+        }
+        try {
+            if (file == null) {
+                file = new RandomAccessFile(path, "r");
+            }
+            file.seek(0);
+            length = 0;
+            int read;
+            while (length < buffer.length && (read = file.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            pos = 0;
+            return true;
+        } catch (IOException | SecurityException e) {
+            unavailable = true;
+            close();
+            return false;
+        }
+    }
+
+    public boolean isAvailable() {
+        return !unavailable;
+    }
+
+    public void rewind() {
+        pos = 0;
+    }
+
+    // True while the cursor is inside the data read by the last read()
+    public boolean hasMore() {
+        return pos < length;
+    }
+
+    // If the current line starts with prefix, moves past it and returns true
+    public boolean consume(String prefix) {
+        int n = prefix.length();
+        if (pos + n > length) return false;
+        for (int i = 0; i < n; i++) {
+            if (buffer[pos + i] != prefix.charAt(i)) return false;
+        }
+        pos += n;
+        return true;
+    }
+
+    // Moves to the start of the first line at or after the cursor that starts
+    // with prefix, and past the prefix
+    public boolean find(String prefix) {
+        while (pos < length) {
+            if (consume(prefix)) return true;
+            nextLine();
+        }
+        return false;
+    }
+
+    public void nextLine() {
+        while (pos < length && buffer[pos] != '\n') {
+            pos++;
+        }
+        if (pos < length) pos++;
+    }
+
+    public byte peek() {
+        return pos < length ? buffer[pos] : 0;
+    }
+
+    // Parses the next unsigned decimal on the current line, or returns -1
+    public long nextLong() {
+        while (pos < length && buffer[pos] != '\n' && (buffer[pos] < '0' || buffer[pos] > '9')) {
+            pos++;
+        }
+        if (pos >= length || buffer[pos] == '\n') return -1;
+
+        long value = 0;
+        while (pos < length && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            value = value * 10 + (buffer[pos] - '0');
+            pos++;
+        }
+        return value;
+    }
+
+    public void close() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+            file = null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package app.lovable.energyx;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Reusable scratch buffers (icon bitmaps) under a hard cap on the bytes held
+// in total, in use or idle. acquire() hands back an idle item of the same key
+// when there is one, frees idle items of other keys to make room, and
+// otherwise waits for a release, so concurrent renderers can never hold more
+// than maxBytes between them. An item larger than the whole cap is still
+// allowed, but only while nothing else is held.
+//
+// Free of Android types, so the bound can be checked on a plain JVM.
+public final class ScratchPool<T> {
+
+    public interface Allocator<T> {
+        T allocate(long key);
+
+        long sizeOf(long key);
+
+        // Called for idle items the pool drops
+        void free(T item);
+    }
+
+    private final Allocator<T> allocator;
+    private final long maxBytes;
+
+    // All guarded by this
+    private final Map<Long, ArrayDeque<T>> idle = new HashMap<>();
+    private long heldBytes;
+    private long peakBytes;
+    private long allocations;
+    private long reuses;
+
+    public ScratchPool(Allocator<T> allocator, long maxBytes) {
+        this.allocator = allocator;
+        this.maxBytes = maxBytes;
+    }
+
+    public T acquire(long key) throws InterruptedException {
+        long size = allocator.sizeOf(key);
+        synchronized (this) {
+            while (true) {
+                ArrayDeque<T> items = idle.get(key);
+                if (items != null && !items.isEmpty()) {
+                    reuses++;
+                    return items.pop();
+                }
+                if (heldBytes + size > maxBytes) {
+                    evictIdle(heldBytes + size - maxBytes);
+                }
+                if (heldBytes + size <= maxBytes || heldBytes == 0) break;
+                wait();
+            }
+            heldBytes += size;
+            peakBytes = Math.max(peakBytes, heldBytes);
+            allocations++;
+        }
+
+        try {
+            return allocator.allocate(key);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                heldBytes -= size;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    public synchronized void release(long key, T item) {
+        ArrayDeque<T> items = idle.get(key);
+        if (items == null) {
+            items = new ArrayDeque<>();
+            idle.put(key, items);
+        }
+        items.push(item);
+        notifyAll();
+    }
+
+    // Frees every idle item; items in use stay counted until released
+    public synchronized void trim() {
+        evictIdle(Long.MAX_VALUE);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHeldBytes() {
+        return heldBytes;
+    }
+
+    public synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    public synchronized long getAllocations() {
+        return allocations;
+    }
+
+    public synchronized long getReuses() {
+        return reuses;
+    }
+
+    private void evictIdle(long bytes) {
+        Iterator<Map.Entry<Long, ArrayDeque<T>>> iterator = idle.entrySet().iterator();
+        while (bytes > 0 && iterator.hasNext()) {
+            Map.Entry<Long, ArrayDeque<T>> entry = iterator.next();
+            long size = allocator.sizeOf(entry.getKey());
+            ArrayDeque<T> items = entry.getValue();
+            while (bytes > 0 && !items.isEmpty()) {
+                allocator.free(items.pop());
+                heldBytes -= size;
+                bytes -= size;
+            }
+            if (items.isEmpty()) iterator.remove();
+        }
+    }
+}
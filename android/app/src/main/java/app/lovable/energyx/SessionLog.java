@@ -0,0 +1,439 @@
+package app.lovable.energyx;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only log of game sessions in fixed-width 32-byte records, memory
+// mapped so appends are plain stores and queries scan the mapping instead of
+// loading history onto the heap. Records are kept in time order, which lets
+// queries binary-search the start of a time range: an append stamped before
+// the last record takes that record's time. Package names are
+// stored once in a side table and referenced by index.
+//
+// compact() folds each session older than the raw retention window into one
+// SUMMARY record and drops sessions past the total retention, rewriting the
+// log into a new file that replaces the old one.
+public final class SessionLog {
+
+    public static final byte TYPE_START = 1;
+    public static final byte TYPE_SAMPLE = 2;
+    public static final byte TYPE_END = 3;
+    // A compacted session: duration plus averaged samples
+    public static final byte TYPE_SUMMARY = 4;
+
+    static final int RECORD_SIZE = 32;
+    static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x45585347; // "EXSG"
+    private static final int VERSION = 1;
+    private static final int INITIAL_RECORDS = 4096;
+
+    private static final String LOG_FILE = "sessions.log";
+    private static final String PACKAGES_FILE = "packages.txt";
+
+    // Record layout (little endian)
+    private static final int OFF_TIME = 0;          // long, epoch ms
+    private static final int OFF_PACKAGE = 8;       // int, index into the package table
+    private static final int OFF_TYPE = 12;         // byte
+    private static final int OFF_THERMAL = 13;      // byte, -1 unknown
+    private static final int OFF_FPS = 14;          // short, fps x10, -1 unknown
+    private static final int OFF_CPU = 16;          // short, CPU 1/10 %, -1 unknown
+    private static final int OFF_TEMP = 18;         // short, battery 1/10 degC, -1 unknown
+    private static final int OFF_MEM = 20;          // int, available memory MB, -1 unknown
+    private static final int OFF_DURATION = 24;     // int, END/SUMMARY foreground ms
+    private static final int OFF_SAMPLES = 28;      // int, SUMMARY sample count
+
+    // Header layout
+    private static final int HDR_MAGIC = 0;
+    private static final int HDR_VERSION = 4;
+    private static final int HDR_COUNT = 8;
+    private static final int HDR_LAST_COMPACTION = 16;
+
+    public static final class Stats {
+        public final String packageName;
+        public int sessions;
+        public long foregroundMs;
+        public long samples;
+        long cpuSum;
+        long cpuCount;
+        long fpsSum;
+        long fpsCount;
+        public int maxBatteryTempDeciC = -1;
+        public int minMemAvailableMb = -1;
+        public long firstSeen = Long.MAX_VALUE;
+        public long lastSeen;
+
+        Stats(String packageName) {
+            this.packageName = packageName;
+        }
+
+        // Average CPU in 1/10 %, or -1 when never readable
+        public int getAvgCpuPermille() {
+            return cpuCount > 0 ? (int) (cpuSum / cpuCount) : -1;
+        }
+
+        public int getAvgFpsX10() {
+            return fpsCount > 0 ? (int) (fpsSum / fpsCount) : -1;
+        }
+    }
+
+    private final File dir;
+    private final File logFile;
+    private final File packagesFile;
+    private final List<String> packages = new ArrayList<>();
+    private final Map<String, Integer> packageIds = new HashMap<>();
+
+    private RandomAccessFile file;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int count;
+
+    public SessionLog(File dir) throws IOException {
+        this.dir = dir;
+        this.logFile = new File(dir, LOG_FILE);
+        this.packagesFile = new File(dir, PACKAGES_FILE);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        readPackages();
+        open();
+    }
+
+    public synchronized int getRecordCount() {
+        return count;
+    }
+
+    public synchronized long getLastCompaction() {
+        return map.getLong(HDR_LAST_COMPACTION);
+    }
+
+    public synchronized void appendStart(String packageName, long time) throws IOException {
+        append(time, packageId(packageName), TYPE_START, -1, -1, -1, -1, -1, 0, 0);
+    }
+
+    public synchronized void appendEnd(String packageName, long time, long durationMs) throws IOException {
+        append(time, packageId(packageName), TYPE_END, -1, -1, -1, -1, -1, clampInt(durationMs), 0);
+    }
+
+    public synchronized void appendSample(String packageName, long time, int cpuPermille, int fpsX10,
+            int batteryTempDeciC, int thermalStatus, int memAvailableMb) throws IOException {
+        append(time, packageId(packageName), TYPE_SAMPLE, thermalStatus, fpsX10, cpuPermille,
+            batteryTempDeciC, memAvailableMb, 0, 0);
+    }
+
+    // Aggregates every record with from <= time < to, optionally for one
+    // package only; scans the mapping directly
+    public synchronized Map<String, Stats> aggregate(long from, long to, String onlyPackage) {
+        Map<String, Stats> result = new LinkedHashMap<>();
+        int only = -1;
+        if (onlyPackage != null) {
+            Integer id = packageIds.get(onlyPackage);
+            if (id == null) return result;
+            only = id;
+        }
+
+        Stats[] byId = new Stats[packages.size()];
+        for (int i = firstIndexAtOrAfter(from); i < count; i++) {
+            int base = HEADER_SIZE + i * RECORD_SIZE;
+            long time = map.getLong(base + OFF_TIME);
+            if (time >= to) break;
+            int id = map.getInt(base + OFF_PACKAGE);
+            if (only >= 0 && id != only) continue;
+            if (id < 0 || id >= byId.length) continue;
+
+            Stats stats = byId[id];
+            if (stats == null) {
+                stats = byId[id] = new Stats(packages.get(id));
+                result.put(stats.packageName, stats);
+            }
+            stats.firstSeen = Math.min(stats.firstSeen, time);
+            stats.lastSeen = Math.max(stats.lastSeen, time);
+
+            byte type = map.get(base + OFF_TYPE);
+            if (type == TYPE_START) {
+                stats.sessions++;
+            } else if (type == TYPE_END) {
+                stats.foregroundMs += map.getInt(base + OFF_DURATION);
+            } else if (type == TYPE_SAMPLE) {
+                addSample(stats, base, 1);
+            } else if (type == TYPE_SUMMARY) {
+                stats.sessions++;
+                stats.foregroundMs += map.getInt(base + OFF_DURATION);
+                addSample(stats, base, map.getInt(base + OFF_SAMPLES));
+            }
+        }
+        return result;
+    }
+
+    // Folds sessions that started before rawBefore into SUMMARY records and
+    // drops sessions that started before dropBefore
+    public synchronized void compact(long rawBefore, long dropBefore, long now) throws IOException {
+        File tmp = new File(dir, LOG_FILE + ".tmp");
+        tmp.delete();
+        Writer writer = new Writer(tmp, Math.max(INITIAL_RECORDS, count));
+
+        int i = 0;
+        while (i < count) {
+            int base = HEADER_SIZE + i * RECORD_SIZE;
+            long start = map.getLong(base + OFF_TIME);
+            byte type = map.get(base + OFF_TYPE);
+
+            if (type != TYPE_START || start >= rawBefore) {
+                // Recent records and stray pieces are copied as they are
+                if (start >= dropBefore) {
+                    writer.copy(map, base);
+                }
+                i++;
+                continue;
+            }
+
+            // A session runs until its END, the next START or the end of the log
+            int packageId = map.getInt(base + OFF_PACKAGE);
+            Stats stats = new Stats(null);
+            long lastTime = start;
+            long durationMs = -1;
+            int j = i + 1;
+            for (; j < count; j++) {
+                int next = HEADER_SIZE + j * RECORD_SIZE;
+                byte nextType = map.get(next + OFF_TYPE);
+                if (nextType == TYPE_START || nextType == TYPE_SUMMARY) break;
+                if (map.getInt(next + OFF_PACKAGE) != packageId) continue;
+                lastTime = map.getLong(next + OFF_TIME);
+                if (nextType == TYPE_SAMPLE) {
+                    addSample(stats, next, 1);
+                } else if (nextType == TYPE_END) {
+                    durationMs = map.getInt(next + OFF_DURATION);
+                    j++;
+                    break;
+                }
+            }
+            if (durationMs < 0) {
+                durationMs = lastTime - start;
+            }
+
+            if (start >= dropBefore) {
+                writer.append(start, packageId, TYPE_SUMMARY, -1,
+                    stats.getAvgFpsX10(), stats.getAvgCpuPermille(), stats.maxBatteryTempDeciC,
+                    stats.minMemAvailableMb, clampInt(durationMs), clampInt(stats.samples));
+            }
+            // Other packages' records interleaved with the session, e.g. an END
+            // appended after the next START, are kept after the summary
+            for (int k = i + 1; k < j; k++) {
+                int other = HEADER_SIZE + k * RECORD_SIZE;
+                if (map.getInt(other + OFF_PACKAGE) != packageId && map.getLong(other + OFF_TIME) >= dropBefore) {
+                    writer.copy(map, other);
+                }
+            }
+            i = j;
+        }
+        writer.finish(now);
+
+        close();
+        if (!tmp.renameTo(logFile)) {
+            tmp.delete();
+            open();
+            throw new IOException("Cannot replace " + logFile);
+        }
+        open();
+    }
+
+    public synchronized void close() {
+        if (file != null) {
+            map.force();
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+            file = null;
+            map = null;
+        }
+    }
+
+    private void open() throws IOException {
+        boolean exists = logFile.isFile() && logFile.length() >= HEADER_SIZE;
+        file = new RandomAccessFile(logFile, "rw");
+        if (exists) {
+            capacity = (int) ((file.length() - HEADER_SIZE) / RECORD_SIZE);
+            map(capacity);
+            if (map.getInt(HDR_MAGIC) != MAGIC || map.getInt(HDR_VERSION) != VERSION) {
+                // Unreadable log; start over rather than fail every append
+                exists = false;
+            } else {
+                count = Math.min(map.getInt(HDR_COUNT), capacity);
+            }
+        }
+        if (!exists) {
+            file.setLength(0);
+            map(INITIAL_RECORDS);
+            map.putInt(HDR_MAGIC, MAGIC);
+            map.putInt(HDR_VERSION, VERSION);
+            map.putInt(HDR_COUNT, 0);
+            map.putLong(HDR_LAST_COMPACTION, 0);
+            count = 0;
+        }
+    }
+
+    private void map(int records) throws IOException {
+        long size = HEADER_SIZE + (long) records * RECORD_SIZE;
+        if (file.length() < size) {
+            file.setLength(size);
+        }
+        map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        capacity = records;
+    }
+
+    private void append(long time, int packageId, byte type, int thermal, int fpsX10, int cpuPermille,
+            int batteryTempDeciC, int memAvailableMb, int durationMs, int samples) throws IOException {
+        // Queries binary-search on time, so a record is never older than the
+        // one before it, whatever the caller's clock did
+        if (count > 0) {
+            time = Math.max(time, map.getLong(HEADER_SIZE + (count - 1) * RECORD_SIZE + OFF_TIME));
+        }
+        if (count == capacity) {
+            map(capacity * 2);
+        }
+        writeRecord(map, HEADER_SIZE + count * RECORD_SIZE, time, packageId, type, thermal, fpsX10,
+            cpuPermille, batteryTempDeciC, memAvailableMb, durationMs, samples);
+        // The count is published after the record, so a crash never exposes a torn one
+        count++;
+        map.putInt(HDR_COUNT, count);
+    }
+
+    private static void writeRecord(ByteBuffer buffer, int base, long time, int packageId, byte type,
+            int thermal, int fpsX10, int cpuPermille, int batteryTempDeciC, int memAvailableMb,
+            int durationMs, int samples) {
+        buffer.putLong(base + OFF_TIME, time);
+        buffer.putInt(base + OFF_PACKAGE, packageId);
+        buffer.put(base + OFF_TYPE, type);
+        buffer.put(base + OFF_THERMAL, (byte) thermal);
+        buffer.putShort(base + OFF_FPS, clampShort(fpsX10));
+        buffer.putShort(base + OFF_CPU, clampShort(cpuPermille));
+        buffer.putShort(base + OFF_TEMP, clampShort(batteryTempDeciC));
+        buffer.putInt(base + OFF_MEM, memAvailableMb);
+        buffer.putInt(base + OFF_DURATION, durationMs);
+        buffer.putInt(base + OFF_SAMPLES, samples);
+    }
+
+    private void addSample(Stats stats, int base, int weight) {
+        if (weight <= 0) return;
+        stats.samples += weight;
+        short cpu = map.getShort(base + OFF_CPU);
+        if (cpu >= 0) {
+            stats.cpuSum += (long) cpu * weight;
+            stats.cpuCount += weight;
+        }
+        short fps = map.getShort(base + OFF_FPS);
+        if (fps >= 0) {
+            stats.fpsSum += (long) fps * weight;
+            stats.fpsCount += weight;
+        }
+        short temp = map.getShort(base + OFF_TEMP);
+        if (temp >= 0) {
+            stats.maxBatteryTempDeciC = Math.max(stats.maxBatteryTempDeciC, temp);
+        }
+        int mem = map.getInt(base + OFF_MEM);
+        if (mem >= 0 && (stats.minMemAvailableMb < 0 || mem < stats.minMemAvailableMb)) {
+            stats.minMemAvailableMb = mem;
+        }
+    }
+
+    private int firstIndexAtOrAfter(long time) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (map.getLong(HEADER_SIZE + mid * RECORD_SIZE + OFF_TIME) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int packageId(String packageName) throws IOException {
+        Integer id = packageIds.get(packageName);
+        if (id != null) return id;
+
+        try (FileWriter writer = new FileWriter(packagesFile, true)) {
+            writer.write(packageName);
+            writer.write('\n');
+        }
+        id = packages.size();
+        packages.add(packageName);
+        packageIds.put(packageName, id);
+        return id;
+    }
+
+    private void readPackages() throws IOException {
+        if (!packagesFile.isFile()) return;
+        try (BufferedReader reader = new BufferedReader(new FileReader(packagesFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                packageIds.put(line, packages.size());
+                packages.add(line);
+            }
+        }
+    }
+
+    private static short clampShort(int value) {
+        return (short) Math.max(-1, Math.min(Short.MAX_VALUE, value));
+    }
+
+    private static int clampInt(long value) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    // Builds a compacted log in a separate file
+    private static final class Writer {
+        private final RandomAccessFile file;
+        private final MappedByteBuffer map;
+        private int count;
+
+        Writer(File path, int records) throws IOException {
+            file = new RandomAccessFile(path, "rw");
+            long size = HEADER_SIZE + (long) records * RECORD_SIZE;
+            file.setLength(size);
+            map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void copy(ByteBuffer source, int base) {
+            int target = HEADER_SIZE + count * RECORD_SIZE;
+            for (int i = 0; i < RECORD_SIZE; i += 8) {
+                map.putLong(target + i, source.getLong(base + i));
+            }
+            count++;
+        }
+
+        void append(long time, int packageId, byte type, int thermal, int fpsX10, int cpuPermille,
+                int batteryTempDeciC, int memAvailableMb, int durationMs, int samples) {
+            writeRecord(map, HEADER_SIZE + count * RECORD_SIZE, time, packageId, type, thermal, fpsX10,
+                cpuPermille, batteryTempDeciC, memAvailableMb, durationMs, samples);
+            count++;
+        }
+
+        void finish(long now) throws IOException {
+            map.putInt(HDR_MAGIC, MAGIC);
+            map.putInt(HDR_VERSION, VERSION);
+            map.putInt(HDR_COUNT, count);
+            map.putLong(HDR_LAST_COMPACTION, now);
+            map.force();
+            file.close();
+        }
+    }
+}
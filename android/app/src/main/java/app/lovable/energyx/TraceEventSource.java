@@ -0,0 +1,82 @@
+package app.lovable.energyx;
+
+import java.util.Arrays;
+
+// In-memory ForegroundEventSource that replays a recorded or synthetic trace.
+// Events must be appended in timestamp order. An event can be given a later
+// time at which it becomes visible, to model the system recording it late.
+public class TraceEventSource implements ForegroundEventSource {
+
+    private long[] timestamps = new long[64];
+    private int[] types = new int[64];
+    private String[] packageNames = new String[64];
+    private String[] classNames = new String[64];
+    private long[] visibleTimes = new long[64];
+    private int size;
+    private long eventsRead;
+
+    public void add(int type, String packageName, long timestamp) {
+        add(type, packageName, null, timestamp);
+    }
+
+    public void add(int type, String packageName, String className, long timestamp) {
+        add(type, packageName, className, timestamp, timestamp);
+    }
+
+    public void add(int type, String packageName, String className, long timestamp, long visibleAt) {
+        if (size > 0 && timestamp < timestamps[size - 1]) {
+            throw new IllegalArgumentException("Trace events must be added in timestamp order");
+        }
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            types = Arrays.copyOf(types, capacity);
+            packageNames = Arrays.copyOf(packageNames, capacity);
+            classNames = Arrays.copyOf(classNames, capacity);
+            visibleTimes = Arrays.copyOf(visibleTimes, capacity);
+        }
+        timestamps[size] = timestamp;
+        types[size] = type;
+        packageNames[size] = packageName;
+        classNames[size] = className;
+        visibleTimes[size] = Math.max(timestamp, visibleAt);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Total number of events handed to sinks, for measuring scan cost
+    public long getEventsRead() {
+        return eventsRead;
+    }
+
+    @Override
+    public void readEvents(long beginTime, long endTime, EventSink sink) {
+        readEvents(beginTime, endTime, Long.MAX_VALUE, sink);
+    }
+
+    // Same, leaving out events not yet visible at visibleBy
+    public void readEvents(long beginTime, long endTime, long visibleBy, EventSink sink) {
+        for (int i = lowerBound(beginTime); i < size && timestamps[i] < endTime; i++) {
+            if (visibleTimes[i] > visibleBy) continue;
+            eventsRead++;
+            sink.onEvent(types[i], packageNames[i], classNames[i], timestamps[i]);
+        }
+    }
+
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,61 @@
+package app.lovable.energyx;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageEventsQuery;
+import android.app.usage.UsageStatsManager;
+import android.os.Build;
+
+// ForegroundEventSource backed by UsageStatsManager.queryEvents. The event
+// buffer is reused across reads, which all happen on the detection thread.
+// On Android 15+ the query asks only for activity transitions, so the system
+// never parcels the configuration, standby-bucket and notification events
+// that would otherwise be walked and dropped here.
+public class UsageEventsSource implements ForegroundEventSource {
+
+    private final UsageStatsManager usageStatsManager;
+    private final UsageEvents.Event event = new UsageEvents.Event();
+
+    public UsageEventsSource(UsageStatsManager usageStatsManager) {
+        this.usageStatsManager = usageStatsManager;
+    }
+
+    @Override
+    public void readEvents(long beginTime, long endTime, EventSink sink) {
+        if (usageStatsManager == null) return;
+
+        UsageEvents usageEvents = query(beginTime, endTime);
+        if (usageEvents == null) return;
+
+        while (usageEvents.hasNextEvent()) {
+            usageEvents.getNextEvent(event);
+            int type = toEventType(event.getEventType());
+            if (type != EVENT_OTHER) {
+                sink.onEvent(type, event.getPackageName(), event.getClassName(), event.getTimeStamp());
+            }
+        }
+    }
+
+    private UsageEvents query(long beginTime, long endTime) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+            return usageStatsManager.queryEvents(new UsageEventsQuery.Builder(beginTime, endTime)
+                .setEventTypes(UsageEvents.Event.ACTIVITY_RESUMED, UsageEvents.Event.ACTIVITY_PAUSED)
+                .build());
+        }
+        return usageStatsManager.queryEvents(beginTime, endTime);
+    }
+
+    // ACTIVITY_RESUMED and ACTIVITY_PAUSED (Android 10+) share their values
+    // with MOVE_TO_FOREGROUND and MOVE_TO_BACKGROUND. ACTIVITY_STOPPED is
+    // ignored: an activity stops well after the next one resumed, so it says
+    // nothing about what is in front.
+    static int toEventType(int usageEventType) {
+        switch (usageEventType) {
+            case UsageEvents.Event.ACTIVITY_RESUMED:
+                return EVENT_FOREGROUND;
+            case UsageEvents.Event.ACTIVITY_PAUSED:
+                return EVENT_BACKGROUND;
+            default:
+                return EVENT_OTHER;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package app.lovable.energyx.bench;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import app.lovable.energyx.AppListBuilder;
+import app.lovable.energyx.AppSearchIndex;
+import app.lovable.energyx.AppWorkPool;
+import app.lovable.energyx.ForegroundDetector;
+import app.lovable.energyx.ForegroundEventSource;
+import app.lovable.energyx.IconRenderer;
+import app.lovable.energyx.InstalledApp;
+import app.lovable.energyx.LatencyHistogram;
+import app.lovable.energyx.LaunchPredictor;
+import app.lovable.energyx.ProcReader;
+import app.lovable.energyx.ScratchPool;
+import app.lovable.energyx.TraceEventSource;
+
+import com.getcapacitor.JSObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Plain-JVM benchmarks for the Android-free hot paths of app.lovable.energyx,
+// plus icon encoding and app list building on the stand-ins for framework
+// classes in android/benchmark/src/stubs. Results are written as CSV
+// (name,param,nsPerOp,bytesPerOp,eventsPerOp,outputBytes) so runs from
+// different commits can be compared with --baseline. eventsPerOp is
+// deterministic and tracks how many usage events each poll has to walk, which
+// on a device is what dominates queryEvents cost. outputBytes is the size of
+// what one op hands back, e.g. the JSON sent over the bridge.
+public final class HotPathBenchmark {
+
+    private static final long SEED = 42;
+    private static final long HOUR_MS = 60 * 60 * 1000;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long ROUND_NANOS = 200_000_000L;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final double REGRESSION_THRESHOLD = 1.25;
+
+    private static final String HEADER = "name,param,nsPerOp,bytesPerOp,eventsPerOp,outputBytes";
+    private static final int LAUNCHER_ICON_SIZE = 192;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<Result> results = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String output = null;
+        String baseline = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--out".equals(args[i])) output = args[i + 1];
+            if ("--baseline".equals(args[i])) baseline = args[i + 1];
+        }
+
+        HotPathBenchmark benchmark = new HotPathBenchmark();
+        benchmark.run();
+        benchmark.print();
+
+        if (output != null) {
+            benchmark.write(output);
+        }
+        if (baseline != null && benchmark.compare(baseline)) {
+            System.exit(1);
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        // Foreground event scanning at different event densities (events per second)
+        for (int density : new int[] {1, 10, 100}) {
+            TraceEventSource trace = buildTrace(density, 10 * 60 * 1000, 0);
+            measure("detector.poll", density, 600, trace, () -> pollTrace(trace));
+            measure("slidingWindow.poll", density, 600, trace, () -> slidingWindowTrace(trace));
+        }
+
+        // The same stream unfiltered, as queried before Android 15: four unrelated
+        // events (configuration, standby bucket, ...) around each transition
+        TraceEventSource noisy = buildTrace(10, 10 * 60 * 1000, 4);
+        measure("detector.pollUnfiltered", 10, 600, noisy, () -> pollTrace(noisy));
+
+        LatencyHistogram histogram = new LatencyHistogram("bench", "us");
+        Random random = new Random(SEED);
+        long[] values = new long[4096];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1_000_000);
+        }
+        measure("histogram.record", 0, values.length, null, () -> {
+            for (long value : values) {
+                histogram.record(value);
+            }
+        });
+
+        // Monitored-package lookups as done once per detected app switch; the
+        // probes are fresh strings, like the ones UsageEvents hands back
+        for (int monitored : new int[] {8, 200}) {
+            List<String> games = new ArrayList<>();
+            for (int i = 0; i < monitored; i++) {
+                games.add("com.example.game" + i);
+            }
+            String[] probes = new String[1024];
+            for (int i = 0; i < probes.length; i++) {
+                probes[i] = new String("com.example." + (random.nextBoolean() ? "game" : "app") + random.nextInt(monitored));
+            }
+            Set<String> set = Collections.unmodifiableSet(new HashSet<>(games));
+            int[] hits = new int[1];
+            measure("hashSet.contains", monitored, probes.length, null, () -> {
+                for (String probe : probes) {
+                    if (set.contains(probe)) hits[0]++;
+                }
+            });
+        }
+
+        // One /proc/stat-shaped read and parse per op; must stay allocation-free
+        File stat = writeProcStat(8);
+        ProcReader reader = new ProcReader(stat.getPath(), 8192);
+        long[] sum = new long[1];
+        measure("procReader.stat", 8, 1, null, () -> {
+            reader.read();
+            while (reader.hasMore() && reader.consume("cpu")) {
+                for (long value; (value = reader.nextLong()) >= 0; ) {
+                    sum[0] += value;
+                }
+                reader.nextLine();
+            }
+        });
+        reader.close();
+        stat.delete();
+
+        // Launch prediction over four weeks of habitual play: train on three,
+        // then predict before every game launch of the fourth
+        List<String> games = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            games.add("com.example.game" + i);
+        }
+        Set<String> gameSet = Collections.unmodifiableSet(new HashSet<>(games));
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        TraceEventSource habits = buildHabitTrace(games, 28);
+        LaunchPredictor.Evaluation[] evaluation = new LaunchPredictor.Evaluation[1];
+        measure("predictor.replay", games.size(), 1, habits, () -> {
+            evaluation[0] = LaunchPredictor.replay(habits, utc, 0, 21 * DAY_MS, 28 * DAY_MS, gameSet, 3);
+        });
+        System.out.println(String.format(Locale.US, "# predictor top-3 hit rate %.2f over %d launches",
+            evaluation[0].getHitRate(), evaluation[0].launches));
+
+        LaunchPredictor predictor = new LaunchPredictor(utc);
+        predictor.train(habits, 0, 28 * DAY_MS);
+        measure("predictor.predict", games.size(), 1, null, () -> predictor.predict(28 * DAY_MS, gameSet, 3, 0.1));
+
+        // Type-ahead over 500 apps: every prefix of a few queries, as typed
+        AppSearchIndex<String> searchIndex = new AppSearchIndex<>();
+        String[] words = {"Clash", "Royale", "Candy", "Crush", "Subway", "Surfers", "Maps", "Mail", "Photos",
+            "Music", "Chess", "Racing", "Puzzle", "Camera", "Notes", "Wallet", "Legends", "Mobile"};
+        for (int i = 0; i < 500; i++) {
+            String label = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            String packageName = "com." + words[random.nextInt(words.length)].toLowerCase(Locale.ROOT) + ".app" + i;
+            searchIndex.add(packageName, packageName, label, i % 3 == 0, i % 7 == 0, i);
+        }
+        String[] typed = {"c", "cl", "cla", "clas", "clash", "clash r", "clash ro", "m", "mo", "mob", "mobi",
+            "mobile l", "com.sub", "zzz"};
+        int[] found = new int[1];
+        measure("search.typeAhead", searchIndex.size(), typed.length, null, () -> {
+            for (String query : typed) {
+                found[0] += searchIndex.search(query, AppSearchIndex.CATEGORY_ALL, false,
+                    AppSearchIndex.SORT_RELEVANCE, 0, 50).total;
+            }
+        });
+
+        // Icon rendering for a getInstalledApps call over 300 apps on four
+        // workers, with byte arrays standing in for the pooled bitmaps. One app
+        // in ten asks for an adaptive icon at full 432px size, which does not
+        // fit twice in the 1 MB cap, so workers have to wait for each other.
+        AppWorkPool workPool = new AppWorkPool(4);
+        long[] sizes = new long[300];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = random.nextInt(10) == 0 ? 432 : 96;
+        }
+        ScratchPool<byte[]> iconPool = new ScratchPool<>(new ScratchPool.Allocator<byte[]>() {
+            @Override
+            public byte[] allocate(long key) {
+                return new byte[(int) sizeOf(key)];
+            }
+
+            @Override
+            public long sizeOf(long key) {
+                return key * key * 4;
+            }
+
+            @Override
+            public void free(byte[] item) {
+            }
+        }, 1024 * 1024);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        measure("iconPool.render", sizes.length, sizes.length, null, () -> {
+            try {
+                workPool.runAll(0, sizes.length, 4, cancelled, i -> {
+                    try {
+                        byte[] pixels = iconPool.acquire(sizes[i]);
+                        pixels[i % pixels.length]++;
+                        iconPool.release(sizes[i], pixels);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            iconPool.trim();
+        });
+        workPool.shutdown();
+        System.out.println(String.format(Locale.US, "# icon pool peak %d KB of %d KB cap, %d allocations, %d reuses",
+            iconPool.getPeakBytes() / 1024, iconPool.getMaxBytes() / 1024, iconPool.getAllocations(),
+            iconPool.getReuses()));
+        if (iconPool.getPeakBytes() > iconPool.getMaxBytes()) {
+            throw new IllegalStateException("Icon pool exceeded its cap");
+        }
+
+        // Base64 icon delivery from a 192px launcher icon: rendered at the
+        // requested size (192 is encoded as is), compressed, then Base64. The
+        // stub Bitmap deflates raw pixels, so compression here only scales like
+        // the platform's PNG encoder; compare sizes, not absolute numbers.
+        IconRenderer renderer = new IconRenderer();
+        Drawable[] launcherIcons = new Drawable[16];
+        for (int i = 0; i < launcherIcons.length; i++) {
+            launcherIcons[i] = launcherIcon(random, i % 4 == 0);
+        }
+        for (int size : new int[] {48, 96, 144, 192}) {
+            Drawable icon = launcherIcons[1];
+            measure("icon.encodeBase64", size, 1, null, encodeBase64(renderer, icon, size).length(),
+                () -> encodeBase64(renderer, icon, size));
+        }
+
+        // A getInstalledApps page through AppListBuilder, as the plugin builds
+        // it: app objects with 96px base64 icons, rendered without IconCache as
+        // on a first load. It runs inline, so bytesPerOp covers the whole page;
+        // the speedup from workers depends on the machine, not on this code.
+        // json is the serialization Capacitor does on resolve.
+        AppWorkPool listPool = new AppWorkPool(1);
+        AppListBuilder.IconWriter icons = (target, app) -> {
+            Drawable icon = launcherIcons[Math.floorMod(app.packageName.hashCode(), launcherIcons.length)];
+            byte[] data = renderer.encode(icon, 96, IconRenderer.FORMAT_PNG);
+            if (data == null) return false;
+            AppListBuilder.putBase64Icon(target, data, IconRenderer.FORMAT_PNG);
+            return true;
+        };
+        for (int packages : new int[] {50, 200, 1000}) {
+            List<InstalledApp> apps = buildApps(random, packages);
+            measure("appList.build", packages, 1, null, () -> buildPage(apps, icons, listPool, 1));
+
+            JSObject page = buildPage(apps, icons, listPool, 1);
+            JSObject pageNoIcons = buildPage(apps, null, listPool, 1);
+            measure("appList.json", packages, 1, null, page.toString().length(), page::toString);
+            measure("appList.jsonNoIcons", packages, 1, null, pageNoIcons.toString().length(),
+                pageNoIcons::toString);
+        }
+        listPool.shutdown();
+    }
+
+    private static String encodeBase64(IconRenderer renderer, Drawable icon, int size) {
+        JSObject target = new JSObject();
+        AppListBuilder.putBase64Icon(target, renderer.encode(icon, size, IconRenderer.FORMAT_PNG),
+            IconRenderer.FORMAT_PNG);
+        return (String) target.opt("icon");
+    }
+
+    private static JSObject buildPage(List<InstalledApp> apps, AppListBuilder.IconWriter icons,
+            AppWorkPool workPool, int parallelism) {
+        try {
+            JSObject result = new JSObject();
+            JSObject[] appObjects = AppListBuilder.buildPage(apps, 0, apps.size(), icons, workPool, parallelism,
+                new AtomicBoolean());
+            AppListBuilder.putPage(result, appObjects, apps.size(), apps.size(), 1);
+            return result;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Apps as the index holds them: one in ten is a system app, one in seven a game
+    private static List<InstalledApp> buildApps(Random random, int count) {
+        String[] words = {"Clash", "Royale", "Candy", "Crush", "Subway", "Surfers", "Maps", "Mail", "Photos",
+            "Music", "Chess", "Racing", "Puzzle", "Camera", "Notes", "Wallet", "Legends", "Mobile"};
+        List<InstalledApp> apps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = words[random.nextInt(words.length)];
+            String label = word + " " + words[random.nextInt(words.length)];
+            String packageName = "com." + word.toLowerCase(Locale.ROOT) + ".app" + i;
+            apps.add(new InstalledApp(packageName, label, i % 10 == 0 ? 1 : 0, i % 7 == 0 ? 0 : -1,
+                random.nextInt(1000), 1_700_000_000_000L + random.nextInt(1_000_000_000)));
+        }
+        return apps;
+    }
+
+    // Flat 8px blocks of colour compress about as well as a real launcher icon;
+    // opaque icons are rendered into RGB_565 bitmaps
+    private static Drawable launcherIcon(Random random, boolean opaque) {
+        Bitmap bitmap = Bitmap.createBitmap(LAUNCHER_ICON_SIZE, LAUNCHER_ICON_SIZE,
+            opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+        for (int y = 0; y < LAUNCHER_ICON_SIZE; y += 8) {
+            for (int x = 0; x < LAUNCHER_ICON_SIZE; x += 8) {
+                int color = random.nextInt() | (opaque ? 0xff000000 : 0);
+                for (int dy = 0; dy < 8; dy++) {
+                    for (int dx = 0; dx < 8; dx++) {
+                        bitmap.setPixel(x + dx, y + dy, color);
+                    }
+                }
+            }
+        }
+        return new BitmapDrawable(null, bitmap);
+    }
+
+    // Replays a trace with one poll per second, like the service does at its normal interval
+    private static void pollTrace(TraceEventSource trace) {
+        ForegroundDetector detector = new ForegroundDetector(trace, (p, e, d) -> {});
+        for (long now = 0; now < 10 * 60 * 1000; now += 1000) {
+            detector.poll(now);
+        }
+    }
+
+    // The pre-detector approach: every tick re-reads the last five seconds. On
+    // the JVM a trace read is cheap, so the detector's de-duplication of its
+    // late-event overlap makes it the slower of the two in ns per poll; the
+    // difference that matters is eventsPerOp, about three times the events
+    // walked, which on a device are each copied out of system_server over binder
+    private static void slidingWindowTrace(TraceEventSource trace) {
+        SlidingWindowPoller poller = new SlidingWindowPoller(trace, (p, e, d) -> {});
+        for (long now = 0; now < 10 * 60 * 1000; now += 1000) {
+            poller.poll(now);
+        }
+    }
+
+    // The service's per-tick check before ForegroundDetector, with the same sink
+    // and listener types so only the scanning strategy differs: the last package
+    // moved to the foreground in the window is reported when it changed
+    private static final class SlidingWindowPoller implements ForegroundEventSource.EventSink {
+        private final ForegroundEventSource source;
+        private final ForegroundDetector.Listener listener;
+        private String lastForegroundApp;
+        private String foregroundApp;
+        private long foregroundTime;
+
+        SlidingWindowPoller(ForegroundEventSource source, ForegroundDetector.Listener listener) {
+            this.source = source;
+            this.listener = listener;
+        }
+
+        void poll(long now) {
+            foregroundApp = null;
+            source.readEvents(now - 5000, now, this);
+            if (foregroundApp != null && !foregroundApp.equals(lastForegroundApp)) {
+                lastForegroundApp = foregroundApp;
+                listener.onForegroundChanged(foregroundApp, foregroundTime, now);
+            }
+        }
+
+        @Override
+        public void onEvent(int type, String packageName, String className, long timestamp) {
+            if (type == ForegroundEventSource.EVENT_FOREGROUND) {
+                foregroundApp = packageName;
+                foregroundTime = timestamp;
+            }
+        }
+    }
+
+    private static File writeProcStat(int cores) throws IOException {
+        Random random = new Random(SEED);
+        File file = File.createTempFile("proc_stat", null);
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int cpu = -1; cpu < cores; cpu++) {
+                writer.write(cpu < 0 ? "cpu " : "cpu" + cpu);
+                for (int field = 0; field < 10; field++) {
+                    writer.write(" " + random.nextInt(100_000_000));
+                }
+                writer.write('\n');
+            }
+            writer.write("intr 123456 0 0 0\nctxt 987654\nbtime 1700000000\n");
+        }
+        return file;
+    }
+
+    // Each game has a usual hour and is played on most days around it; other
+    // apps and the launcher fill the gaps
+    private static TraceEventSource buildHabitTrace(List<String> games, int days) {
+        Random random = new Random(SEED);
+        TraceEventSource trace = new TraceEventSource();
+        for (int day = 0; day < days; day++) {
+            long t = day * DAY_MS;
+            for (int hour = 0; hour < 24; hour++) {
+                long hourStart = day * DAY_MS + hour * HOUR_MS;
+                t = Math.max(t, hourStart);
+                for (int i = 0; i < games.size(); i++) {
+                    if ((8 + i * 2) % 24 != hour || random.nextInt(10) >= 7) continue;
+                    t += random.nextInt(600_000);
+                    trace.add(ForegroundEventSource.EVENT_FOREGROUND, "com.android.launcher", t);
+                    t += 5_000;
+                    trace.add(ForegroundEventSource.EVENT_FOREGROUND, games.get(i), t);
+                    t += 20 * 60_000;
+                }
+                if (random.nextBoolean()) {
+                    t += random.nextInt(600_000);
+                    trace.add(ForegroundEventSource.EVENT_FOREGROUND, "com.example.app" + random.nextInt(6), t);
+                }
+            }
+        }
+        return trace;
+    }
+
+    private static TraceEventSource buildTrace(int eventsPerSecond, long durationMs, int noisePerEvent) {
+        Random random = new Random(SEED);
+        String[] packages = new String[32];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = "com.example.app" + i;
+        }
+
+        TraceEventSource trace = new TraceEventSource();
+        long step = Math.max(1, 1000 / eventsPerSecond);
+        for (long t = 0; t < durationMs; t += step) {
+            int type = random.nextBoolean()
+                ? ForegroundEventSource.EVENT_FOREGROUND
+                : ForegroundEventSource.EVENT_BACKGROUND;
+            String packageName = packages[random.nextInt(packages.length)];
+            trace.add(type, packageName, t);
+            for (int i = 0; i < noisePerEvent; i++) {
+                trace.add(ForegroundEventSource.EVENT_OTHER, packageName, t);
+            }
+        }
+        return trace;
+    }
+
+    private void measure(String name, int param, int opsPerRun, TraceEventSource trace, Runnable body) {
+        measure(name, param, opsPerRun, trace, 0, body);
+    }
+
+    // Runs the body repeatedly for a fixed time per round and keeps the best round
+    private void measure(String name, int param, int opsPerRun, TraceEventSource trace, long outputBytes,
+            Runnable body) {
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            body.run();
+        }
+
+        double bestNanos = Double.MAX_VALUE;
+        double bestBytes = Double.MAX_VALUE;
+        double eventsPerOp = 0;
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long runs = 0;
+            long eventsBefore = trace != null ? trace.getEventsRead() : 0;
+            long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                body.run();
+                runs++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ROUND_NANOS);
+            long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+            long ops = runs * opsPerRun;
+            bestNanos = Math.min(bestNanos, (double) elapsed / ops);
+            bestBytes = Math.min(bestBytes, (double) bytes / ops);
+            if (trace != null) {
+                eventsPerOp = (double) (trace.getEventsRead() - eventsBefore) / ops;
+            }
+        }
+
+        results.add(new Result(name, param, bestNanos, bestBytes, eventsPerOp, outputBytes));
+    }
+
+    private void print() {
+        System.out.println(HEADER);
+        for (Result result : results) {
+            System.out.println(result.toCsv());
+        }
+    }
+
+    private void write(String path) throws IOException {
+        try (FileWriter writer = new FileWriter(path)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Result result : results) {
+                writer.write(result.toCsv());
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Returns true when any benchmark got more than 25% slower, allocates more,
+    // scans more events or returns more bytes. Baselines from before the
+    // outputBytes column compare as 0 there.
+    private boolean compare(String path) throws IOException {
+        Map<String, double[]> baseline = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length < 5) continue;
+                baseline.put(parts[0] + "/" + parts[1], new double[] {
+                    Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), Double.parseDouble(parts[4]),
+                    parts.length > 5 ? Double.parseDouble(parts[5]) : 0
+                });
+            }
+        }
+
+        boolean regressed = false;
+        for (Result result : results) {
+            double[] previous = baseline.get(result.name + "/" + result.param);
+            if (previous == null) continue;
+            if (result.nsPerOp > previous[0] * REGRESSION_THRESHOLD
+                    || result.bytesPerOp > previous[1] + 0.5
+                    || result.eventsPerOp > previous[2] + 0.01
+                    || (previous[3] > 0 && result.outputBytes > previous[3])) {
+                regressed = true;
+                System.out.println(String.format(Locale.US,
+                    "REGRESSION %s/%d: %.1f ns -> %.1f ns, %.1f B -> %.1f B, %.2f -> %.2f events, %.0f -> %d B out",
+                    result.name, result.param, previous[0], result.nsPerOp, previous[1], result.bytesPerOp,
+                    previous[2], result.eventsPerOp, previous[3], result.outputBytes));
+            }
+        }
+        return regressed;
+    }
+
+    private static final class Result {
+        final String name;
+        final int param;
+        final double nsPerOp;
+        final double bytesPerOp;
+        final double eventsPerOp;
+        final long outputBytes;
+
+        Result(String name, int param, double nsPerOp, double bytesPerOp, double eventsPerOp, long outputBytes) {
+            this.name = name;
+            this.param = param;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.eventsPerOp = eventsPerOp;
+            this.outputBytes = outputBytes;
+        }
+
+        String toCsv() {
+            return String.format(Locale.US, "%s,%d,%.1f,%.1f,%.2f,%d", name, param, nsPerOp, bytesPerOp, eventsPerOp,
+                outputBytes);
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package app.lovable.energyx.bench;
+
+import app.lovable.energyx.ForegroundDetector;
+import app.lovable.energyx.ForegroundEventSource;
+import app.lovable.energyx.LatencyHistogram;
+import app.lovable.energyx.LaunchPredictor;
+import app.lovable.energyx.OverlayScheduler;
+import app.lovable.energyx.PollScheduler;
+import app.lovable.energyx.TraceEventSource;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+
+// Headless simulator for the detection and overlay pipeline of
+// EnergyXOverlayService. It wires the service's Android-free parts together
+// the way the service does: ForegroundDetector polled on PollScheduler's
+// delays, every switch fed to LaunchPredictor, and monitored games submitted
+// to OverlayScheduler, with the overlay's fade-out. Synthetic usage traces
+// drive it on a virtual clock, so a day of use replays in well under a second
+// on a plain JVM.
+//
+// Each scenario reports detection lag, monitored launches the detector never
+// saw, overlay queueing, polls and events scanned, and the real CPU time and
+// bytes allocated per poll tick. Output and --baseline work like
+// HotPathBenchmark: simulated metrics are deterministic and fail on any
+// increase, measured ones when they grow by more than 25%.
+public final class OverlaySimulator {
+
+    private static final long SECOND_MS = 1000;
+    private static final long MINUTE_MS = 60 * SECOND_MS;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    // EnergyXOverlayService's fade-out animation and launch prefetch
+    private static final long FADE_MS = 300;
+    private static final int PREFETCH_COUNT = 3;
+    private static final double PREFETCH_MIN_SCORE = 0.1;
+
+    private static final String LAUNCHER = "com.example.launcher";
+    private static final String SPLASH_ACTIVITY = "SplashActivity";
+    private static final String MAIN_ACTIVITY = "MainActivity";
+    private static final int GAME_COUNT = 16;
+    private static final int APP_COUNT = 48;
+
+    private static final long NONE = Long.MAX_VALUE;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    // How a metric is compared against --baseline
+    private static final int CHECK_NONE = 0;
+    // Deterministic, lower is better: any increase is a regression
+    private static final int CHECK_EXACT = 1;
+    // Measured on this machine, lower is better: REGRESSION_THRESHOLD applies
+    private static final int CHECK_MEASURED = 2;
+    private static final double REGRESSION_THRESHOLD = 1.25;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final String HEADER = "scenario,metric,value";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<Result> results = new ArrayList<>();
+    // Bytes reported by one pair of allocation reads with nothing in between
+    private long probeBytes;
+
+    public static void main(String[] args) throws IOException {
+        String scenario = "all";
+        int switchesPerMinute = 3000;
+        int minutes = 10;
+        int days = 1;
+        int queueMode = OverlayScheduler.MODE_LATEST_WINS;
+        long eventLagMs = 0;
+        long seed = 42;
+        String output = null;
+        String baseline = null;
+        for (int i = 0; i < args.length - 1; i++) {
+            String value = args[i + 1];
+            if ("--scenario".equals(args[i])) scenario = value;
+            if ("--switches-per-minute".equals(args[i])) switchesPerMinute = Integer.parseInt(value);
+            if ("--minutes".equals(args[i])) minutes = Integer.parseInt(value);
+            if ("--days".equals(args[i])) days = Integer.parseInt(value);
+            if ("--mode".equals(args[i])) {
+                queueMode = "fifo".equals(value) ? OverlayScheduler.MODE_FIFO : OverlayScheduler.MODE_LATEST_WINS;
+            }
+            if ("--event-lag-ms".equals(args[i])) eventLagMs = Long.parseLong(value);
+            if ("--seed".equals(args[i])) seed = Long.parseLong(value);
+            if ("--out".equals(args[i])) output = value;
+            if ("--baseline".equals(args[i])) baseline = value;
+        }
+
+        OverlaySimulator simulator = new OverlaySimulator();
+        simulator.calibrate();
+        if ("all".equals(scenario) || "burst".equals(scenario)) {
+            Trace trace = burstTrace(new Random(seed), switchesPerMinute, minutes);
+            simulator.simulate("burst", trace, queueMode, eventLagMs);
+        }
+        if ("all".equals(scenario) || "day".equals(scenario)) {
+            Trace trace = dayTrace(new Random(seed), days);
+            simulator.simulate("day", trace, queueMode, eventLagMs);
+        }
+        if ("all".equals(scenario) || "splash".equals(scenario)) {
+            Trace trace = splashTrace(new Random(seed), 600);
+            // Every one of these launches stays in front for seconds; none may be missed
+            if (simulator.simulate("splash", trace, queueMode, eventLagMs) > 0) {
+                simulator.print();
+                throw new IllegalStateException("Launches through a splash activity were missed");
+            }
+        }
+        if ("all".equals(scenario) || "late".equals(scenario)) {
+            Trace trace = lateTrace(new Random(seed), 600);
+            if (simulator.simulate("late", trace, queueMode, eventLagMs) > 0) {
+                simulator.print();
+                throw new IllegalStateException("Launches whose resume was recorded late were missed");
+            }
+        }
+        simulator.print();
+
+        if (output != null) {
+            simulator.write(output);
+        }
+        if (baseline != null && simulator.compare(baseline)) {
+            System.exit(1);
+        }
+    }
+
+    private void calibrate() {
+        long threadId = Thread.currentThread().getId();
+        probeBytes = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long before = THREADS.getThreadAllocatedBytes(threadId);
+            probeBytes = Math.min(probeBytes, THREADS.getThreadAllocatedBytes(threadId) - before);
+        }
+    }
+
+    // Runs the trace once to warm up the JIT, then MEASURED_ROUNDS more times
+    // and keeps the cheapest round; the simulated metrics of every round are
+    // identical
+    // Returns the number of launches missed
+    private int simulate(String name, Trace trace, int queueMode, long eventLagMs) {
+        new Simulation(trace, queueMode, eventLagMs, probeBytes).run();
+        Simulation simulation = null;
+        long wallMs = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            Simulation round = new Simulation(trace, queueMode, eventLagMs, probeBytes);
+            long wallStart = System.nanoTime();
+            round.run();
+            wallMs = Math.min(wallMs, Math.max(1, (System.nanoTime() - wallStart) / 1_000_000));
+            if (simulation == null || round.tickCpu.getMean() < simulation.tickCpu.getMean()) {
+                simulation = round;
+            }
+        }
+
+        int missed = 0;
+        for (boolean detected : simulation.detected) {
+            if (!detected) missed++;
+        }
+        long polls = Math.max(1, simulation.polls);
+
+        add(name, "virtualMinutes", trace.endTime / MINUTE_MS, CHECK_NONE);
+        add(name, "switches", trace.switches, CHECK_NONE);
+        add(name, "launches", trace.launchCount, CHECK_NONE);
+        add(name, "launchesMissed", missed, CHECK_EXACT);
+        add(name, "missedPercent", 100.0 * missed / Math.max(1, trace.launchCount), CHECK_EXACT);
+        addHistogram(name, simulation.detectLag);
+        add(name, "overlaysShown", simulation.overlaysShown, CHECK_NONE);
+        add(name, "overlaysDropped", simulation.overlayScheduler.getDroppedCount(), CHECK_NONE);
+        add(name, "overlaysCoalesced", simulation.overlayScheduler.getCoalescedCount(), CHECK_NONE);
+        addHistogram(name, simulation.overlayWait);
+        add(name, "polls", simulation.polls, CHECK_EXACT);
+        add(name, "pollsPerMinute", (double) simulation.polls * MINUTE_MS / Math.max(1, trace.endTime), CHECK_EXACT);
+        add(name, "eventsPerPoll", (double) simulation.eventsScanned / polls, CHECK_EXACT);
+        add(name, "tickCpuMeanNs", simulation.tickCpu.getMean(), CHECK_MEASURED);
+        // Power-of-two buckets: one step is a doubling, too coarse to gate on
+        add(name, "tickCpuP99Ns", simulation.tickCpu.getPercentile(99), CHECK_NONE);
+        add(name, "bytesPerTick", (double) simulation.tickBytes / polls, CHECK_MEASURED);
+        add(name, "wallMs", wallMs, CHECK_NONE);
+        add(name, "speedup", (double) trace.endTime / wallMs, CHECK_NONE);
+        return missed;
+    }
+
+    private void addHistogram(String scenario, LatencyHistogram histogram) {
+        String unit = histogram.getUnit();
+        add(scenario, histogram.getName() + "P50" + unit, histogram.getPercentile(50), CHECK_EXACT);
+        add(scenario, histogram.getName() + "P99" + unit, histogram.getPercentile(99), CHECK_EXACT);
+        add(scenario, histogram.getName() + "Max" + unit, histogram.getMax(), CHECK_EXACT);
+    }
+
+    private void add(String scenario, String metric, double value, int check) {
+        results.add(new Result(scenario, metric, value, check));
+    }
+
+    // A few busy minutes: a switch every 60000 / switchesPerMinute ms on average
+    private static Trace burstTrace(Random random, int switchesPerMinute, int minutes) {
+        Trace trace = new Trace();
+        long gap = Math.max(2, MINUTE_MS / Math.max(1, switchesPerMinute));
+        long end = minutes * MINUTE_MS;
+        for (long t = SECOND_MS; t < end; t += 1 + random.nextInt((int) (2 * gap - 1))) {
+            String next;
+            do {
+                double r = random.nextDouble();
+                next = r < 0.25 ? LAUNCHER : r < 0.6 ? game(random) : app(random);
+            } while (next.equals(trace.foreground));
+            trace.switchTo(next, t);
+        }
+        trace.endTime = end;
+        return trace;
+    }
+
+    // Days of ordinary use: sessions between 07:00 and 23:00 separated by
+    // screen-off periods, each a walk between the launcher, apps and games,
+    // with some very short visits (notification taps, splash screens)
+    private static Trace dayTrace(Random random, int days) {
+        Trace trace = new Trace();
+        for (int day = 0; day < days; day++) {
+            long t = day * DAY_MS + 7 * HOUR_MS + random.nextInt((int) (30 * MINUTE_MS));
+            long bedtime = day * DAY_MS + 23 * HOUR_MS;
+            while (t < bedtime) {
+                trace.screen(true, t);
+                t += 500;
+                trace.switchTo(LAUNCHER, t);
+                t += between(random, 2 * SECOND_MS, 15 * SECOND_MS);
+
+                long sessionEnd = t + between(random, 5 * MINUTE_MS, 40 * MINUTE_MS);
+                while (t < sessionEnd) {
+                    String next;
+                    long stay;
+                    if (!LAUNCHER.equals(trace.foreground) && random.nextDouble() < 0.5) {
+                        next = LAUNCHER;
+                        stay = between(random, 2 * SECOND_MS, 15 * SECOND_MS);
+                    } else if (random.nextDouble() < 0.35) {
+                        next = game(random);
+                        stay = between(random, 5 * MINUTE_MS, 30 * MINUTE_MS);
+                    } else {
+                        next = app(random);
+                        stay = between(random, 10 * SECOND_MS, 5 * MINUTE_MS);
+                    }
+                    if (random.nextDouble() < 0.1) {
+                        stay = between(random, 100, 800);
+                    }
+                    if (next.equals(trace.foreground)) continue;
+                    trace.switchTo(next, t);
+                    t += stay;
+                }
+
+                trace.screen(false, t);
+                t += between(random, 5 * MINUTE_MS, 90 * MINUTE_MS);
+            }
+        }
+        trace.endTime = days * DAY_MS;
+        return trace;
+    }
+
+    // Games opened from the launcher through a splash activity, shown for
+    // 50 ms to 2 s, with the splash's pause before or after the handover
+    private static Trace splashTrace(Random random, int launches) {
+        Trace trace = new Trace();
+        long t = SECOND_MS;
+        for (int i = 0; i < launches; i++) {
+            trace.switchTo(LAUNCHER, t);
+            t += between(random, SECOND_MS, 3 * SECOND_MS);
+            t = trace.launchWithSplash(game(random), t, between(random, 50, 2 * SECOND_MS), random.nextBoolean());
+            t += between(random, 5 * SECOND_MS, 15 * SECOND_MS);
+        }
+        trace.endTime = t + MINUTE_MS;
+        return trace;
+    }
+
+    // The launches of splashTrace and plain ones, with each resume recorded
+    // 1 to 200 ms after the pause that shares its millisecond, so a poll can
+    // read the pause and not yet the resume
+    private static Trace lateTrace(Random random, int launches) {
+        Trace trace = new Trace();
+        long t = SECOND_MS;
+        for (int i = 0; i < launches; i++) {
+            trace.switchTo(LAUNCHER, t);
+            t += between(random, SECOND_MS, 3 * SECOND_MS);
+            trace.resumeLagMs = between(random, 1, 200);
+            if (random.nextBoolean()) {
+                t = trace.launchWithSplash(game(random), t, between(random, 50, 2 * SECOND_MS), false);
+            } else {
+                trace.switchTo(game(random), t);
+            }
+            trace.resumeLagMs = 0;
+            t += between(random, 5 * SECOND_MS, 15 * SECOND_MS);
+        }
+        trace.endTime = t + MINUTE_MS;
+        return trace;
+    }
+
+    // A few favourite games get most of the launches
+    private static String game(Random random) {
+        double r = random.nextDouble();
+        return "com.example.game" + (int) (GAME_COUNT * r * r);
+    }
+
+    private static String app(Random random) {
+        return "com.example.app" + random.nextInt(APP_COUNT);
+    }
+
+    private static long between(Random random, long min, long max) {
+        return min + (long) (random.nextDouble() * (max - min));
+    }
+
+    private void print() {
+        System.out.println(HEADER);
+        for (Result result : results) {
+            System.out.println(result.toCsv());
+        }
+    }
+
+    private void write(String path) throws IOException {
+        try (FileWriter writer = new FileWriter(path)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Result result : results) {
+                writer.write(result.toCsv());
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Returns true when any checked metric regressed
+    private boolean compare(String path) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length < 3) continue;
+                baseline.put(parts[0] + "/" + parts[1], Double.parseDouble(parts[2]));
+            }
+        }
+
+        boolean regressed = false;
+        for (Result result : results) {
+            Double previous = baseline.get(result.scenario + "/" + result.metric);
+            if (previous == null || result.check == CHECK_NONE) continue;
+            double value = Double.parseDouble(result.formatValue());
+            boolean worse = result.check == CHECK_EXACT
+                ? value > previous
+                : value > previous * REGRESSION_THRESHOLD + 0.5;
+            if (worse) {
+                regressed = true;
+                System.out.println(String.format(Locale.US, "REGRESSION %s/%s: %.2f -> %.2f",
+                    result.scenario, result.metric, previous, value));
+            }
+        }
+        return regressed;
+    }
+
+    // A synthetic usage trace with its ground truth
+    private static final class Trace {
+        final TraceEventSource events = new TraceEventSource();
+        final Set<String> monitored;
+        // Times of the foreground events that launched a monitored game, ascending,
+        // and the game each one launched
+        long[] launches = new long[64];
+        String[] launchPackages = new String[64];
+        int launchCount;
+        // Screen changes, ascending
+        long[] screenTimes = new long[16];
+        boolean[] screenOn = new boolean[16];
+        int screenCount;
+        int switches;
+        long endTime;
+        // Last package resumed
+        String foreground = LAUNCHER;
+        // How long after it happens each resume becomes visible
+        long resumeLagMs;
+
+        Trace() {
+            List<String> games = new ArrayList<>(GAME_COUNT);
+            for (int i = 0; i < GAME_COUNT; i++) {
+                games.add("com.example.game" + i);
+            }
+            monitored = Collections.unmodifiableSet(new HashSet<>(games));
+        }
+
+        void switchTo(String packageName, long time) {
+            events.add(ForegroundEventSource.EVENT_BACKGROUND, foreground, time);
+            events.add(ForegroundEventSource.EVENT_FOREGROUND, packageName, null, time, time + resumeLagMs);
+            countSwitch(packageName, time);
+        }
+
+        // A game opened through a splash activity that hands over to its main
+        // activity after splashMs. The splash is paused before the main
+        // activity resumes or, with latePause, just after; it is stopped after
+        // that (the source drops stops, so they are EVENT_OTHER here). Returns
+        // the time of the last event.
+        long launchWithSplash(String packageName, long time, long splashMs, boolean latePause) {
+            events.add(ForegroundEventSource.EVENT_BACKGROUND, foreground, time);
+            events.add(ForegroundEventSource.EVENT_FOREGROUND, packageName, SPLASH_ACTIVITY, time, time + resumeLagMs);
+            countSwitch(packageName, time);
+
+            long handoff = time + splashMs;
+            if (!latePause) {
+                events.add(ForegroundEventSource.EVENT_BACKGROUND, packageName, SPLASH_ACTIVITY, handoff);
+            }
+            events.add(ForegroundEventSource.EVENT_FOREGROUND, packageName, MAIN_ACTIVITY, handoff,
+                handoff + resumeLagMs);
+            if (latePause) {
+                events.add(ForegroundEventSource.EVENT_BACKGROUND, packageName, SPLASH_ACTIVITY, handoff + 20);
+            }
+            events.add(ForegroundEventSource.EVENT_OTHER, packageName, SPLASH_ACTIVITY, handoff + 60);
+            return handoff + 60;
+        }
+
+        private void countSwitch(String packageName, long time) {
+            if (!packageName.equals(foreground)) {
+                switches++;
+                if (monitored.contains(packageName)) {
+                    if (launchCount == launches.length) {
+                        launches = Arrays.copyOf(launches, launchCount * 2);
+                        launchPackages = Arrays.copyOf(launchPackages, launchCount * 2);
+                    }
+                    launches[launchCount] = time;
+                    launchPackages[launchCount] = packageName;
+                    launchCount++;
+                }
+            }
+            foreground = packageName;
+        }
+
+        void screen(boolean on, long time) {
+            if (!on) {
+                events.add(ForegroundEventSource.EVENT_BACKGROUND, foreground, time);
+            }
+            if (screenCount == screenTimes.length) {
+                screenTimes = Arrays.copyOf(screenTimes, screenCount * 2);
+                screenOn = Arrays.copyOf(screenOn, screenCount * 2);
+            }
+            screenTimes[screenCount] = time;
+            screenOn[screenCount] = on;
+            screenCount++;
+        }
+    }
+
+    // The service's detection thread and overlay, on one virtual clock. Events
+    // become visible to the detector eventLagMs after they happen, as usage
+    // events do on some devices.
+    private static final class Simulation implements ForegroundDetector.Listener, ForegroundEventSource {
+        final Trace trace;
+        final long eventLagMs;
+        final long probeBytes;
+        final long threadId = Thread.currentThread().getId();
+
+        final ForegroundDetector detector = new ForegroundDetector(this, this);
+        final PollScheduler pollScheduler = new PollScheduler();
+        final OverlayScheduler overlayScheduler = new OverlayScheduler();
+        final LaunchPredictor launchPredictor = new LaunchPredictor(UTC);
+
+        final LatencyHistogram detectLag = new LatencyHistogram("detectLag", "ms");
+        // Detection to overlay on screen, i.e. time spent queued
+        final LatencyHistogram overlayWait = new LatencyHistogram("overlayWait", "ms");
+        final LatencyHistogram tickCpu = new LatencyHistogram("tickCpu", "ns");
+        final boolean[] detected;
+        long polls;
+        long eventsScanned;
+        long tickBytes;
+        long overlaysShown;
+
+        long now;
+        boolean isPolling;
+        long nextPollAt = NONE;
+        long overlayDeadline = NONE;
+        long fadeEndAt = NONE;
+        boolean isOverlayAttached;
+        OverlayScheduler.Request shown;
+
+        Simulation(Trace trace, int queueMode, long eventLagMs, long probeBytes) {
+            this.trace = trace;
+            this.eventLagMs = eventLagMs;
+            this.probeBytes = probeBytes;
+            detected = new boolean[trace.launchCount];
+            overlayScheduler.setMode(queueMode);
+        }
+
+        void run() {
+            startPolling();
+            int screenIndex = 0;
+            while (true) {
+                long screenAt = screenIndex < trace.screenCount ? trace.screenTimes[screenIndex] : NONE;
+                long next = Math.min(Math.min(screenAt, fadeEndAt), Math.min(overlayDeadline, nextPollAt));
+                if (next == NONE || next > trace.endTime) break;
+                now = next;
+
+                if (screenAt == now) {
+                    onScreenChanged(trace.screenOn[screenIndex++]);
+                } else if (fadeEndAt == now) {
+                    fadeEndAt = NONE;
+                    // The fade-out's end listener
+                    if (overlayScheduler.isHiding()) {
+                        isOverlayAttached = false;
+                        overlayScheduler.onHidden();
+                        driveOverlay();
+                    }
+                } else if (overlayDeadline == now) {
+                    overlayDeadline = NONE;
+                    driveOverlay();
+                } else {
+                    nextPollAt = NONE;
+                    tick();
+                }
+            }
+        }
+
+        private void startPolling() {
+            if (isPolling || !pollScheduler.isInteractive()) return;
+            isPolling = true;
+            nextPollAt = now;
+        }
+
+        private void tick() {
+            long cpuBefore = THREADS.getCurrentThreadCpuTime();
+            long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+            int scanned = detector.poll(now);
+            long delay = pollScheduler.nextDelay(now);
+            tickBytes += Math.max(0, THREADS.getThreadAllocatedBytes(threadId) - bytesBefore - probeBytes);
+            tickCpu.record(THREADS.getCurrentThreadCpuTime() - cpuBefore);
+
+            polls++;
+            eventsScanned += scanned;
+            if (delay == PollScheduler.SUSPENDED) {
+                isPolling = false;
+            } else {
+                nextPollAt = now + delay;
+            }
+        }
+
+        private void onScreenChanged(boolean on) {
+            pollScheduler.setInteractive(on);
+            if (on) {
+                pollScheduler.onForegroundChanged(now, true);
+                launchPredictor.predict(now, trace.monitored, PREFETCH_COUNT, PREFETCH_MIN_SCORE);
+                startPolling();
+            }
+        }
+
+        @Override
+        public void readEvents(long beginTime, long endTime, EventSink sink) {
+            trace.events.readEvents(beginTime, Math.min(endTime, now - eventLagMs + 1), now - eventLagMs, sink);
+        }
+
+        @Override
+        public void onForegroundChanged(String packageName, long eventTime, long detectedAt) {
+            detectLag.record(detectedAt - eventTime);
+            launchPredictor.onEvent(ForegroundEventSource.EVENT_FOREGROUND, packageName, null, eventTime);
+            pollScheduler.onForegroundChanged(now, packageName.equals(LAUNCHER));
+
+            if (trace.monitored.contains(packageName)) {
+                // The launch this resume belongs to: the last one at or before it,
+                // which is later than the splash's resume when it hands over
+                int launch = Arrays.binarySearch(trace.launches, 0, trace.launchCount, eventTime);
+                if (launch < 0) launch = -launch - 2;
+                if (launch >= 0 && trace.launchPackages[launch].equals(packageName)) detected[launch] = true;
+                overlayScheduler.submit(new OverlayScheduler.Request(packageName, packageName, now), now);
+                driveOverlay();
+            }
+            launchPredictor.predict(now, trace.monitored, PREFETCH_COUNT, PREFETCH_MIN_SCORE);
+        }
+
+        private void driveOverlay() {
+            int action;
+            while ((action = overlayScheduler.nextAction(now)) != OverlayScheduler.ACTION_NONE) {
+                if (action == OverlayScheduler.ACTION_SHOW) {
+                    // Showing restarts the fade-in, which cancels a fade-out
+                    fadeEndAt = NONE;
+                    isOverlayAttached = true;
+                    OverlayScheduler.Request current = overlayScheduler.getCurrent();
+                    if (current != shown) {
+                        shown = current;
+                        overlaysShown++;
+                        overlayWait.record(now - current.detectedAt);
+                    }
+                } else if (isOverlayAttached) {
+                    fadeEndAt = now + FADE_MS;
+                } else {
+                    overlayScheduler.onHidden();
+                }
+            }
+
+            long deadline = overlayScheduler.nextDeadline();
+            overlayDeadline = deadline == OverlayScheduler.NO_DEADLINE ? NONE : Math.max(deadline, now);
+        }
+    }
+
+    private static final class Result {
+        final String scenario;
+        final String metric;
+        final double value;
+        final int check;
+
+        Result(String scenario, String metric, double value, int check) {
+            this.scenario = scenario;
+            this.metric = metric;
+            this.value = value;
+            this.check = check;
+        }
+
+        String formatValue() {
+            return String.format(Locale.US, "%.2f", value);
+        }
+
+        String toCsv() {
+            return scenario + "," + metric + "," + formatValue();
+        }
+    }
+}
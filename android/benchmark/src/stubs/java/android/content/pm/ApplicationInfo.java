@@ -0,0 +1,12 @@
+package android.content.pm;
+
+// Plain-JVM stand-in for android.content.pm.ApplicationInfo: the constants
+// InstalledApp reads, with the platform's values
+public class ApplicationInfo {
+
+    public static final int FLAG_SYSTEM = 1;
+    public static final int FLAG_IS_GAME = 1 << 25;
+
+    public static final int CATEGORY_UNDEFINED = -1;
+    public static final int CATEGORY_GAME = 0;
+}
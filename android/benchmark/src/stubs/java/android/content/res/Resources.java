@@ -0,0 +1,5 @@
+package android.content.res;
+
+// Plain-JVM stand-in for android.content.res.Resources; only passed around
+public class Resources {
+}
@@ -0,0 +1,129 @@
+package android.graphics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+// Plain-JVM stand-in for android.graphics.Bitmap, just enough for
+// IconRenderer. Pixels are kept as ARGB ints; compress() deflates the pixel
+// bytes the way PNG does, so encode cost still scales with the icon size.
+public final class Bitmap {
+
+    public enum Config {
+        ALPHA_8,
+        RGB_565,
+        ARGB_8888,
+        RGBA_F16,
+        HARDWARE
+    }
+
+    public enum CompressFormat {
+        JPEG,
+        PNG,
+        WEBP,
+        WEBP_LOSSY,
+        WEBP_LOSSLESS
+    }
+
+    private final int width;
+    private final int height;
+    private final Config config;
+    private int[] pixels;
+
+    private Bitmap(int width, int height, Config config) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.pixels = new int[width * height];
+    }
+
+    public static Bitmap createBitmap(int width, int height, Config config) {
+        return new Bitmap(width, height, config);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public boolean hasAlpha() {
+        return config != Config.RGB_565;
+    }
+
+    public int getByteCount() {
+        return width * height * (config == Config.RGB_565 ? 2 : 4);
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels()[y * width + x];
+    }
+
+    public void setPixel(int x, int y, int color) {
+        pixels()[y * width + x] = config == Config.RGB_565 ? color | 0xff000000 : color;
+    }
+
+    public void eraseColor(int color) {
+        java.util.Arrays.fill(pixels(), color);
+    }
+
+    public Bitmap copy(Config config, boolean mutable) {
+        Bitmap copy = new Bitmap(width, height, config);
+        System.arraycopy(pixels(), 0, copy.pixels, 0, pixels.length);
+        return copy;
+    }
+
+    public void recycle() {
+        pixels = null;
+    }
+
+    public boolean isRecycled() {
+        return pixels == null;
+    }
+
+    public boolean compress(CompressFormat format, int quality, OutputStream stream) {
+        int bytesPerPixel = config == Config.RGB_565 ? 2 : 4;
+        byte[] row = new byte[width * bytesPerPixel];
+        byte[] chunk = new byte[8 * 1024];
+        Deflater deflater = new Deflater();
+        try {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0, i = 0; x < width; x++) {
+                    int color = pixels()[y * width + x];
+                    for (int b = bytesPerPixel - 1; b >= 0; b--) {
+                        row[i++] = (byte) (color >>> (b * 8));
+                    }
+                }
+                deflater.setInput(row);
+                while (!deflater.needsInput()) {
+                    stream.write(chunk, 0, deflater.deflate(chunk));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                stream.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private int[] pixels() {
+        if (pixels == null) {
+            throw new IllegalStateException("Can't use a recycled bitmap");
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,59 @@
+package android.graphics;
+
+// Plain-JVM stand-in for android.graphics.Canvas: draws bitmaps scaled with
+// nearest-neighbour sampling into the bitmap set with setBitmap().
+public class Canvas {
+
+    private Bitmap bitmap;
+
+    public Canvas() {
+    }
+
+    public Canvas(Bitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public void setBitmap(Bitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public int getWidth() {
+        return bitmap != null ? bitmap.getWidth() : 0;
+    }
+
+    public int getHeight() {
+        return bitmap != null ? bitmap.getHeight() : 0;
+    }
+
+    public void drawColor(int color) {
+        target().eraseColor(color);
+    }
+
+    public void drawBitmap(Bitmap source, Rect src, Rect dst, Paint paint) {
+        Bitmap target = target();
+        if (src == null) {
+            src = new Rect(0, 0, source.getWidth(), source.getHeight());
+        }
+        if (dst == null) {
+            dst = new Rect(0, 0, source.getWidth(), source.getHeight());
+        }
+        int left = Math.max(0, dst.left);
+        int top = Math.max(0, dst.top);
+        int right = Math.min(target.getWidth(), dst.right);
+        int bottom = Math.min(target.getHeight(), dst.bottom);
+        for (int y = top; y < bottom; y++) {
+            int sy = src.top + (y - dst.top) * src.height() / dst.height();
+            for (int x = left; x < right; x++) {
+                int sx = src.left + (x - dst.left) * src.width() / dst.width();
+                target.setPixel(x, y, source.getPixel(sx, sy));
+            }
+        }
+    }
+
+    private Bitmap target() {
+        if (bitmap == null) {
+            throw new IllegalStateException("No bitmap set");
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,12 @@
+package android.graphics;
+
+// Plain-JVM stand-in for android.graphics.Color
+public final class Color {
+
+    public static final int TRANSPARENT = 0;
+    public static final int BLACK = 0xff000000;
+    public static final int WHITE = 0xffffffff;
+
+    private Color() {
+    }
+}
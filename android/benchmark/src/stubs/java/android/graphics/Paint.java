@@ -0,0 +1,5 @@
+package android.graphics;
+
+// Plain-JVM stand-in for android.graphics.Paint; the stub canvas ignores it
+public class Paint {
+}
@@ -0,0 +1,13 @@
+package android.graphics;
+
+// Plain-JVM stand-in for android.graphics.PixelFormat
+public final class PixelFormat {
+
+    public static final int UNKNOWN = 0;
+    public static final int TRANSLUCENT = -3;
+    public static final int TRANSPARENT = -2;
+    public static final int OPAQUE = -1;
+
+    private PixelFormat() {
+    }
+}
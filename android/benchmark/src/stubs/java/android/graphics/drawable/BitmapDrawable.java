@@ -0,0 +1,42 @@
+package android.graphics.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+
+// Plain-JVM stand-in for android.graphics.drawable.BitmapDrawable
+public class BitmapDrawable extends Drawable {
+
+    private final Bitmap bitmap;
+
+    public BitmapDrawable(Resources resources, Bitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public final Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return bitmap != null ? bitmap.getWidth() : -1;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return bitmap != null ? bitmap.getHeight() : -1;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (bitmap != null) {
+            canvas.drawBitmap(bitmap, null, getBounds(), null);
+        }
+    }
+
+    @Override
+    public int getOpacity() {
+        return bitmap == null || bitmap.hasAlpha() ? PixelFormat.TRANSLUCENT : PixelFormat.OPAQUE;
+    }
+}
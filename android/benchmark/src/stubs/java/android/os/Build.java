@@ -0,0 +1,33 @@
+package android.os;
+
+// Plain-JVM stand-in for android.os.Build. SDK_INT is read from the
+// android.sdk system property (default 34) so version branches can be run
+// either way, and is not a constant so javac does not fold it.
+public final class Build {
+
+    public static final class VERSION {
+        public static final int SDK_INT = Integer.getInteger("android.sdk", 34);
+
+        private VERSION() {
+        }
+    }
+
+    public static final class VERSION_CODES {
+        public static final int M = 23;
+        public static final int N = 24;
+        public static final int O = 26;
+        public static final int P = 28;
+        public static final int Q = 29;
+        public static final int R = 30;
+        public static final int S = 31;
+        public static final int TIRAMISU = 33;
+        public static final int UPSIDE_DOWN_CAKE = 34;
+        public static final int VANILLA_ICE_CREAM = 35;
+
+        private VERSION_CODES() {
+        }
+    }
+
+    private Build() {
+    }
+}
@@ -0,0 +1,24 @@
+package android.util;
+
+// Plain-JVM stand-in for android.util.Base64 on top of java.util.Base64.
+// Supports DEFAULT (76-character lines, trailing newline) and NO_WRAP.
+public final class Base64 {
+
+    public static final int DEFAULT = 0;
+    public static final int NO_PADDING = 1;
+    public static final int NO_WRAP = 2;
+
+    private Base64() {
+    }
+
+    public static String encodeToString(byte[] input, int flags) {
+        java.util.Base64.Encoder encoder = (flags & NO_WRAP) != 0
+            ? java.util.Base64.getEncoder()
+            : java.util.Base64.getMimeEncoder(76, new byte[] {'\n'});
+        if ((flags & NO_PADDING) != 0) {
+            encoder = encoder.withoutPadding();
+        }
+        String encoded = encoder.encodeToString(input);
+        return (flags & NO_WRAP) != 0 || encoded.isEmpty() ? encoded : encoded + "\n";
+    }
+}
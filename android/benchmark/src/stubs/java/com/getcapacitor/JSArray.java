@@ -0,0 +1,7 @@
+package com.getcapacitor;
+
+import org.json.JSONArray;
+
+// Plain-JVM stand-in for Capacitor's JSArray
+public class JSArray extends JSONArray {
+}
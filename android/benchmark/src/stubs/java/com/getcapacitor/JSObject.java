@@ -0,0 +1,47 @@
+package com.getcapacitor;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Plain-JVM stand-in for Capacitor's JSObject: a JSONObject whose put()
+// does not throw
+public class JSObject extends JSONObject {
+
+    @Override
+    public JSObject put(String key, boolean value) {
+        return putSafe(key, value);
+    }
+
+    @Override
+    public JSObject put(String key, int value) {
+        return putSafe(key, value);
+    }
+
+    @Override
+    public JSObject put(String key, long value) {
+        return putSafe(key, value);
+    }
+
+    @Override
+    public JSObject put(String key, double value) {
+        return putSafe(key, value);
+    }
+
+    @Override
+    public JSObject put(String key, Object value) {
+        return putSafe(key, value);
+    }
+
+    public JSObject put(String key, String value) {
+        return putSafe(key, value);
+    }
+
+    private JSObject putSafe(String key, Object value) {
+        try {
+            super.put(key, value);
+        } catch (JSONException e) {
+            // Dropped, as Capacitor does
+        }
+        return this;
+    }
+}
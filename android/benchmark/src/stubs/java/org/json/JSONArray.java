@@ -0,0 +1,44 @@
+package org.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Plain-JVM stand-in for Android's org.json.JSONArray
+public class JSONArray {
+
+    private final List<Object> values = new ArrayList<>();
+
+    public JSONArray put(Object value) {
+        values.add(value);
+        return this;
+    }
+
+    public Object opt(int index) {
+        return index >= 0 && index < values.size() ? values.get(index) : null;
+    }
+
+    public int length() {
+        return values.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        write(out);
+        return out.toString();
+    }
+
+    void write(StringBuilder out) {
+        out.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.append(',');
+            Object value = values.get(i);
+            if (value == null) {
+                out.append("null");
+            } else {
+                JSONObject.writeValue(out, value);
+            }
+        }
+        out.append(']');
+    }
+}
@@ -0,0 +1,9 @@
+package org.json;
+
+// Plain-JVM stand-in for org.json.JSONException
+public class JSONException extends Exception {
+
+    public JSONException(String message) {
+        super(message);
+    }
+}
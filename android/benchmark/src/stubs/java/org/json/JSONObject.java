@@ -0,0 +1,135 @@
+package org.json;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Plain-JVM stand-in for Android's org.json.JSONObject: insertion-ordered
+// values and the same toString() output, escaping included ("/" becomes
+// "\/"), so serialized sizes match what a device sends over the bridge.
+public class JSONObject {
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    public JSONObject put(String name, boolean value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, int value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, long value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, double value) throws JSONException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JSONException("Forbidden numeric value: " + value);
+        }
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, Object value) throws JSONException {
+        if (name == null) {
+            throw new JSONException("Names must be non-null");
+        }
+        if (value == null) {
+            values.remove(name);
+        } else {
+            values.put(name, value);
+        }
+        return this;
+    }
+
+    public Object opt(String name) {
+        return values.get(name);
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public int length() {
+        return values.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        write(out);
+        return out.toString();
+    }
+
+    void write(StringBuilder out) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (!first) out.append(',');
+            first = false;
+            quote(out, entry.getKey());
+            out.append(':');
+            writeValue(out, entry.getValue());
+        }
+        out.append('}');
+    }
+
+    static void writeValue(StringBuilder out, Object value) {
+        if (value instanceof JSONObject) {
+            ((JSONObject) value).write(out);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray) value).write(out);
+        } else if (value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof Number) {
+            out.append(numberToString((Number) value));
+        } else {
+            quote(out, value.toString());
+        }
+    }
+
+    static String numberToString(Number number) {
+        // Whole doubles are written without a fraction, as Android does
+        double value = number.doubleValue();
+        if ((number instanceof Double || number instanceof Float) && value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return number.toString();
+    }
+
+    static void quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append('\\').append(c);
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    if (c <= 0x1F || c == '\u2028' || c == '\u2029') {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+}
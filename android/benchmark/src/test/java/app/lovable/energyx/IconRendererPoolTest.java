@@ -0,0 +1,109 @@
+package app.lovable.energyx;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Renders the icons of a large package set through the production
+// IconRenderer and its shared ScratchPool on a plain JVM (android.* comes from
+// the benchmark stubs) and checks that the pooled bitmaps never exceed the
+// pool's cap, also when one icon alone is larger than the cap. Exits non-zero
+// on the first failed check.
+public final class IconRendererPoolTest {
+
+    private static final int PACKAGES = 1000;
+    private static final int WORKERS = 16;
+    // 512px ARGB_8888 is 1 MB, so 16 workers would need four times the cap
+    private static final int[] SIZES = {48, 96, 128, 512};
+    private static final int SOURCE_SIZE = 192;
+    // 1100 * 1100 * 4 bytes is larger than the whole 4 MB cap; the package at
+    // OVERSIZED_INDEX has a translucent icon, so it is rendered as ARGB_8888
+    private static final int OVERSIZED = 1100;
+    private static final int OVERSIZED_INDEX = PACKAGES / 2 + 1;
+
+    public static void main(String[] args) throws InterruptedException {
+        ScratchPool<Bitmap> pool = IconRenderer.getPool();
+        long cap = pool.getMaxBytes();
+        check(cap == IconRenderer.MAX_POOL_BYTES, "pool cap is " + cap);
+
+        AppWorkPool workers = new AppWorkPool(WORKERS);
+        try {
+            renderBatch(workers, -1);
+            check(pool.getPeakBytes() <= cap,
+                "peak " + pool.getPeakBytes() + " bytes above the cap of " + cap);
+            check(pool.getPeakBytes() > cap / 2,
+                "peak " + pool.getPeakBytes() + " bytes never came near the cap; the batch does not test it");
+            check(pool.getHeldBytes() <= cap, "holding " + pool.getHeldBytes() + " bytes after the batch");
+            check(pool.getReuses() > 0, "no pooled bitmap was reused");
+
+            // An icon larger than the cap is only admitted once nothing else is held,
+            // so the peak is exactly its size, never its size plus other bitmaps
+            long oversizedBytes = (long) OVERSIZED * OVERSIZED * 4;
+            check(oversizedBytes > cap, "oversized icon fits the cap");
+            renderBatch(workers, OVERSIZED_INDEX);
+            check(pool.getPeakBytes() == oversizedBytes,
+                "peak " + pool.getPeakBytes() + " bytes, expected the oversized icon alone at " + oversizedBytes);
+
+            // The idle oversized bitmap has to be freed before anything else is pooled
+            renderBatch(workers, -1);
+            check(pool.getPeakBytes() == oversizedBytes, "peak grew to " + pool.getPeakBytes() + " bytes");
+            check(pool.getHeldBytes() <= cap, "holding " + pool.getHeldBytes() + " bytes after the batch");
+
+            IconRenderer.trimPool();
+            check(pool.getHeldBytes() == 0, "holding " + pool.getHeldBytes() + " bytes after trimPool");
+        } finally {
+            workers.shutdown();
+        }
+
+        System.out.println("IconRendererPoolTest passed: " + PACKAGES + " packages x 3 batches, peak "
+            + pool.getPeakBytes() + " bytes, cap " + cap + ", " + pool.getAllocations() + " allocations, "
+            + pool.getReuses() + " reuses");
+    }
+
+    // The package at oversizedIndex, if any, asks for an icon larger than the cap
+    // while the other workers are rendering
+    private static void renderBatch(AppWorkPool workers, int oversizedIndex) throws InterruptedException {
+        IconRenderer renderer = new IconRenderer();
+        byte[][] encoded = new byte[PACKAGES][];
+        boolean completed = workers.runAll(0, PACKAGES, WORKERS, new AtomicBoolean(), i -> {
+            String format = i % 3 == 0 ? IconRenderer.FORMAT_WEBP : IconRenderer.FORMAT_PNG;
+            int size = i == oversizedIndex ? OVERSIZED : SIZES[i % SIZES.length];
+            encoded[i] = renderer.encode(icon(i), size, format);
+        });
+        check(completed, "batch did not complete");
+        for (int i = 0; i < PACKAGES; i++) {
+            check(encoded[i] != null && encoded[i].length > 0, "no icon for package " + i);
+        }
+    }
+
+    // A launcher-sized icon per package; every fifth one is opaque so both
+    // bitmap configs are pooled
+    private static Drawable icon(int index) {
+        Random random = new Random(("com.example.app" + index).hashCode());
+        boolean opaque = index % 5 == 0;
+        Bitmap bitmap = Bitmap.createBitmap(SOURCE_SIZE, SOURCE_SIZE,
+            opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+        int block = 8;
+        for (int y = 0; y < SOURCE_SIZE; y += block) {
+            for (int x = 0; x < SOURCE_SIZE; x += block) {
+                int color = random.nextInt() | (opaque ? 0xff000000 : 0);
+                for (int dy = 0; dy < block; dy++) {
+                    for (int dx = 0; dx < block; dx++) {
+                        bitmap.setPixel(x + dx, y + dy, color);
+                    }
+                }
+            }
+        }
+        return new BitmapDrawable(null, bitmap);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.err.println("IconRendererPoolTest failed: " + message);
+            System.exit(1);
+        }
+    }
+}
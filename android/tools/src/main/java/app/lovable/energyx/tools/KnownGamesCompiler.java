@@ -0,0 +1,49 @@
+package app.lovable.energyx.tools;
+
+import app.lovable.energyx.KnownGamesTable;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compiles the plain-text known games list into the table bundled with the
+// app. Lines are package names, "publisher.*" for publishers that only ship
+// games, or "#" comments:
+//
+//   java app.lovable.energyx.tools.KnownGamesCompiler known_games.txt known_games.bin
+public final class KnownGamesCompiler {
+
+    private static final String PUBLISHER_SUFFIX = ".*";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: KnownGamesCompiler <known_games.txt> <known_games.bin>");
+            System.exit(2);
+        }
+
+        List<String> packages = new ArrayList<>();
+        List<String> publishers = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(args[0]))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (line.endsWith(PUBLISHER_SUFFIX)) {
+                    publishers.add(line.substring(0, line.length() - PUBLISHER_SUFFIX.length()));
+                } else {
+                    packages.add(line);
+                }
+            }
+        }
+
+        byte[] table = KnownGamesTable.build(packages, publishers);
+        try (FileOutputStream out = new FileOutputStream(args[1])) {
+            out.write(table);
+        }
+        System.out.println(packages.size() + " packages, " + publishers.size() + " publishers, "
+            + table.length + " bytes");
+    }
+}
@@ -1,16 +1,42 @@
 import { useState, useEffect, useRef } from "react";
 import { ArrowLeft, Menu, ChevronRight, Plus, Loader2, Trash2, Bookmark } from "lucide-react";
 import { toast } from "sonner";
-import { Capacitor, registerPlugin } from "@capacitor/core";
+import { Capacitor, registerPlugin, type PluginListenerHandle } from "@capacitor/core";
 import { BoostAssistant } from "./BoostAssistant";
+import { performanceSampler } from "@/lib/performance-sampler";
 import assistantButton from "@/assets/assistant-button.png";
 
 
+interface LaunchStats {
+  packageName: string;
+  count: number;
+  p50: number; // Launch latency percentiles over recent launches, in ms
+  p90: number;
+  max: number;
+  lastMs: number;
+  lastAt: number;
+}
+
 interface InstalledAppsPlugin {
-  getInstalledApps(options?: { includeSystemApps?: boolean; includeIcons?: boolean; iconSize?: number }): Promise<{ apps: any[]; count: number }>;
+  searchApps(options: {
+    query: string;
+    includeSystemApps?: boolean;
+    sort?: "relevance" | "name" | "recent";
+    offset?: number;
+    limit?: number;
+    includeIcons?: boolean;
+    iconSize?: number;
+  }): Promise<{ apps: any[]; count: number; total: number; nextOffset: number }>;
   launchApp(options: { packageName: string }): Promise<{ success: boolean; packageName: string }>;
+  getLaunchStats(options?: { packageName?: string }): Promise<{ apps: LaunchStats[] }>;
+  addListener(eventName: "launchMeasured", listener: (event: LaunchStats & { latencyMs: number }) => void): Promise<PluginListenerHandle>;
 }
 
+// The app picker fetches installed apps a page at a time, by name, as it is scrolled
+const APP_PAGE_SIZE = 40;
+// Distance from the bottom of the picker, in px, at which the next page is fetched
+const LOAD_MORE_MARGIN = 400;
+
 const InstalledAppsNative = Capacitor.isNativePlatform()
   ? registerPlugin<InstalledAppsPlugin>("InstalledApps")
   : null;
@@ -41,6 +67,9 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
   const [batteryLevel, setBatteryLevel] = useState(88);
   const [showAppPicker, setShowAppPicker] = useState(false);
   const [isLoadingApps, setIsLoadingApps] = useState(false);
+  const [isLoadingMoreApps, setIsLoadingMoreApps] = useState(false);
+  // Offset of the next native page, -1 once everything is loaded
+  const [nextAppOffset, setNextAppOffset] = useState(-1);
   const [showAssistant, setShowAssistant] = useState(false);
   const [showAssistantButton, setShowAssistantButton] = useState(false);
   const [wifiEnabled, setWifiEnabled] = useState(false);
@@ -60,15 +89,50 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
   const longPressTimerRef = useRef<NodeJS.Timeout | null>(null);
   const isLongPressRef = useRef(false);
 
-  // Simulate ping and temperature updates
+  // Simulate ping (and temperature off-device) updates
   useEffect(() => {
     const interval = setInterval(() => {
       setPing(Math.floor(Math.random() * 100) + 50);
-      setTemperature(parseFloat((25 + Math.random() * 10).toFixed(1)));
+      if (!Capacitor.isNativePlatform()) {
+        setTemperature(parseFloat((25 + Math.random() * 10).toFixed(1)));
+      }
     }, 3000);
     return () => clearInterval(interval);
   }, []);
 
+  // Real CPU, RAM, frame rate and temperature from the native sampler
+  useEffect(() => {
+    if (!Capacitor.isNativePlatform()) return;
+
+    performanceSampler.start({ intervalMs: 1000, trackFrames: true }, (sample) => {
+      if (sample.cpu >= 0) setCpuUsage(Math.round(sample.cpu / 10));
+      if (sample.memTotalKb > 0 && sample.memAvailableKb >= 0) {
+        setRamUsage(Math.round(100 - (sample.memAvailableKb * 100) / sample.memTotalKb));
+      }
+      if (sample.fps >= 0) setFps(Math.round(sample.fps / 10));
+      if (sample.batteryTemp >= 0) setTemperature(sample.batteryTemp / 10);
+    });
+    return () => {
+      performanceSampler.stop();
+    };
+  }, []);
+
+  // Launch latency, measured natively from launchApp to the game reaching the front
+  useEffect(() => {
+    if (!InstalledAppsNative) return;
+
+    const handle = InstalledAppsNative.addListener("launchMeasured", (event) => {
+      const seconds = (event.latencyMs / 1000).toFixed(1);
+      const description = event.count > 1
+        ? `Usually ${(event.p50 / 1000).toFixed(1)}s over ${event.count} launches`
+        : undefined;
+      toast.info(`Game opened in ${seconds}s`, { description });
+    });
+    return () => {
+      handle.then((listener) => listener.remove());
+    };
+  }, []);
+
   useEffect(() => {
     if ('getBattery' in navigator) {
       (navigator as any).getBattery().then((battery: any) => {
@@ -84,24 +148,11 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
     
     if (Capacitor.isNativePlatform() && InstalledAppsNative) {
       try {
-        // Use native InstalledApps plugin for real app names and icons
-        const result = await InstalledAppsNative.getInstalledApps({
-          includeSystemApps: false,
-          includeIcons: true,
-          iconSize: 96
-        });
-        
-        if (result && result.apps) {
-          const apps: InstalledApp[] = result.apps.map((app: any) => ({
-            packageName: app.packageName,
-            appName: app.appName || extractAppName(app.packageName),
-            icon: app.icon,
-            isIncluded: false,
-            boosted: false,
-          }));
-          
-          setAllApps(apps.sort((a, b) => a.appName.localeCompare(b.appName)));
-        }
+        // Use native InstalledApps plugin for real app names and icons; only
+        // the first page, the rest follows as the picker is scrolled
+        const result = await fetchAppPage(0);
+        setAllApps(result.apps);
+        setNextAppOffset(result.nextOffset);
       } catch (error) {
         console.error("Error loading apps:", error);
         loadMockApps();
@@ -113,6 +164,47 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
     setIsLoadingApps(false);
   };
 
+  const fetchAppPage = async (offset: number) => {
+    const result = await InstalledAppsNative!.searchApps({
+      query: "",
+      sort: "name",
+      includeSystemApps: false,
+      includeIcons: true,
+      iconSize: 96,
+      offset,
+      limit: APP_PAGE_SIZE,
+    });
+    const apps: InstalledApp[] = result.apps.map((app: any) => ({
+      packageName: app.packageName,
+      appName: app.appName || extractAppName(app.packageName),
+      icon: app.icon,
+      isIncluded: false,
+      boosted: false,
+    }));
+    return { apps, nextOffset: result.nextOffset };
+  };
+
+  const loadMoreApps = async () => {
+    if (!InstalledAppsNative || nextAppOffset < 0 || isLoadingMoreApps) return;
+    setIsLoadingMoreApps(true);
+    try {
+      const result = await fetchAppPage(nextAppOffset);
+      setAllApps(prev => [...prev, ...result.apps]);
+      setNextAppOffset(result.nextOffset);
+    } catch (error) {
+      console.error("Error loading more apps:", error);
+    } finally {
+      setIsLoadingMoreApps(false);
+    }
+  };
+
+  const handleAppGridScroll = (e: React.UIEvent<HTMLDivElement>) => {
+    const grid = e.currentTarget;
+    if (grid.scrollHeight - grid.scrollTop - grid.clientHeight < LOAD_MORE_MARGIN) {
+      loadMoreApps();
+    }
+  };
+
   const extractAppName = (packageName: string): string => {
     const parts = packageName.split(".");
     const lastPart = parts[parts.length - 1];
@@ -266,6 +358,13 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
 
   const includedPackages = new Set(includedApps.map(app => app.packageName));
   const notIncludedApps = allApps.filter(app => !includedPackages.has(app.packageName));
+
+  // Keep at least a page to pick from when most loaded apps are already added
+  useEffect(() => {
+    if (showAppPicker && !isLoadingApps && notIncludedApps.length < APP_PAGE_SIZE) {
+      loadMoreApps();
+    }
+  }, [showAppPicker, isLoadingApps, notIncludedApps.length, nextAppOffset]);
   const currentApp = includedApps[currentAppIndex];
 
   return (
@@ -525,12 +624,12 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
           </div>
           
           {/* App Grid */}
-          <div className="flex-1 overflow-y-auto p-4 min-h-0">
+          <div className="flex-1 overflow-y-auto p-4 min-h-0" onScroll={handleAppGridScroll}>
             {isLoadingApps ? (
               <div className="flex items-center justify-center py-12">
                 <Loader2 className="w-8 h-8 animate-spin text-cyan-400" />
               </div>
-            ) : notIncludedApps.length === 0 ? (
+            ) : notIncludedApps.length === 0 && nextAppOffset < 0 ? (
               <div className="text-center py-12 text-white/50">
                 <p>All apps have been added!</p>
               </div>
@@ -583,6 +682,11 @@ export const AdvancedDashboard = ({ onClose, initialApp }: AdvancedDashboardProp
                     </button>
                   );
                 })}
+                {isLoadingMoreApps && (
+                  <div className="col-span-full flex justify-center py-3">
+                    <Loader2 className="w-6 h-6 animate-spin text-cyan-400" />
+                  </div>
+                )}
               </div>
             )}
           </div>
@@ -7,11 +7,27 @@ import { BoostAssistant } from "./BoostAssistant";
 import { AdvancedDashboard } from "./AdvancedDashboard";
 import { GravityXDashboard } from "./GravityXDashboard";
 import { toast } from "sonner";
+import { Capacitor, registerPlugin } from "@capacitor/core";
 import wifiOn from "@/assets/wifi-on.webp";
 import wifiOff from "@/assets/wifi-off.webp";
 import assistantToggle from "@/assets/assistant-toggle.png";
 import startAnimation from "@/assets/start_animation.mp4";
 
+interface TrimResult {
+  reclaimedKb: number;
+  availableBeforeKb: number;
+  availableAfterKb: number;
+  apps: { packageName: string; appName: string; reclaimedKb: number; estimated: boolean }[];
+}
+
+interface InstalledAppsPlugin {
+  trimBackgroundApps(options?: { maxApps?: number; batchSize?: number; exclude?: string[]; dryRun?: boolean }): Promise<TrimResult>;
+}
+
+const InstalledAppsNative = Capacitor.isNativePlatform()
+  ? registerPlugin<InstalledAppsPlugin>("InstalledApps")
+  : null;
+
 interface LocationState {
   openGameSpace?: boolean;
   selectedApp?: {
@@ -161,10 +177,27 @@ export const GameBoosterDashboard = () => {
   const handleModeChange = (mode: "saving" | "balance" | "boost") => {
     setPerformanceMode(mode);
     if (mode === "boost") {
-      toast.success("Boost Mode Activated! 🚀", {
-        description: "Maximum performance unlocked",
-      });
       setOptimizationScore(95);
+      if (!InstalledAppsNative) {
+        toast.success("Boost Mode Activated! 🚀", {
+          description: "Maximum performance unlocked",
+        });
+        return;
+      }
+      // Free memory held by background apps before reporting the boost
+      InstalledAppsNative.trimBackgroundApps()
+        .then((result) => {
+          const reclaimedMb = Math.round(result.reclaimedKb / 1024);
+          toast.success("Boost Mode Activated! 🚀", {
+            description: `Closed ${result.apps.length} background apps, freed ${reclaimedMb} MB`,
+          });
+        })
+        .catch((error) => {
+          console.error("Error trimming background apps:", error);
+          toast.success("Boost Mode Activated! 🚀", {
+            description: "Maximum performance unlocked",
+          });
+        });
     } else if (mode === "balance") {
       toast.info("Balance Mode", {
         description: "Optimal performance and efficiency",
@@ -13,8 +13,57 @@ import { Capacitor } from "@capacitor/core";
 
 export interface OverlayConfig {
   duration: number; // Duration in milliseconds
-  message: string;
+  message: string; // "{app}" is replaced with the detected game's name
+  appName?: string; // Unused; the name comes from the detected game
+  queueMode?: "latest" | "fifo"; // "latest" replaces the overlay at once, "fifo" shows each game in turn
+  cooldownMs?: number; // Minimum time before the same game triggers the overlay again
+}
+
+export interface HistogramSummary {
+  unit: string;
+  count: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+}
+
+export interface OverlayMetrics {
+  overlayDisplayCount: number;
+  histograms: Record<string, HistogramSummary>;
+}
+
+export interface GameStats {
+  packageName: string;
+  sessions: number;
+  foregroundMs: number;
+  samples: number;
+  avgCpu: number; // 1/10 %, -1 if unreadable
+  avgFps: number; // fps ×10, -1 if not tracked
+  maxBatteryTemp: number; // 1/10 °C, -1 if unknown
+  minMemAvailableMb: number; // -1 if unknown
+  firstSeen: number;
+  lastSeen: number;
+}
+
+export interface DetectedGame {
+  packageName: string;
   appName: string;
+  isGame: boolean;
+  score: number;
+  reasons: Array<"category" | "knownPackage" | "knownPublisher" | "name" | "usage">;
+}
+
+export interface GameProfile {
+  /** Package name, or "*" for the default of every monitored game */
+  packageName: string;
+  screenTimeoutMs?: number;
+  /** 0-255; turns adaptive brightness off while applied */
+  brightness?: number;
+  /** Preferred display refresh rate in Hz */
+  refreshRate?: number;
+  trimPolicy?: "none" | "onEnter";
 }
 
 class OverlayService {
@@ -130,6 +179,127 @@ class OverlayService {
     }
   }
 
+  /**
+   * Show a live FPS, jank, CPU and temperature HUD while a monitored game is in front
+   */
+  async setHudEnabled(enabled: boolean): Promise<void> {
+    if (!Capacitor.isNativePlatform()) {
+      return;
+    }
+
+    try {
+      await this.callNativeMethod("setHudEnabled", { enabled });
+    } catch (error) {
+      console.error("Error setting HUD mode:", error);
+    }
+  }
+
+  /**
+   * Monitor the installed games found natively, in addition to the ones set with setMonitoredGames
+   */
+  async setAutoDetectGames(enabled: boolean): Promise<void> {
+    if (!Capacitor.isNativePlatform()) {
+      return;
+    }
+
+    try {
+      await this.callNativeMethod("setAutoDetectGames", { enabled });
+    } catch (error) {
+      console.error("Error setting game detection:", error);
+    }
+  }
+
+  /**
+   * Get the native game classification, best score first
+   */
+  async getDetectedGames(options: { refresh?: boolean; gamesOnly?: boolean } = {}): Promise<DetectedGame[]> {
+    if (!Capacitor.isNativePlatform()) {
+      return [];
+    }
+
+    try {
+      const result = await this.callNativeMethod("getDetectedGames", options);
+      return result?.apps ?? [];
+    } catch (error) {
+      console.error("Error getting detected games:", error);
+      return [];
+    }
+  }
+
+  /**
+   * Settings applied while a game is in front and rolled back when it leaves
+   */
+  async setGameProfile(profile: GameProfile): Promise<void> {
+    if (!Capacitor.isNativePlatform()) {
+      return;
+    }
+
+    try {
+      await this.callNativeMethod("setGameProfile", profile);
+    } catch (error) {
+      console.error("Error setting game profile:", error);
+    }
+  }
+
+  async removeGameProfile(packageName: string): Promise<void> {
+    if (!Capacitor.isNativePlatform()) {
+      return;
+    }
+
+    try {
+      await this.callNativeMethod("removeGameProfile", { packageName });
+    } catch (error) {
+      console.error("Error removing game profile:", error);
+    }
+  }
+
+  async getGameProfiles(): Promise<GameProfile[]> {
+    if (!Capacitor.isNativePlatform()) {
+      return [];
+    }
+
+    try {
+      const result = await this.callNativeMethod("getGameProfiles");
+      return result?.profiles ?? [];
+    } catch (error) {
+      console.error("Error getting game profiles:", error);
+      return [];
+    }
+  }
+
+  /**
+   * Get detection and overlay latency metrics from the native service
+   */
+  async getMetrics(reset = false): Promise<OverlayMetrics | null> {
+    if (!Capacitor.isNativePlatform()) {
+      return null;
+    }
+
+    try {
+      return await this.callNativeMethod("getMetrics", { reset });
+    } catch (error) {
+      console.error("Error getting overlay metrics:", error);
+      return null;
+    }
+  }
+
+  /**
+   * Get per-game session totals recorded by the native service
+   */
+  async getGameStats(options: { from?: number; to?: number; packageName?: string } = {}): Promise<GameStats[]> {
+    if (!Capacitor.isNativePlatform()) {
+      return [];
+    }
+
+    try {
+      const result = await this.callNativeMethod("getGameStats", options);
+      return result?.games ?? [];
+    } catch (error) {
+      console.error("Error getting game stats:", error);
+      return [];
+    }
+  }
+
   /**
    * Call native method through Capacitor bridge
    */
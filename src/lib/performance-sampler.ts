@@ -0,0 +1,106 @@
+/**
+ * Native device performance sampler for Energy-X
+ *
+ * Streams CPU, memory, thermal and frame-rate samples from the
+ * PerformanceSampler Android plugin. The native side only sends fields
+ * that changed since the previous sample; this wrapper merges them back
+ * into full samples.
+ */
+
+import { Capacitor, registerPlugin } from "@capacitor/core";
+
+export interface PerformanceSample {
+  seq: number;
+  t: number; // Wall-clock time in milliseconds
+  cpu: number; // Device CPU busy since the previous sample, 1/10 % (-1 if unreadable)
+  cores: number[]; // Per-core CPU busy, 1/10 % (-1 if unreadable)
+  freqs: number[]; // Per-core clock in MHz (-1 if offline or unreadable)
+  memTotalKb: number;
+  memAvailableKb: number;
+  appCpuMs: number; // CPU time used by this app since the previous sample
+  thermal: number; // PowerManager thermal status, -1 before Android 10
+  batteryTemp: number; // Battery temperature in 1/10 °C
+  fps: number; // Display frames per second ×10, -1 unless trackFrames is set
+  jank: number; // Frames since the previous sample that took over 1.5 refresh periods, -1 unless trackFrames is set
+}
+
+export interface SamplingOptions {
+  intervalMs?: number; // Time between samples, at least 100
+  emitIntervalMs?: number; // Time between batches sent to JS
+  trackFrames?: boolean; // Also estimate the display frame rate
+}
+
+type StreamEvent =
+  | { type: "started"; cores: number; intervalMs: number }
+  | { type: "samples"; samples: Partial<PerformanceSample>[] }
+  | { type: "stopped" };
+
+interface PerformanceSamplerPlugin {
+  startSampling(options: SamplingOptions, callback: (event: StreamEvent | null, error?: any) => void): Promise<string>;
+  stopSampling(): Promise<void>;
+  getSamples(options?: { sinceSequence?: number }): Promise<{ cores: number; nextSequence: number; samples: PerformanceSample[] }>;
+}
+
+const PerformanceSamplerNative = Capacitor.isNativePlatform()
+  ? registerPlugin<PerformanceSamplerPlugin>("PerformanceSampler")
+  : null;
+
+class PerformanceSamplerService {
+  private last: PerformanceSample | null = null;
+
+  /**
+   * Start sampling; onSample receives full samples in order
+   */
+  async start(options: SamplingOptions, onSample: (sample: PerformanceSample) => void): Promise<boolean> {
+    if (!PerformanceSamplerNative) {
+      return false;
+    }
+
+    this.last = null;
+    try {
+      await PerformanceSamplerNative.startSampling(options, (event, error) => {
+        if (error || !event || event.type !== "samples") return;
+        for (const delta of event.samples) {
+          const sample = { ...this.last, ...delta } as PerformanceSample;
+          this.last = sample;
+          onSample(sample);
+        }
+      });
+      return true;
+    } catch (error) {
+      console.error("Error starting performance sampler:", error);
+      return false;
+    }
+  }
+
+  async stop(): Promise<void> {
+    if (!PerformanceSamplerNative) {
+      return;
+    }
+
+    try {
+      await PerformanceSamplerNative.stopSampling();
+    } catch (error) {
+      console.error("Error stopping performance sampler:", error);
+    }
+  }
+
+  /**
+   * Full samples still held in the native ring buffer
+   */
+  async getSamples(sinceSequence = 0): Promise<PerformanceSample[]> {
+    if (!PerformanceSamplerNative) {
+      return [];
+    }
+
+    try {
+      const result = await PerformanceSamplerNative.getSamples({ sinceSequence });
+      return result.samples;
+    } catch (error) {
+      console.error("Error reading performance samples:", error);
+      return [];
+    }
+  }
+}
+
+export const performanceSampler = new PerformanceSamplerService();
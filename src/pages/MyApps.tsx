@@ -1,4 +1,4 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import { useNavigate } from "react-router-dom";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
@@ -17,11 +17,28 @@ interface InstalledApp {
 }
 
 interface InstalledAppsPlugin {
-  getInstalledApps(options?: { includeSystemApps?: boolean; includeIcons?: boolean; iconSize?: number }): Promise<{ apps: InstalledApp[]; count: number }>;
   launchApp(options: { packageName: string }): Promise<{ success: boolean }>;
   getAppIcon(options: { packageName: string; iconSize?: number }): Promise<{ icon: string }>;
+  searchApps(options: {
+    query: string;
+    category?: "all" | "games" | "nonGames";
+    includeSystemApps?: boolean;
+    sort?: "relevance" | "name" | "recent";
+    offset?: number;
+    limit?: number;
+    includeIcons?: boolean;
+    iconSize?: number;
+  }): Promise<{ apps: InstalledApp[]; count: number; total: number; nextOffset: number }>;
 }
 
+const SEARCH_DEBOUNCE_MS = 120;
+const SEARCH_LIMIT = 100;
+// The list is fetched a page at a time, by name, as it is scrolled
+const PAGE_SIZE = 40;
+const ICON_SIZE = 128;
+// Distance from the bottom of the list, in px, at which the next page is fetched
+const LOAD_MORE_MARGIN = 600;
+
 const InstalledAppsNative = Capacitor.isNativePlatform() 
   ? registerPlugin<InstalledAppsPlugin>("InstalledApps") 
   : null;
@@ -32,6 +49,14 @@ export default function MyApps() {
   const [filteredApps, setFilteredApps] = useState<InstalledApp[]>([]);
   const [searchQuery, setSearchQuery] = useState("");
   const [isLoading, setIsLoading] = useState(true);
+  const [isLoadingMore, setIsLoadingMore] = useState(false);
+  // Offset of the next native page, -1 once everything is loaded
+  const [nextOffset, setNextOffset] = useState(-1);
+  const [totalApps, setTotalApps] = useState(0);
+  // Bumped by every reload so pages of an earlier list are dropped
+  const loadGeneration = useRef(0);
+  // True when the list came from the native app index, which can then be searched natively
+  const [isNativeList, setIsNativeList] = useState(false);
   const [showSystemApps, setShowSystemApps] = useState(false);
   const [selectedApp, setSelectedApp] = useState<InstalledApp | null>(null);
   const [showOptimizerSelector, setShowOptimizerSelector] = useState(false);
@@ -51,6 +76,35 @@ export default function MyApps() {
   useEffect(() => {
     if (searchQuery.trim() === "") {
       setFilteredApps(apps);
+    } else if (InstalledAppsNative && isNativeList) {
+      // Searched natively; optimized state comes from the loaded list, which
+      // may not have reached every match yet
+      let stale = false;
+      const timer = setTimeout(async () => {
+        try {
+          const result = await InstalledAppsNative.searchApps({
+            query: searchQuery,
+            includeSystemApps: showSystemApps,
+            limit: SEARCH_LIMIT,
+            includeIcons: true,
+            iconSize: ICON_SIZE,
+          });
+          if (stale) return;
+          const loaded = new Map(apps.map((app) => [app.packageName, app]));
+          setFilteredApps(
+            result.apps.map((app) => {
+              const known = loaded.get(app.packageName);
+              return known ? { ...known, icon: known.icon ?? app.icon } : { ...app, isOptimized: false };
+            })
+          );
+        } catch (error) {
+          console.error("Error searching apps:", error);
+        }
+      }, SEARCH_DEBOUNCE_MS);
+      return () => {
+        stale = true;
+        clearTimeout(timer);
+      };
     } else {
       const query = searchQuery.toLowerCase();
       setFilteredApps(
@@ -61,31 +115,45 @@ export default function MyApps() {
         )
       );
     }
-  }, [searchQuery, apps]);
+  }, [searchQuery, apps, isNativeList, showSystemApps]);
+
+  const fetchAppPage = async (offset: number) => {
+    const result = await InstalledAppsNative!.searchApps({
+      query: "",
+      sort: "name",
+      includeSystemApps: showSystemApps,
+      includeIcons: true,
+      iconSize: ICON_SIZE,
+      offset,
+      limit: PAGE_SIZE,
+    });
+    const page: InstalledApp[] = result.apps.map((app: any) => ({
+      packageName: app.packageName,
+      appName: app.appName,
+      icon: app.icon,
+      isOptimized: false,
+      isSystemApp: app.isSystemApp,
+    }));
+    return { page, total: result.total, nextOffset: result.nextOffset };
+  };
 
   const loadInstalledApps = async () => {
+    const generation = ++loadGeneration.current;
     setIsLoading(true);
+    setIsNativeList(false);
+    setNextOffset(-1);
     
     if (Capacitor.isNativePlatform() && InstalledAppsNative) {
       try {
-        const result = await InstalledAppsNative.getInstalledApps({
-          includeSystemApps: showSystemApps,
-          includeIcons: true,
-          iconSize: 128,
-        });
+        // Only the first page; the rest follows as the list is scrolled
+        const result = await fetchAppPage(0);
+        if (generation !== loadGeneration.current) return;
         
-        if (result && result.apps) {
-          const installedApps: InstalledApp[] = result.apps.map((app: any) => ({
-            packageName: app.packageName,
-            appName: app.appName,
-            icon: app.icon,
-            isOptimized: false,
-            isSystemApp: app.isSystemApp,
-          }));
-          
-          setApps(installedApps.sort((a, b) => a.appName.localeCompare(b.appName)));
-          toast.success(`Found ${result.count} apps`);
-        }
+        setApps(result.page);
+        setTotalApps(result.total);
+        setNextOffset(result.nextOffset);
+        setIsNativeList(true);
+        toast.success(`Found ${result.total} apps`);
       } catch (error) {
         console.error("Error loading apps:", error);
         // Fallback to usage stats manager
@@ -116,6 +184,7 @@ export default function MyApps() {
             }));
             
             setApps(installedApps.sort((a, b) => a.appName.localeCompare(b.appName)));
+            setTotalApps(installedApps.length);
           }
         } catch (fallbackError) {
           console.error("Fallback also failed:", fallbackError);
@@ -130,6 +199,31 @@ export default function MyApps() {
     setIsLoading(false);
   };
 
+  const loadMoreApps = async () => {
+    if (!InstalledAppsNative || nextOffset < 0 || isLoadingMore) return;
+    const generation = loadGeneration.current;
+    setIsLoadingMore(true);
+    try {
+      const result = await fetchAppPage(nextOffset);
+      if (generation !== loadGeneration.current) return;
+      setApps((prevApps) => [...prevApps, ...result.page]);
+      setTotalApps(result.total);
+      setNextOffset(result.nextOffset);
+    } catch (error) {
+      console.error("Error loading more apps:", error);
+    } finally {
+      setIsLoadingMore(false);
+    }
+  };
+
+  const handleListScroll = (e: React.UIEvent<HTMLDivElement>) => {
+    if (searchQuery.trim() !== "") return;
+    const list = e.currentTarget;
+    if (list.scrollHeight - list.scrollTop - list.clientHeight < LOAD_MORE_MARGIN) {
+      loadMoreApps();
+    }
+  };
+
   const extractAppName = (packageName: string): string => {
     // Extract a readable name from package name
     const parts = packageName.split(".");
@@ -161,6 +255,7 @@ export default function MyApps() {
     ].sort((a, b) => a.appName.localeCompare(b.appName));
     
     setApps(mockApps);
+    setTotalApps(mockApps.length);
   };
 
   const handleToggleOptimize = (e: React.MouseEvent, packageName: string) => {
@@ -298,14 +393,14 @@ export default function MyApps() {
 
           {/* Stats */}
           <div className="flex items-center justify-between mt-3 text-xs text-muted-foreground">
-            <span>{filteredApps.length} apps</span>
+            <span>{searchQuery.trim() === "" ? totalApps : filteredApps.length} apps</span>
             <span>{apps.filter(a => a.isOptimized).length} optimized</span>
           </div>
         </div>
       </header>
 
       {/* Apps List */}
-      <div className="flex-1 overflow-y-auto">
+      <div className="flex-1 overflow-y-auto" onScroll={handleListScroll}>
         {isLoading ? (
           <div className="flex items-center justify-center h-40">
             <Loader2 className="h-8 w-8 animate-spin text-primary" />
@@ -370,6 +465,11 @@ export default function MyApps() {
                 </button>
               </div>
             ))}
+            {isLoadingMore && (
+              <div className="flex justify-center py-3">
+                <Loader2 className="h-5 w-5 animate-spin text-primary" />
+              </div>
+            )}
           </div>
         )}
       </div>